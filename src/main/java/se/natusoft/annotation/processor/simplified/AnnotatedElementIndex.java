@@ -0,0 +1,377 @@
+/*
+ *
+ * PROJECT
+ *     Name
+ *         SimplifiedAnnotationProcessor
+ *
+ *     Code Version
+ *         1.1
+ *
+ *     Description
+ *         An abstract annotation processor base class that simplifies the annotation
+ *         processing, but also limits it slightly. It is however good enough for most
+ *         cases and makes things a bit easier and clearer.
+ *
+ * COPYRIGHTS
+ *     Copyright (C) 2013 by Natusoft AB All rights reserved.
+ *
+ * LICENSE
+ *     Apache 2.0 (Open Source)
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ * AUTHORS
+ *     tommy ()
+ *         Changes:
+ *         2026-10-16: Created!
+ *
+ */
+package se.natusoft.annotation.processor.simplified;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.TypeParameterElement;
+import javax.lang.model.util.ElementScanner8;
+import javax.lang.model.util.Elements;
+import se.natusoft.annotation.processor.simplified.log.Logger;
+
+/**
+ * An index of the elements annotated with the processed annotations of one round.
+ * <p>
+ * Asking the RoundEnvironment for the elements annotated with an annotation makes the compiler scan all root
+ * elements of the round. Doing that once per processed annotation means that a processor processing N annotations
+ * scans the round N times. This index can instead be built in one of these ways:
+ * <ul>
+ * <li>LOOKUP - Asks the RoundEnvironment once per annotation, but only when asked for and only once per round
+ *     no matter how many times it is asked. This is the default.</li>
+ * <li>SCAN - Builds the whole index with one scan of the root elements of the round.</li>
+ * <li>ANY - Builds the whole index from one call to RoundEnvironment.getElementsAnnotatedWithAny(...). That method
+ *     is only available from Java 9. On older versions, or if the call fails, this falls back to SCAN.</li>
+ * </ul>
+ * The elements of an annotation can also be looked up by ElementKind or by enclosing type.
+ */
+public class AnnotatedElementIndex {
+    //
+    // Inner Types
+    //
+
+    /**
+     * The ways the index can be built.
+     */
+    public enum Strategy {
+        LOOKUP,
+        SCAN,
+        ANY
+    }
+
+    //
+    // Private Members
+    //
+
+    /** The round to index. */
+    private RoundEnvironment roundEnv = null;
+
+    /** Used to get annotations including inherited. */
+    private Elements elementUtils = null;
+
+    /** Logs a failing getElementsAnnotatedWithAny(...). */
+    private Logger logger = null;
+
+    /** The processed annotations of the round keyed by qualified name. */
+    private Map<String, TypeElement> annotations = new HashMap<String, TypeElement>();
+
+    /** The annotated elements keyed by qualified annotation name. */
+    private Map<String, Set<Element>> elementsByAnnotation = new HashMap<String, Set<Element>>();
+
+    /** The annotated elements keyed by ElementKind per qualified annotation name. Built on demand. */
+    private Map<String, Map<ElementKind, Set<Element>>> elementsByKind = new HashMap<String, Map<ElementKind, Set<Element>>>();
+
+    /** The annotated elements keyed by enclosing type per qualified annotation name. Built on demand. */
+    private Map<String, Map<Element, Set<Element>>> elementsByEnclosingType = new HashMap<String, Map<Element, Set<Element>>>();
+
+    //
+    // Constructors
+    //
+
+    /**
+     * Creates a new AnnotatedElementIndex.
+     *
+     * @param strategy How to build the index.
+     * @param annotations The annotations to index elements for.
+     * @param roundEnv The round to index.
+     * @param elementUtils Used to get annotations including inherited.
+     * @param logger Logs a failing getElementsAnnotatedWithAny(...) for ANY.
+     */
+    public AnnotatedElementIndex(Strategy strategy, Set<? extends TypeElement> annotations, RoundEnvironment roundEnv,
+                                 Elements elementUtils, Logger logger) {
+        this.roundEnv = roundEnv;
+        this.elementUtils = elementUtils;
+        this.logger = logger;
+        for (TypeElement annotation : annotations) {
+            this.annotations.put(annotation.getQualifiedName().toString(), annotation);
+        }
+
+        switch (strategy) {
+            case ANY:
+                if (!indexAny(annotations)) {
+                    indexScan();
+                }
+                break;
+
+            case SCAN:
+                indexScan();
+                break;
+
+            default:
+                // LOOKUP is done on demand.
+        }
+    }
+
+    //
+    // Methods
+    //
+
+    /**
+     * Builds the index from RoundEnvironment.getElementsAnnotatedWithAny(TypeElement...). Returns false if that
+     * method is not available or fails.
+     *
+     * @param annotations The annotations to index elements for.
+     */
+    @SuppressWarnings("unchecked")
+    private boolean indexAny(Set<? extends TypeElement> annotations) {
+        Method getElementsAnnotatedWithAny;
+        try {
+            getElementsAnnotatedWithAny = RoundEnvironment.class.getMethod("getElementsAnnotatedWithAny",
+                    TypeElement[].class);
+        }
+        catch (NoSuchMethodException nsme) {
+            return false;
+        }
+
+        Set<? extends Element> annotatedElements;
+        try {
+            annotatedElements = (Set<? extends Element>)getElementsAnnotatedWithAny.invoke(this.roundEnv,
+                    (Object)annotations.toArray(new TypeElement[annotations.size()]));
+        }
+        catch (InvocationTargetException ite) {
+            this.logger.warn("getElementsAnnotatedWithAny(...) failed, scanning instead! [{}]", ite.getCause());
+            return false;
+        }
+        catch (IllegalAccessException iae) {
+            this.logger.warn("getElementsAnnotatedWithAny(...) failed, scanning instead! [{}]", iae);
+            return false;
+        }
+
+        initEmpty();
+        for (Element annotatedElement : annotatedElements) {
+            indexElement(annotatedElement);
+        }
+
+        return true;
+    }
+
+    /**
+     * Builds the index by scanning the root elements of the round once.
+     */
+    private void indexScan() {
+        initEmpty();
+        IndexingScanner scanner = new IndexingScanner();
+        for (Element rootElement : this.roundEnv.getRootElements()) {
+            scanner.scan(rootElement);
+        }
+    }
+
+    /**
+     * Initializes an empty set for each annotation so that annotations without elements are not looked up.
+     */
+    private void initEmpty() {
+        for (String annotation : this.annotations.keySet()) {
+            this.elementsByAnnotation.put(annotation, new LinkedHashSet<Element>());
+        }
+    }
+
+    /**
+     * Adds the element to the sets of each processed annotation it is annotated with.
+     *
+     * @param element The element to index.
+     */
+    private void indexElement(Element element) {
+        for (AnnotationMirror annotationMirror : this.elementUtils.getAllAnnotationMirrors(element)) {
+            TypeElement annotationType = (TypeElement)annotationMirror.getAnnotationType().asElement();
+            Set<Element> annotatedElements = this.elementsByAnnotation.get(annotationType.getQualifiedName().toString());
+            if (annotatedElements != null) {
+                annotatedElements.add(element);
+            }
+        }
+    }
+
+    /**
+     * Returns the elements annotated with the specified annotation.
+     *
+     * @param annotation The annotation to get elements for.
+     */
+    public Set<? extends Element> getElementsAnnotatedWith(TypeElement annotation) {
+        return getElementsAnnotatedWith(annotation.getQualifiedName().toString());
+    }
+
+    /**
+     * Returns the elements annotated with the specified annotation. An empty set is returned for an annotation
+     * that is not processed in this round.
+     *
+     * @param annotation The qualified name of the annotation to get elements for.
+     */
+    public Set<? extends Element> getElementsAnnotatedWith(String annotation) {
+        Set<Element> annotatedElements = this.elementsByAnnotation.get(annotation);
+        if (annotatedElements == null) {
+            TypeElement annotationType = this.annotations.get(annotation);
+            if (annotationType == null) {
+                return Collections.emptySet();
+            }
+            annotatedElements = new LinkedHashSet<Element>(this.roundEnv.getElementsAnnotatedWith(annotationType));
+            this.elementsByAnnotation.put(annotation, annotatedElements);
+        }
+
+        return Collections.unmodifiableSet(annotatedElements);
+    }
+
+    /**
+     * Returns the elements of the specified kind annotated with the specified annotation.
+     *
+     * @param annotation The qualified name of the annotation to get elements for.
+     * @param kind The kind of elements to get.
+     */
+    public Set<Element> getElementsAnnotatedWith(String annotation, ElementKind kind) {
+        Map<ElementKind, Set<Element>> byKind = this.elementsByKind.get(annotation);
+        if (byKind == null) {
+            byKind = new HashMap<ElementKind, Set<Element>>();
+            for (Element element : getElementsAnnotatedWith(annotation)) {
+                addTo(byKind, element.getKind(), element);
+            }
+            this.elementsByKind.put(annotation, byKind);
+        }
+
+        return resultOf(byKind.get(kind));
+    }
+
+    /**
+     * Returns the elements annotated with the specified annotation that are members of, or parameters of members of,
+     * the specified type.
+     *
+     * @param annotation The qualified name of the annotation to get elements for.
+     * @param enclosingType The type enclosing the elements to get.
+     */
+    public Set<Element> getElementsAnnotatedWith(String annotation, TypeElement enclosingType) {
+        Map<Element, Set<Element>> byEnclosingType = this.elementsByEnclosingType.get(annotation);
+        if (byEnclosingType == null) {
+            byEnclosingType = new HashMap<Element, Set<Element>>();
+            for (Element element : getElementsAnnotatedWith(annotation)) {
+                Element enclosingElement = element.getEnclosingElement();
+                while (enclosingElement != null && !enclosingElement.getKind().isClass() && !enclosingElement.getKind().isInterface()) {
+                    enclosingElement = enclosingElement.getEnclosingElement();
+                }
+                if (enclosingElement != null) {
+                    addTo(byEnclosingType, enclosingElement, element);
+                }
+            }
+            this.elementsByEnclosingType.put(annotation, byEnclosingType);
+        }
+
+        return resultOf(byEnclosingType.get(enclosingType));
+    }
+
+    /**
+     * Adds an element to the set for a key in a map, creating the set if needed.
+     *
+     * @param map The map to add to.
+     * @param key The key of the set.
+     * @param element The element to add.
+     */
+    private static <K> void addTo(Map<K, Set<Element>> map, K key, Element element) {
+        Set<Element> elements = map.get(key);
+        if (elements == null) {
+            elements = new LinkedHashSet<Element>();
+            map.put(key, elements);
+        }
+        elements.add(element);
+    }
+
+    /**
+     * Returns a read only view of the specified set or an empty set if null.
+     *
+     * @param elements The set to return.
+     */
+    private static Set<Element> resultOf(Set<Element> elements) {
+        if (elements == null) {
+            return Collections.emptySet();
+        }
+
+        return Collections.unmodifiableSet(elements);
+    }
+
+    //
+    // Inner Classes
+    //
+
+    /**
+     * Scans elements the same way the compiler does when looking for annotated elements, indexing every element.
+     */
+    private class IndexingScanner extends ElementScanner8<Void, Void> {
+
+        @Override
+        public Void scan(Element element, Void unused) {
+            indexElement(element);
+            return super.scan(element, unused);
+        }
+
+        @Override
+        public Void visitPackage(PackageElement element, Void unused) {
+            // Only the package itself is a root element, not all types in it.
+            return null;
+        }
+
+        @Override
+        public Void visitType(TypeElement element, Void unused) {
+            scan(element.getTypeParameters(), unused);
+            return super.visitType(element, unused);
+        }
+
+        @Override
+        public Void visitExecutable(ExecutableElement element, Void unused) {
+            scan(element.getTypeParameters(), unused);
+            return super.visitExecutable(element, unused);
+        }
+
+        @Override
+        public Void visitUnknown(Element element, Void unused) {
+            // Element kinds added after Java 8, like modules and record components.
+            return scan(element.getEnclosedElements(), unused);
+        }
+
+        @Override
+        public Void visitTypeParameter(TypeParameterElement element, Void unused) {
+            return null;
+        }
+    }
+}
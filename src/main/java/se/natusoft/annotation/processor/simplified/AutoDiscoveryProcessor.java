@@ -69,12 +69,12 @@ public class AutoDiscoveryProcessor extends SimplifiedAnnotationProcessor {
 
     @Process(AutoDiscovery.class)
     public void processAD(Set<? extends Element> annotatedElements) {
-        System.out.println("@AutoDiscovery: Updating " + RELATIVE_PROCESSOR_DISCOVERY_PATH + "/" + PROCESSOR_DISCOVERY_FILE +
-                " with the following processors:");
+        getLogger().info("@AutoDiscovery: Updating {} with the following processors:",
+                RELATIVE_PROCESSOR_DISCOVERY_PATH + "/" + PROCESSOR_DISCOVERY_FILE);
         for (Element annotatedElement : annotatedElements) {
             TypeElement type = (TypeElement)annotatedElement; // @AutoDiscovery can only be applied to types!
             String processor = type.getQualifiedName().toString();
-            System.out.println("    " + processor);
+            getLogger().info("    {}", processor);
             updateJavaxAnnotationProcessinProcessors(processor);
         }
     }
@@ -0,0 +1,550 @@
+/*
+ *
+ * PROJECT
+ *     Name
+ *         SimplifiedAnnotationProcessor
+ *
+ *     Code Version
+ *         1.1
+ *
+ *     Description
+ *         An abstract annotation processor base class that simplifies the annotation
+ *         processing, but also limits it slightly. It is however good enough for most
+ *         cases and makes things a bit easier and clearer.
+ *
+ * COPYRIGHTS
+ *     Copyright (C) 2013 by Natusoft AB All rights reserved.
+ *
+ * LICENSE
+ *     Apache 2.0 (Open Source)
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ * AUTHORS
+ *     tommy ()
+ *         Changes:
+ *         2026-10-16: Created!
+ *
+ */
+package se.natusoft.annotation.processor.simplified;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Set;
+import javax.annotation.processing.SupportedSourceVersion;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+import se.natusoft.annotation.processor.simplified.annotations.CodeTemplate;
+import se.natusoft.annotation.processor.simplified.annotations.GenerateSource;
+import se.natusoft.annotation.processor.simplified.annotations.NewRound;
+import se.natusoft.annotation.processor.simplified.annotations.Process;
+import se.natusoft.annotation.processor.simplified.annotations.ProcessedAnnotations;
+import se.natusoft.annotation.processor.simplified.codegen.CodeGeneratorOutputStream;
+import se.natusoft.annotation.processor.simplified.codegen.GenerationSupport;
+import se.natusoft.annotation.processor.simplified.codegen.JavaSourceOutputStream;
+import se.natusoft.annotation.processor.simplified.codegen.template.Expression;
+import se.natusoft.annotation.processor.simplified.codegen.template.ForNode;
+import se.natusoft.annotation.processor.simplified.codegen.template.IfNode;
+import se.natusoft.annotation.processor.simplified.codegen.template.Template;
+import se.natusoft.annotation.processor.simplified.codegen.template.TemplateContext;
+import se.natusoft.annotation.processor.simplified.codegen.template.TemplateException;
+import se.natusoft.annotation.processor.simplified.codegen.template.TemplateNode;
+import se.natusoft.annotation.processor.simplified.codegen.template.TextNode;
+
+/**
+ * This compiles the template resources referenced by @CodeTemplate into Java classes. Each generated class has a
+ * static render(...) method with one straight-line JavaSourceOutputStream call per template line, and plain Java
+ * loops and ifs for the directives, so rendering does not walk the template nodes. The values referenced by the
+ * template are still read through Expression.
+ * <p>
+ * The template resources are looked up in the class output, source path and class path of the compilation, and
+ * finally in the directories given by the sap.templatePath option. Templates are read as UTF-8, like
+ * Template.load(...) does. Templates that can't be found or have syntax errors are reported as compilation errors.
+ */
+@ProcessedAnnotations({CodeTemplate.class})
+@SupportedSourceVersion(SourceVersion.RELEASE_8)
+public class CodeTemplateProcessor extends SimplifiedAnnotationProcessor {
+    //
+    // Constants
+    //
+
+    /** Appended to the template name to get the name of the generated class. */
+    public static final String CLASS_NAME_SUFFIX = "Template";
+
+    /**
+     * Processor option (-Asap.templatePath=...) giving directories, separated by the platform path separator, to
+     * look for templates in when they are not found in the locations of the compilation. For example
+     * "src/main/resources" given as an absolute path.
+     */
+    public static final String OPTION_TEMPLATE_PATH = "sap.templatePath";
+
+    private static final String EXPRESSION_TYPE = Expression.class.getName();
+    private static final String CONTEXT_TYPE = TemplateContext.class.getName();
+    private static final String EXCEPTION_TYPE = TemplateException.class.getName();
+
+    /** Where to look for template resources, in order. */
+    private static final StandardLocation[] TEMPLATE_LOCATIONS = {
+            StandardLocation.CLASS_OUTPUT, StandardLocation.SOURCE_PATH, StandardLocation.CLASS_PATH
+    };
+
+    //
+    // Private Members
+    //
+
+    /** The templates to generate classes for. */
+    private List<CompiledTemplate> toGenerate = null;
+
+    /** The qualified names of the classes to generate, to detect clashes. */
+    private Set<String> classNames = null;
+
+    //
+    // Methods
+    //
+
+    @Override
+    public Set<String> getSupportedOptions() {
+        Set<String> supportedOptions = new HashSet<String>(super.getSupportedOptions());
+        supportedOptions.add(OPTION_TEMPLATE_PATH);
+        return supportedOptions;
+    }
+
+    //
+    // Processing Methods
+    //
+
+    @NewRound
+    public void newRound() {
+        this.toGenerate = new LinkedList<CompiledTemplate>();
+        this.classNames = new HashSet<String>();
+    }
+
+    @Process(CodeTemplate.class)
+    public void processCT(Set<? extends Element> annotatedElements) {
+        for (Element annotatedElement : annotatedElements) {
+            String pkg = getElementUtils().getPackageOf(annotatedElement).getQualifiedName().toString();
+            for (String resourceName : annotatedElement.getAnnotation(CodeTemplate.class).value()) {
+                String className = toClassName(resourceName);
+                String qualifiedName = pkg.length() > 0 ? pkg + "." + className : className;
+                if (!this.classNames.add(qualifiedName)) {
+                    failCompile("Template '" + resourceName + "' gives the already generated class " + qualifiedName + "!",
+                            annotatedElement);
+                    continue;
+                }
+
+                try {
+                    Template template = Template.compile(resourceName, readTemplate(resourceName));
+                    this.toGenerate.add(new CompiledTemplate(template, pkg, className, annotatedElement));
+                }
+                catch (IOException ioe) {
+                    failCompile("Failed to read template '" + resourceName + "'! [" + ioe.getMessage() + "]", annotatedElement);
+                }
+                catch (TemplateException te) {
+                    failCompile(te.getMessage(), annotatedElement);
+                }
+            }
+        }
+    }
+
+    @GenerateSource
+    public void generate(GenerationSupport generationSupport) {
+        for (CompiledTemplate compiledTemplate : this.toGenerate) {
+            try {
+                generateTemplateClass(compiledTemplate, generationSupport);
+            }
+            catch (IOException ioe) {
+                failCompile("Failed to generate class for template '" + compiledTemplate.template.getName() + "'! [" +
+                        ioe.getMessage() + "]", compiledTemplate.element);
+            }
+        }
+    }
+
+    //
+    // Private Support Methods
+    //
+
+    /**
+     * Returns the name of the class generated for a template resource, which is the name of the resource without
+     * path and extension, in camel case, with "Template" appended.
+     *
+     * @param resourceName The name of the template resource.
+     */
+    private static String toClassName(String resourceName) {
+        String name = resourceName.substring(resourceName.lastIndexOf('/') + 1);
+        int dot = name.indexOf('.');
+        if (dot > 0) {
+            name = name.substring(0, dot);
+        }
+
+        StringBuilder className = new StringBuilder();
+        boolean upper = true;
+        for (int ix = 0; ix < name.length(); ix++) {
+            char c = name.charAt(ix);
+            if (!Character.isJavaIdentifierPart(c)) {
+                upper = true;
+            }
+            else {
+                className.append(upper ? Character.toUpperCase(c) : c);
+                upper = false;
+            }
+        }
+        if (className.length() == 0 || !Character.isJavaIdentifierStart(className.charAt(0))) {
+            className.insert(0, '_');
+        }
+
+        return className.append(CLASS_NAME_SUFFIX).toString();
+    }
+
+    /**
+     * Reads the text of a template resource.
+     *
+     * @param resourceName The name of the template resource.
+     *
+     * @throws IOException if the template is not found or can't be read.
+     */
+    private String readTemplate(String resourceName) throws IOException {
+        for (StandardLocation location : TEMPLATE_LOCATIONS) {
+            try {
+                FileObject fileObject = super.processingEnv.getFiler().getResource(location, "", resourceName);
+                return Template.readText(fileObject.openInputStream());
+            }
+            catch (IOException ioe) {
+                // Not in this location.
+            }
+            catch (IllegalArgumentException iae) {
+                // The location is not available in this compilation.
+            }
+        }
+
+        String templatePath = super.processingEnv.getOptions().get(OPTION_TEMPLATE_PATH);
+        if (templatePath != null) {
+            for (String dir : templatePath.split(File.pathSeparator)) {
+                File file = new File(dir.trim(), resourceName);
+                if (dir.trim().length() > 0 && file.isFile()) {
+                    return Template.readText(new FileInputStream(file));
+                }
+            }
+        }
+
+        throw new IOException("Template '" + resourceName + "' was not found!");
+    }
+
+    /**
+     * Generates the class for a template.
+     *
+     * @param compiledTemplate The template to generate class for.
+     * @param generationSupport The generation support to create the source with.
+     *
+     * @throws IOException on failure to write.
+     */
+    private void generateTemplateClass(CompiledTemplate compiledTemplate, GenerationSupport generationSupport) throws IOException {
+        String qualifiedName = compiledTemplate.pkg.length() > 0 ? compiledTemplate.pkg + "." + compiledTemplate.className :
+                compiledTemplate.className;
+        List<Expression> expressions = new ArrayList<Expression>();
+        collectExpressions(compiledTemplate.template.getNodes(), expressions);
+
+        JavaSourceOutputStream jos = generationSupport.getToBeCompiledJavaSourceOutputStream(qualifiedName,
+                compiledTemplate.element);
+        if (compiledTemplate.pkg.length() > 0) {
+            jos.packageLine(compiledTemplate.pkg);
+            jos.emptyLine();
+        }
+        jos.javadocComment("Renders the template '" + compiledTemplate.template.getName() + "'.",
+                "Generated by " + getClass().getName() + ".");
+        jos.begClass("public", "final", compiledTemplate.className);
+        {
+            jos.emptyLine();
+            for (int ix = 0; ix < expressions.size(); ix++) {
+                Expression expression = expressions.get(ix);
+                StringBuilder path = new StringBuilder();
+                for (String segment : expression.getPath()) {
+                    path.append(path.length() == 0 ? "" : ", ").append(javaString(segment));
+                }
+                jos.field("private static final", EXPRESSION_TYPE, "E" + ix, "new " + EXPRESSION_TYPE + "(" +
+                        javaString(expression.getText()) + ", new String[] {" + path + "}, " + EXPRESSION_TYPE + ".Kind." +
+                        expression.getKind().name() + ")");
+            }
+
+            jos.emptyLine();
+            jos.javadocComment("Only static methods.");
+            jos.begMethod("private", "", "", compiledTemplate.className);
+            jos.endMethod();
+
+            jos.emptyLine();
+            jos.javadocComment("Renders the template.",
+                    "",
+                    "@param context The variables to render with.",
+                    "@param out The stream to render to.",
+                    "",
+                    "@throws " + EXCEPTION_TYPE + " if something referenced by the template is not available.");
+            jos.begMethod("public", "static", "void", "render");
+            jos.methodArg(CONTEXT_TYPE, "context");
+            jos.methodArg(CodeGeneratorOutputStream.class.getName(), "out");
+            jos.methodException(EXCEPTION_TYPE);
+            {
+                jos.contentln("try {");
+                jos.incrementIndent();
+                {
+                    jos.contentln("StringBuilder sb = new StringBuilder();");
+                    generateNodes(compiledTemplate.template.getNodes(), "context", new int[1], expressions, jos);
+                }
+                jos.decrementIndent();
+                jos.contentln("}");
+                jos.contentln("catch (" + EXCEPTION_TYPE + " te) {");
+                jos.incrementIndent();
+                {
+                    jos.contentln("throw new " + EXCEPTION_TYPE + "(" + javaString(compiledTemplate.template.getName() + ": ") +
+                            " + te.getMessage(), te.getCause());");
+                }
+                jos.decrementIndent();
+                jos.contentln("}");
+            }
+            jos.endMethod();
+        }
+        jos.endClass();
+        jos.close();
+    }
+
+    /**
+     * Collects the expressions of template nodes in the order they are generated.
+     *
+     * @param nodes The nodes to collect expressions of.
+     * @param expressions The list to add the expressions to.
+     */
+    private static void collectExpressions(List<TemplateNode> nodes, List<Expression> expressions) {
+        for (TemplateNode node : nodes) {
+            if (node instanceof TextNode) {
+                TextNode textNode = (TextNode)node;
+                for (int ix = 0; ix < textNode.getExpressionCount(); ix++) {
+                    expressions.add(textNode.getExpression(ix));
+                }
+            }
+            else if (node instanceof ForNode) {
+                expressions.add(((ForNode)node).getItems());
+                collectExpressions(((ForNode)node).getBody(), expressions);
+            }
+            else if (node instanceof IfNode) {
+                expressions.add(((IfNode)node).getCondition());
+                collectExpressions(((IfNode)node).getThenNodes(), expressions);
+                collectExpressions(((IfNode)node).getElseNodes(), expressions);
+            }
+        }
+    }
+
+    /**
+     * Generates the code rendering template nodes.
+     *
+     * @param nodes The nodes to generate code for.
+     * @param context The name of the variable holding the template context at this level.
+     * @param scopeCount The number of scopes generated so far, used to name the loop variables.
+     * @param expressions All expressions of the template. Their index is the number of their field.
+     * @param jos The stream to write to.
+     */
+    private static void generateNodes(List<TemplateNode> nodes, String context, int[] scopeCount, List<Expression> expressions,
+                                      JavaSourceOutputStream jos) {
+        for (TemplateNode node : nodes) {
+            if (node instanceof TextNode) {
+                generateText((TextNode)node, context, expressions, jos);
+            }
+            else if (node instanceof ForNode) {
+                generateFor((ForNode)node, context, scopeCount, expressions, jos);
+            }
+            else if (node instanceof IfNode) {
+                generateIf((IfNode)node, context, scopeCount, expressions, jos);
+            }
+        }
+    }
+
+    /**
+     * Generates the code rendering a text line.
+     *
+     * @param node The node to generate code for.
+     * @param context The name of the variable holding the template context.
+     * @param expressions All expressions of the template.
+     * @param jos The stream to write to.
+     */
+    private static void generateText(TextNode node, String context, List<Expression> expressions, JavaSourceOutputStream jos) {
+        if (node.getExpressionCount() == 0) {
+            jos.contentln("out.contentln(" + javaString(node.getLiteral(0)) + ");");
+            return;
+        }
+
+        jos.contentln("sb.setLength(0);");
+        for (int ix = 0; ix < node.getExpressionCount(); ix++) {
+            if (node.getLiteral(ix).length() > 0) {
+                jos.contentln("sb.append(" + javaString(node.getLiteral(ix)) + ");");
+            }
+            jos.contentln(field(node.getExpression(ix), expressions) + ".appendTo(" + context + ", sb);");
+        }
+        if (node.getLiteral(node.getExpressionCount()).length() > 0) {
+            jos.contentln("sb.append(" + javaString(node.getLiteral(node.getExpressionCount())) + ");");
+        }
+        jos.contentln("out.contentln(sb.toString());");
+    }
+
+    /**
+     * Generates the code rendering a #for loop.
+     *
+     * @param node The node to generate code for.
+     * @param context The name of the variable holding the template context.
+     * @param scopeCount The number of scopes generated so far.
+     * @param expressions All expressions of the template.
+     * @param jos The stream to write to.
+     */
+    private static void generateFor(ForNode node, String context, int[] scopeCount, List<Expression> expressions,
+                                    JavaSourceOutputStream jos) {
+        int scopeNo = ++scopeCount[0];
+        String items = field(node.getItems(), expressions);
+        String iterator = "iterator" + scopeNo;
+        String scope = "scope" + scopeNo;
+        String index = "index" + scopeNo;
+        String variable = node.getVariable();
+
+        jos.contentln("java.util.Iterator<?> " + iterator + " = " + ForNode.class.getName() + ".iterator(" + items +
+                ".evaluate(" + context + "), " + items + ");");
+        jos.contentln(CONTEXT_TYPE + " " + scope + " = " + context + ".newScope();");
+        jos.contentln("int " + index + " = 0;");
+        jos.begWhile(iterator + ".hasNext()");
+        {
+            jos.contentln(scope + ".set(" + javaString(variable) + ", " + iterator + ".next());");
+            jos.contentln(scope + ".set(" + javaString(variable + "_index") + ", " + index + ");");
+            jos.contentln(scope + ".set(" + javaString(variable + "_first") + ", " + index + " == 0);");
+            jos.contentln(scope + ".set(" + javaString(variable + "_last") + ", !" + iterator + ".hasNext());");
+            generateNodes(node.getBody(), scope, scopeCount, expressions, jos);
+            jos.contentln("++" + index + ";");
+        }
+        jos.endWhile();
+    }
+
+    /**
+     * Generates the code rendering an #if.
+     *
+     * @param node The node to generate code for.
+     * @param context The name of the variable holding the template context.
+     * @param scopeCount The number of scopes generated so far.
+     * @param expressions All expressions of the template.
+     * @param jos The stream to write to.
+     */
+    private static void generateIf(IfNode node, String context, int[] scopeCount, List<Expression> expressions,
+                                   JavaSourceOutputStream jos) {
+        jos.begIf((node.isNegated() ? "!" : "") + IfNode.class.getName() + ".isTrue(" + field(node.getCondition(), expressions) +
+                ".evaluate(" + context + "))");
+        {
+            generateNodes(node.getThenNodes(), context, scopeCount, expressions, jos);
+        }
+        if (!node.getElseNodes().isEmpty()) {
+            jos.decrementIndent();
+            jos.contentln("}");
+            jos.contentln("else {");
+            jos.incrementIndent();
+            generateNodes(node.getElseNodes(), context, scopeCount, expressions, jos);
+        }
+        jos.endIf();
+    }
+
+    /**
+     * Returns the name of the field holding an expression.
+     *
+     * @param expression The expression to get field for.
+     * @param expressions All expressions of the template.
+     */
+    private static String field(Expression expression, List<Expression> expressions) {
+        for (int ix = 0; ix < expressions.size(); ix++) {
+            if (expressions.get(ix) == expression) {
+                return "E" + ix;
+            }
+        }
+
+        throw new IllegalStateException("'" + expression + "' is not an expression of the template!");
+    }
+
+    /**
+     * Returns a text as a Java string literal.
+     *
+     * @param text The text to quote.
+     */
+    private static String javaString(String text) {
+        StringBuilder sb = new StringBuilder(text.length() + 2);
+        sb.append('"');
+        for (int ix = 0; ix < text.length(); ix++) {
+            char c = text.charAt(ix);
+            switch (c) {
+                case '"': sb.append("\\\""); break;
+                case '\\': sb.append("\\\\"); break;
+                case '\t': sb.append("\\t"); break;
+                case '\r': sb.append("\\r"); break;
+                case '\n': sb.append("\\n"); break;
+                default:
+                    if (c < ' ' || c > '~') {
+                        sb.append(String.format("\\u%04x", (int)c));
+                    }
+                    else {
+                        sb.append(c);
+                    }
+            }
+        }
+        sb.append('"');
+
+        return sb.toString();
+    }
+
+    //
+    // Inner Classes
+    //
+
+    /**
+     * A compiled template and where to generate its class.
+     */
+    private static class CompiledTemplate {
+        //
+        // Private Members
+        //
+
+        /** The compiled template. */
+        private Template template = null;
+
+        /** The package of the class to generate. */
+        private String pkg = null;
+
+        /** The simple name of the class to generate. */
+        private String className = null;
+
+        /** The element referencing the template. */
+        private Element element = null;
+
+        //
+        // Constructors
+        //
+
+        /**
+         * Creates a new CompiledTemplate.
+         *
+         * @param template The compiled template.
+         * @param pkg The package of the class to generate.
+         * @param className The simple name of the class to generate.
+         * @param element The element referencing the template.
+         */
+        public CompiledTemplate(Template template, String pkg, String className, Element element) {
+            this.template = template;
+            this.pkg = pkg;
+            this.className = className;
+            this.element = element;
+        }
+    }
+}
@@ -0,0 +1,427 @@
+/*
+ *
+ * PROJECT
+ *     Name
+ *         SimplifiedAnnotationProcessor
+ *
+ *     Code Version
+ *         1.1
+ *
+ *     Description
+ *         An abstract annotation processor base class that simplifies the annotation
+ *         processing, but also limits it slightly. It is however good enough for most
+ *         cases and makes things a bit easier and clearer.
+ *
+ * COPYRIGHTS
+ *     Copyright (C) 2013 by Natusoft AB All rights reserved.
+ *
+ * LICENSE
+ *     Apache 2.0 (Open Source)
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ * AUTHORS
+ *     tommy ()
+ *         Changes:
+ *         2026-10-16: Created!
+ *
+ */
+package se.natusoft.annotation.processor.simplified;
+
+import java.io.IOException;
+import java.lang.annotation.Annotation;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Set;
+import javax.annotation.processing.SupportedSourceVersion;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeMirror;
+import se.natusoft.annotation.processor.simplified.annotations.AllProcessed;
+import se.natusoft.annotation.processor.simplified.annotations.GenerateDispatcher;
+import se.natusoft.annotation.processor.simplified.annotations.GenerateSource;
+import se.natusoft.annotation.processor.simplified.annotations.NewRound;
+import se.natusoft.annotation.processor.simplified.annotations.Process;
+import se.natusoft.annotation.processor.simplified.annotations.ProcessedAnnotations;
+import se.natusoft.annotation.processor.simplified.codegen.GenerationSupport;
+import se.natusoft.annotation.processor.simplified.codegen.JavaSourceOutputStream;
+import se.natusoft.annotation.processor.simplified.dispatch.CallbackHandler;
+import se.natusoft.annotation.processor.simplified.dispatch.Dispatcher;
+import se.natusoft.annotation.processor.simplified.dispatch.DispatcherFactory;
+import se.natusoft.annotation.processor.simplified.dispatch.ElementsProcessHandler;
+import se.natusoft.annotation.processor.simplified.dispatch.GenerateSourceHandler;
+import se.natusoft.annotation.processor.simplified.dispatch.ProcessHandler;
+import se.natusoft.annotation.processor.simplified.model.SAPAnnotation;
+import se.natusoft.annotation.processor.simplified.model.SAPExecutable;
+import se.natusoft.annotation.processor.simplified.model.SAPModelFactory;
+import se.natusoft.annotation.processor.simplified.model.SAPType;
+
+/**
+ * This generates a DispatcherFactory for each processor annotated with @GenerateDispatcher. The generated dispatcher
+ * calls the processing methods directly, so SimplifiedAnnotationProcessor does not have to find them by reflection when
+ * the processor is used. Processing methods with invalid signatures are reported as compilation errors.
+ */
+@ProcessedAnnotations({GenerateDispatcher.class})
+@SupportedSourceVersion(SourceVersion.RELEASE_8)
+public class GenerateDispatcherProcessor extends SimplifiedAnnotationProcessor {
+    //
+    // Constants
+    //
+
+    private static final String SET_TYPE = Set.class.getName();
+    private static final String ELEMENT_SET_TYPE = "java.util.Set<? extends javax.lang.model.element.Element>";
+    private static final String TYPE_ELEMENT_TYPE = TypeElement.class.getName();
+    private static final String GENERATION_SUPPORT_TYPE = GenerationSupport.class.getName();
+
+    //
+    // Private Members
+    //
+
+    /** The processors to generate dispatchers for. */
+    private List<ProcessorHandlers> toGenerate = null;
+
+    //
+    // Processing Methods
+    //
+
+    @NewRound
+    public void newRound() {
+        this.toGenerate = new LinkedList<ProcessorHandlers>();
+    }
+
+    @Process(GenerateDispatcher.class)
+    public void processGD(Set<? extends Element> annotatedElements) {
+        for (Element annotatedElement : annotatedElements) {
+            if (annotatedElement.getKind() != ElementKind.CLASS) {
+                failCompile("@GenerateDispatcher can only be used on processor classes!", annotatedElement);
+                continue;
+            }
+
+            ProcessorHandlers processorHandlers = new ProcessorHandlers(SAPModelFactory.getType(annotatedElement));
+            boolean valid = true;
+            for (SAPExecutable method : processorHandlers.processor.getMethods()) {
+                valid &= resolveHandlers(method, processorHandlers);
+            }
+            if (valid) {
+                this.toGenerate.add(processorHandlers);
+            }
+        }
+    }
+
+    @GenerateSource
+    public void generate(GenerationSupport generationSupport) {
+        for (ProcessorHandlers processorHandlers : this.toGenerate) {
+            try {
+                generateDispatcher(processorHandlers, generationSupport);
+            }
+            catch (IOException ioe) {
+                failCompile("Failed to generate dispatcher for " + processorHandlers.processor.getQualifiedName() + "! [" +
+                        ioe.getMessage() + "]", processorHandlers.processor.getTypeElement());
+            }
+        }
+    }
+
+    //
+    // Private Support Methods
+    //
+
+    /**
+     * Validates a method of the processor and adds it as a handler if it has a processing annotation.
+     * Returns false if it has a processing annotation but an invalid signature.
+     *
+     * @param method The method to check.
+     * @param processorHandlers The handlers of the processor to add to.
+     */
+    private boolean resolveHandlers(SAPExecutable method, ProcessorHandlers processorHandlers) {
+        List<? extends VariableElement> params = method.getExecutable().getParameters();
+        boolean valid = true;
+        boolean handler = false;
+
+        SAPAnnotation processAnn = method.getAnnotationByClass(Process.class);
+        if (processAnn != null) {
+            handler = true;
+            TypeMirror annotationType = (TypeMirror)processAnn.getValueFor("value").toObject();
+            String annotation = ((TypeElement)((DeclaredType)annotationType).asElement()).getQualifiedName().toString();
+
+            if (params.size() == 1 && isParameter(params.get(0), SET_TYPE)) {
+                processorHandlers.add(HandlerKind.PROCESS_ELEMENTS, method, annotation);
+            }
+            else if (params.size() == 2 && isParameter(params.get(0), TYPE_ELEMENT_TYPE) && isParameter(params.get(1), SET_TYPE)) {
+                processorHandlers.add(HandlerKind.PROCESS, method, annotation);
+            }
+            else {
+                failCompile("@Process annotated method must take either (TypeElement, Set<? extends Element>) or " +
+                        "(Set<? extends Element>)!", method.getExecutable());
+                valid = false;
+            }
+        }
+
+        if (method.getAnnotationByClass(GenerateSource.class) != null) {
+            handler = true;
+            if (params.isEmpty()) {
+                processorHandlers.add(HandlerKind.GENERATE_SOURCE_NO_ARGS, method, null);
+            }
+            else if (params.size() == 1 && getTypeUtils().isSameType(getTypeUtils().erasure(params.get(0).asType()),
+                    getElementUtils().getTypeElement(GENERATION_SUPPORT_TYPE).asType())) {
+                processorHandlers.add(HandlerKind.GENERATE_SOURCE, method, null);
+            }
+            else {
+                failCompile("@GenerateSource annotated method should take 1 or 0 parameters: GenerationSupport or " +
+                        "no parameter!", method.getExecutable());
+                valid = false;
+            }
+        }
+
+        handler |= method.getAnnotationByClass(NewRound.class) != null || method.getAnnotationByClass(AllProcessed.class) != null;
+        valid &= resolveNoArgsHandler(method, NewRound.class, HandlerKind.NEW_ROUND, processorHandlers);
+        valid &= resolveNoArgsHandler(method, AllProcessed.class, HandlerKind.ALL_PROCESSED, processorHandlers);
+
+        if (handler && method.getExecutable().getModifiers().contains(Modifier.PRIVATE)) {
+            failCompile("Processing methods can not be private!", method.getExecutable());
+            valid = false;
+        }
+
+        return valid;
+    }
+
+    /**
+     * Validates and adds a handler for a processing annotation whose method takes no arguments.
+     *
+     * @param method The method to check.
+     * @param annotationClass The processing annotation.
+     * @param kind The kind of handler to add.
+     * @param processorHandlers The handlers of the processor to add to.
+     */
+    private boolean resolveNoArgsHandler(SAPExecutable method, Class<? extends Annotation> annotationClass,
+                                         HandlerKind kind, ProcessorHandlers processorHandlers) {
+        if (method.getAnnotationByClass(annotationClass) != null) {
+            if (!method.getExecutable().getParameters().isEmpty()) {
+                failCompile("@" + annotationClass.getSimpleName() + " annotated method should not take any parameters!",
+                        method.getExecutable());
+                return false;
+            }
+            processorHandlers.add(kind, method, null);
+        }
+
+        return true;
+    }
+
+    /**
+     * Returns true if the value of the specified type can be passed to the parameter.
+     *
+     * @param param The parameter to check.
+     * @param typeName The qualified name of the type to pass.
+     */
+    private boolean isParameter(VariableElement param, String typeName) {
+        TypeMirror type = getTypeUtils().erasure(getElementUtils().getTypeElement(typeName).asType());
+        return getTypeUtils().isAssignable(type, getTypeUtils().erasure(param.asType()));
+    }
+
+    /**
+     * Generates the dispatcher for one processor.
+     *
+     * @param processorHandlers The handlers of the processor.
+     * @param generationSupport Used to create the source file.
+     *
+     * @throws IOException on failure to write.
+     */
+    private void generateDispatcher(ProcessorHandlers processorHandlers, GenerationSupport generationSupport) throws IOException {
+        TypeElement processorType = processorHandlers.processor.getTypeElement();
+        String binaryName = getElementUtils().getBinaryName(processorType).toString();
+        String pkg = getElementUtils().getPackageOf(processorType).getQualifiedName().toString();
+        String className = binaryName.substring(pkg.length() > 0 ? pkg.length() + 1 : 0) + DispatcherFactory.CLASS_NAME_SUFFIX;
+        String processorName = processorHandlers.processor.getQualifiedName();
+
+        JavaSourceOutputStream jos = generationSupport.getToBeCompiledJavaSourceOutputStream(binaryName +
+                DispatcherFactory.CLASS_NAME_SUFFIX, processorType);
+        if (pkg.length() > 0) {
+            jos.packageLine(pkg);
+            jos.emptyLine();
+        }
+        jos.javadocComment("Calls the processing methods of " + processorName + " directly.",
+                "Generated by " + getClass().getName() + ".");
+        jos.begClass("public", "final", className);
+        jos.implementsInterface(DispatcherFactory.class.getName());
+        {
+            jos.emptyLine();
+            jos.indent();
+            jos.annotation("SuppressWarnings", "value=\"unchecked\"");
+            jos.begMethod("public", "", Dispatcher.class.getName(), "createDispatcher");
+            jos.methodArg("Object", "processor");
+            {
+                jos.contentln("final " + processorName + " p = (" + processorName + ")processor;");
+                jos.contentln(Dispatcher.class.getName() + " dispatcher = new " + Dispatcher.class.getName() + "();");
+
+                for (Handler handler : processorHandlers.handlers) {
+                    jos.emptyLine();
+                    generateHandler(handler, jos);
+                }
+
+                jos.emptyLine();
+                jos.contentln("return dispatcher;");
+            }
+            jos.endMethod();
+        }
+        jos.endClass();
+        jos.close();
+    }
+
+    /**
+     * Generates the binding of one handler.
+     *
+     * @param handler The handler to bind.
+     * @param jos The stream to write to.
+     */
+    private void generateHandler(Handler handler, JavaSourceOutputStream jos) {
+        switch (handler.kind) {
+            case PROCESS:
+                jos.contentln("dispatcher.addProcessHandler(\"" + handler.annotation + "\", new " + ProcessHandler.class.getName() + "() {");
+                generateHandlerMethod(jos, "process(" + TYPE_ELEMENT_TYPE + " annotation, " + ELEMENT_SET_TYPE + " annotatedElements)",
+                        "p." + handler.methodName + "(annotation, (" + SET_TYPE + ")annotatedElements);");
+                break;
+
+            case PROCESS_ELEMENTS:
+                jos.contentln("dispatcher.addProcessHandler(\"" + handler.annotation + "\", new " + ElementsProcessHandler.class.getName() + "() {");
+                generateHandlerMethod(jos, "process(" + ELEMENT_SET_TYPE + " annotatedElements)",
+                        "p." + handler.methodName + "((" + SET_TYPE + ")annotatedElements);");
+                break;
+
+            case NEW_ROUND:
+                jos.contentln("dispatcher.setNewRoundHandler(new " + CallbackHandler.class.getName() + "() {");
+                generateHandlerMethod(jos, "call()", "p." + handler.methodName + "();");
+                break;
+
+            case GENERATE_SOURCE:
+                jos.contentln("dispatcher.addGenerateSourceHandler(new " + GenerateSourceHandler.class.getName() + "() {");
+                generateHandlerMethod(jos, "generate(" + GENERATION_SUPPORT_TYPE + " generationSupport)",
+                        "p." + handler.methodName + "(generationSupport);");
+                break;
+
+            case GENERATE_SOURCE_NO_ARGS:
+                jos.contentln("dispatcher.addGenerateSourceHandler(new " + CallbackHandler.class.getName() + "() {");
+                generateHandlerMethod(jos, "call()", "p." + handler.methodName + "();");
+                break;
+
+            case ALL_PROCESSED:
+                jos.contentln("dispatcher.addAllProcessedHandler(new " + CallbackHandler.class.getName() + "() {");
+                generateHandlerMethod(jos, "call()", "p." + handler.methodName + "();");
+                break;
+        }
+        jos.contentln("});");
+    }
+
+    /**
+     * Generates the implementation of a handler interface method.
+     *
+     * @param jos The stream to write to.
+     * @param declaration The method name and parameters.
+     * @param call The call to the processing method.
+     */
+    private void generateHandlerMethod(JavaSourceOutputStream jos, String declaration, String call) {
+        jos.incrementIndent();
+        jos.contentln("public void " + declaration + " throws Exception {");
+        jos.incrementIndent();
+        jos.contentln(call);
+        jos.decrementIndent();
+        jos.contentln("}");
+        jos.decrementIndent();
+    }
+
+    //
+    // Inner Classes
+    //
+
+    /**
+     * The kinds of handlers.
+     */
+    private enum HandlerKind {
+        PROCESS,
+        PROCESS_ELEMENTS,
+        NEW_ROUND,
+        GENERATE_SOURCE,
+        GENERATE_SOURCE_NO_ARGS,
+        ALL_PROCESSED
+    }
+
+    /**
+     * One processing method to call.
+     */
+    private static class Handler {
+        /** The kind of handler. */
+        private HandlerKind kind = null;
+
+        /** The name of the processing method. */
+        private String methodName = null;
+
+        /** The qualified name of the processed annotation for @Process handlers. */
+        private String annotation = null;
+
+        /**
+         * Creates a new Handler.
+         *
+         * @param kind The kind of handler.
+         * @param methodName The name of the processing method.
+         * @param annotation The qualified name of the processed annotation for @Process handlers.
+         */
+        public Handler(HandlerKind kind, String methodName, String annotation) {
+            this.kind = kind;
+            this.methodName = methodName;
+            this.annotation = annotation;
+        }
+    }
+
+    /**
+     * The handlers of one processor.
+     */
+    private static class ProcessorHandlers {
+        /** The processor. */
+        private SAPType processor = null;
+
+        /** The handlers in declaration order. */
+        private List<Handler> handlers = new LinkedList<Handler>();
+
+        /** True when a @NewRound handler have been added. Only the first is used. */
+        private boolean hasNewRound = false;
+
+        /**
+         * Creates a new ProcessorHandlers.
+         *
+         * @param processor The processor.
+         */
+        public ProcessorHandlers(SAPType processor) {
+            this.processor = processor;
+        }
+
+        /**
+         * Adds a handler.
+         *
+         * @param kind The kind of handler.
+         * @param method The processing method.
+         * @param annotation The qualified name of the processed annotation for @Process handlers.
+         */
+        public void add(HandlerKind kind, SAPExecutable method, String annotation) {
+            if (kind == HandlerKind.NEW_ROUND) {
+                if (this.hasNewRound) {
+                    return;
+                }
+                this.hasNewRound = true;
+            }
+            this.handlers.add(new Handler(kind, method.getSimpleName(), annotation));
+        }
+    }
+}
@@ -0,0 +1,62 @@
+/*
+ *
+ * PROJECT
+ *     Name
+ *         SimplifiedAnnotationProcessor
+ *
+ *     Code Version
+ *         1.1
+ *
+ *     Description
+ *         An abstract annotation processor base class that simplifies the annotation
+ *         processing, but also limits it slightly. It is however good enough for most
+ *         cases and makes things a bit easier and clearer.
+ *
+ * COPYRIGHTS
+ *     Copyright (C) 2013 by Natusoft AB All rights reserved.
+ *
+ * LICENSE
+ *     Apache 2.0 (Open Source)
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ * AUTHORS
+ *     tommy ()
+ *         Changes:
+ *         2026-10-16: Created!
+ *
+ */
+package se.natusoft.annotation.processor.simplified;
+
+/**
+ * A task run on a worker thread by SimplifiedAnnotationProcessor.runInParallel(...), once for each input.
+ * The input should be values extracted from the model, not Elements, Types or SAP model wrappers, since those
+ * can only be used on the processing thread. Any model calls needed are made through the bridge.
+ *
+ * @param <I> The input type.
+ * @param <R> The result type.
+ */
+public interface ParallelTask<I, R> {
+
+    /**
+     * Runs the task for one input.
+     *
+     * @param input The input to run for.
+     * @param bridge Runs model calls on the processing thread.
+     *
+     * @return The result for the input.
+     *
+     * @throws Exception Any failure.
+     */
+    R run(I input, ProcessingThreadBridge bridge) throws Exception;
+}
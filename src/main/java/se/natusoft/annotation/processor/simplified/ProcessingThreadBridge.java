@@ -0,0 +1,212 @@
+/*
+ *
+ * PROJECT
+ *     Name
+ *         SimplifiedAnnotationProcessor
+ *
+ *     Code Version
+ *         1.1
+ *
+ *     Description
+ *         An abstract annotation processor base class that simplifies the annotation
+ *         processing, but also limits it slightly. It is however good enough for most
+ *         cases and makes things a bit easier and clearer.
+ *
+ * COPYRIGHTS
+ *     Copyright (C) 2013 by Natusoft AB All rights reserved.
+ *
+ * LICENSE
+ *     Apache 2.0 (Open Source)
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ * AUTHORS
+ *     tommy ()
+ *         Changes:
+ *         2026-10-16: Created!
+ *
+ */
+package se.natusoft.annotation.processor.simplified;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * Runs tasks on worker threads while keeping all use of the javac model on the processing thread. The javac
+ * model, Elements and Types are not thread safe, and the SAP model wrappers only allow being used on the
+ * processing thread.
+ * <p>
+ * runInParallel(...) runs a ParallelTask for each input on the executor and meanwhile serves the model calls the
+ * tasks make through call(...) on the processing thread, one at a time, in the order they are made. It returns
+ * when all tasks are done.
+ */
+public class ProcessingThreadBridge {
+    //
+    // Constants
+    //
+
+    /** Put on the queue by a finished task. */
+    private static final Runnable TASK_DONE = new Runnable() {
+        @Override
+        public void run() {}
+    };
+
+    //
+    // Private Members
+    //
+
+    /** The thread owning the model. */
+    private Thread processingThread = null;
+
+    /** The executor to run tasks on. */
+    private Executor executor = null;
+
+    /** The model calls to run on the processing thread, and TASK_DONE for each finished task. */
+    private BlockingQueue<Runnable> queue = new LinkedBlockingQueue<Runnable>();
+
+    //
+    // Constructors
+    //
+
+    /**
+     * Creates a new ProcessingThreadBridge. This must be created on the processing thread.
+     *
+     * @param executor The executor to run tasks on, or null for ForkJoinPool.commonPool().
+     */
+    public ProcessingThreadBridge(Executor executor) {
+        this.processingThread = Thread.currentThread();
+        this.executor = executor != null ? executor : ForkJoinPool.commonPool();
+    }
+
+    //
+    // Methods
+    //
+
+    /**
+     * Returns true if the current thread is the processing thread.
+     */
+    public boolean isProcessingThread() {
+        return Thread.currentThread() == this.processingThread;
+    }
+
+    /**
+     * Runs a task for each input on the executor, serving their model calls on this thread until all are done.
+     *
+     * @param inputs The inputs to run the task for.
+     * @param task The task to run.
+     * @param <I> The input type.
+     * @param <R> The result type.
+     *
+     * @return The results in the same order as the inputs.
+     *
+     * @throws IllegalStateException if not called on the processing thread.
+     * @throws Exception The failure of the first failing input, after all tasks are done.
+     */
+    public <I, R> List<R> runInParallel(Collection<? extends I> inputs, final ParallelTask<I, R> task) throws Exception {
+        if (!isProcessingThread()) {
+            throw new IllegalStateException("runInParallel(...) can only be called on the processing thread!");
+        }
+
+        List<FutureTask<R>> runs = new ArrayList<FutureTask<R>>(inputs.size());
+        for (final I input : inputs) {
+            final FutureTask<R> run = new FutureTask<R>(new Callable<R>() {
+                @Override
+                public R call() throws Exception {
+                    return task.run(input, ProcessingThreadBridge.this);
+                }
+            });
+            runs.add(run);
+            this.executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        run.run();
+                    }
+                    finally {
+                        queue.add(TASK_DONE);
+                    }
+                }
+            });
+        }
+
+        int running = runs.size();
+        while (running > 0) {
+            Runnable next = this.queue.take();
+            if (next == TASK_DONE) {
+                --running;
+            }
+            else {
+                next.run();
+            }
+        }
+
+        List<R> results = new ArrayList<R>(runs.size());
+        for (FutureTask<R> run : runs) {
+            try {
+                results.add(run.get());
+            }
+            catch (ExecutionException ee) {
+                throw unwrap(ee);
+            }
+        }
+
+        return results;
+    }
+
+    /**
+     * Makes a model call on the processing thread and returns its result. Called on the processing thread the call
+     * is made directly. Called by a task it waits for the processing thread to make the call.
+     *
+     * @param modelCall The model call to make. This should return values extracted from the model rather than
+     *                  model objects, since those can only be used on the processing thread.
+     * @param <T> The result type.
+     *
+     * @throws Exception Any failure of the call.
+     */
+    public <T> T call(Callable<T> modelCall) throws Exception {
+        if (isProcessingThread()) {
+            return modelCall.call();
+        }
+
+        FutureTask<T> queued = new FutureTask<T>(modelCall);
+        this.queue.add(queued);
+        try {
+            return queued.get();
+        }
+        catch (ExecutionException ee) {
+            throw unwrap(ee);
+        }
+    }
+
+    /**
+     * Returns the failure of a task or model call as an Exception, rethrowing errors.
+     *
+     * @param ee The ExecutionException to unwrap.
+     */
+    private static Exception unwrap(ExecutionException ee) {
+        Throwable cause = ee.getCause();
+        if (cause instanceof Error) {
+            throw (Error)cause;
+        }
+
+        return cause instanceof Exception ? (Exception)cause : ee;
+    }
+}
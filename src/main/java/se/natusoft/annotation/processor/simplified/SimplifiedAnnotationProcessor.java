@@ -39,27 +39,50 @@
 package se.natusoft.annotation.processor.simplified;
 
 import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
 import java.io.PrintStream;
+import java.lang.invoke.MethodHandles;
 import se.natusoft.annotation.processor.simplified.codegen.GenerationSupport;
-import java.lang.reflect.Method;
-import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
 import javax.annotation.processing.AbstractProcessor;
 import javax.annotation.processing.Messager;
+import javax.annotation.processing.ProcessingEnvironment;
 import javax.annotation.processing.RoundEnvironment;
 import javax.lang.model.element.Element;
-import javax.lang.model.element.Name;
 import javax.lang.model.element.TypeElement;
 import javax.lang.model.util.Elements;
 import javax.lang.model.util.Types;
 import javax.tools.Diagnostic.Kind;
-import se.natusoft.annotation.processor.simplified.annotations.AllProcessed;
-import se.natusoft.annotation.processor.simplified.annotations.GenerateSource;
-import se.natusoft.annotation.processor.simplified.annotations.NewRound;
-import se.natusoft.annotation.processor.simplified.annotations.Process;
 import se.natusoft.annotation.processor.simplified.annotations.ProcessedAnnotations;
+import se.natusoft.annotation.processor.simplified.codegen.RenderFailureReporter;
+import se.natusoft.annotation.processor.simplified.dispatch.CallbackHandler;
+import se.natusoft.annotation.processor.simplified.dispatch.DispatchTable;
+import se.natusoft.annotation.processor.simplified.dispatch.Dispatcher;
+import se.natusoft.annotation.processor.simplified.dispatch.DispatcherFactory;
+import se.natusoft.annotation.processor.simplified.dispatch.GenerateSourceHandler;
+import se.natusoft.annotation.processor.simplified.dispatch.HandlerBinder;
+import se.natusoft.annotation.processor.simplified.dispatch.HandlerSignatureException;
+import se.natusoft.annotation.processor.simplified.dispatch.ProcessHandler;
+import se.natusoft.annotation.processor.simplified.log.BufferedLogSink;
+import se.natusoft.annotation.processor.simplified.log.LogLevel;
+import se.natusoft.annotation.processor.simplified.log.Logger;
+import se.natusoft.annotation.processor.simplified.model.SAPBaseElement;
+import se.natusoft.annotation.processor.simplified.monitor.ChromeTrace;
+import se.natusoft.annotation.processor.simplified.monitor.FlightRecorderSupport;
+import se.natusoft.annotation.processor.simplified.monitor.HandlerKind;
+import se.natusoft.annotation.processor.simplified.monitor.ModelQueryProfiler;
+import se.natusoft.annotation.processor.simplified.monitor.ProcessingMetrics;
+import se.natusoft.annotation.processor.simplified.monitor.ProcessingObserver;
+import se.natusoft.annotation.processor.simplified.monitor.ProcessingObservers;
+import se.natusoft.annotation.processor.simplified.monitor.TracingObserver;
 import se.natusoft.annotation.processor.simplified.model.SAPType;
 
 /**
@@ -125,6 +148,28 @@ import se.natusoft.annotation.processor.simplified.model.SAPType;
  * Please note that the @GenerateSource method can either take no arguments or an GenerationSupport instance. If it takes no arguments
  * the GenerationSupport object can be gotten with getGenerationSupport().
  * <p>
+ * A @GenerateSource method generating many sources can render them in parallel with generationSupport.submitRender(...).
+ * The renders are run on the executor given by the sap.renderExecutor option, and the sources are written on the processing
+ * thread, in submit order, at the end of the round. This is also done for renders submitted by @Process and @AllProcessed
+ * methods. Failed renders become compilation failures on the element of the render.
+ * <p>
+ * CPU heavy analysis can be run in parallel on the same executor with runInParallel(...). The tasks get values extracted
+ * from the model as input, and make any model calls they need through the ProcessingThreadBridge they are given, which
+ * makes the calls on the processing thread. The javac model is not thread safe, and the SAP model wrappers throw
+ * IllegalStateException if used on another thread.
+ * <p>
+ * With the sap.metrics option the wall time, CPU time and allocated bytes of each round and processing method, and the
+ * files written through GenerationSupport, are recorded and written as a JSON report when processing is over. Other
+ * ProcessingObservers can be added with addProcessingObserver(...). When run with a Java Flight Recorder recording the
+ * same is emitted as JFR events, see the sap.jfr option. With the sap.trace option a timeline of the rounds, processing
+ * methods and written files of all processors is written in the Chrome Trace Event format. Processing methods can add
+ * the processing of each element to the timeline by calling beginElement(...) and endElement(...). With the
+ * sap.modelProfile option the calls made to Elements and Types are counted and timed per processing method.
+ * <p>
+ * Log with getLogger(). The log messages of a round are buffered and written together when the round is done, to
+ * stdout or, with the sap.logMessager option, as a compiler note. The level is INFO for processors created as verbose
+ * and otherwise WARN, and can be set with the sap.logLevel option.
+ * <p>
  * Use the failCompile(...) method of this base class to cause a compilation failure. failCompile() and all the print*() methods simply passes
  * information to the compiler which will deal with them later.
  * <p>
@@ -140,6 +185,93 @@ import se.natusoft.annotation.processor.simplified.model.SAPType;
  * These wrappers of javax.lang.model.element.* models makes it a little bit easier extracting information.
  */
 public abstract class SimplifiedAnnotationProcessor extends AbstractProcessor implements Verbose {
+    //
+    // Constants
+    //
+
+    /**
+     * Processor option (-Asap.invocation=...) specifying how processing methods are invoked. Valid values are
+     * "reflection" (default) and "direct". With "direct" the processing methods are bound to generated
+     * implementations of handler interfaces calling them directly. Unless getHandlerLookup() is overridden this
+     * requires the processor class and the processing methods to be public and the processor to be loaded by the
+     * same class loader as this library. Methods that cannot be bound directly are invoked by reflection and logged
+     * as warnings.
+     */
+    public static final String OPTION_INVOCATION = "sap.invocation";
+
+    /** Value of OPTION_INVOCATION for invocation through reflection. */
+    public static final String INVOCATION_REFLECTION = "reflection";
+
+    /** Value of OPTION_INVOCATION for direct invocation. */
+    public static final String INVOCATION_DIRECT = "direct";
+
+    /**
+     * Processor option (-Asap.elementIndex=...) specifying how the AnnotatedElementIndex of each round is built.
+     * Valid values are "lookup" (default), "scan" and "any". See AnnotatedElementIndex.Strategy.
+     */
+    public static final String OPTION_ELEMENT_INDEX = "sap.elementIndex";
+
+    /**
+     * Processor option (-Asap.renderExecutor=...) specifying where renders submitted with
+     * GenerationSupport.submitRender(...) and tasks run with runInParallel(...) are run. Valid values are "common" (default) for ForkJoinPool.commonPool(),
+     * "virtual" for a virtual thread per render (Java 21+, otherwise "common"), "caller" for rendering directly on
+     * the processing thread, or a number of threads for a ForkJoinPool of its own. An executor of its own is shut down
+     * when processing is over.
+     */
+    public static final String OPTION_RENDER_EXECUTOR = "sap.renderExecutor";
+
+    /**
+     * Processor option (-Asap.metrics=...) enabling processing metrics. The value is the directory to write the
+     * report to, &lt;processor class name&gt;.metrics.json, or an empty value for the current directory.
+     */
+    public static final String OPTION_METRICS = "sap.metrics";
+
+    /**
+     * Processor option (-Asap.jfr=...) specifying if Java Flight Recorder events are emitted for rounds, processing
+     * methods and written files. Valid values are "true", "false", and "auto" (default) which emits events if a
+     * recording has been started when the processor is initialized. Events are never emitted on runtimes without JFR.
+     */
+    public static final String OPTION_JFR = "sap.jfr";
+
+    /**
+     * Processor option (-Asap.trace=...) enabling a timeline trace. The value is the directory to write the trace to,
+     * sap.trace.json, or an empty value for the current directory. All processors of the compilation write to the
+     * same trace, each on a lane of its own. The trace can be viewed in chrome://tracing or https://ui.perfetto.dev.
+     */
+    public static final String OPTION_TRACE = "sap.trace";
+
+    /**
+     * Processor option (-Asap.traceElements=true) adding the element spans of beginElement(...) and endElement(...)
+     * to the trace.
+     */
+    public static final String OPTION_TRACE_ELEMENTS = "sap.traceElements";
+
+    /**
+     * Processor option (-Asap.modelProfile=...) enabling the counting and timing of the calls made to the Elements and
+     * Types handed out by this class. The value is the directory to write the report to,
+     * &lt;processor class name&gt;.model-profile.txt, or an empty value for the current directory.
+     */
+    public static final String OPTION_MODEL_PROFILE = "sap.modelProfile";
+
+    /**
+     * Processor option (-Asap.modelProfileCallers=true) also recording the calling method of each Elements and Types
+     * call in the model profile. This costs a stack walk per call.
+     */
+    public static final String OPTION_MODEL_PROFILE_CALLERS = "sap.modelProfileCallers";
+
+    /**
+     * Processor option (-Asap.logLevel=...) specifying the least severe level logged by getLogger(). Valid values
+     * are "debug", "info", "warn", "error" and "off". The default is "info" for processors created as verbose and
+     * otherwise "warn".
+     */
+    public static final String OPTION_LOG_LEVEL = "sap.logLevel";
+
+    /**
+     * Processor option (-Asap.logMessager=true) writing the log messages of each round as a compiler note instead of
+     * to stdout.
+     */
+    public static final String OPTION_LOG_MESSAGER = "sap.logMessager";
+
     //
     // Private Members
     //
@@ -159,9 +291,53 @@ public abstract class SimplifiedAnnotationProcessor extends AbstractProcessor im
     /** If true some verbose information about processing is displayed. */
     private boolean verbose = false;
 
+    /** The logger, created in init(). */
+    private Logger logger = Logger.OFF;
+
     /** Will be set to false in first call! */
     private boolean firstCall = true;
 
+    /** The processing methods of this processor, resolved and bound once in init(). */
+    private Dispatcher dispatcher = null;
+
+    /** How the element index of each round is built. */
+    private AnnotatedElementIndex.Strategy elementIndexStrategy = AnnotatedElementIndex.Strategy.LOOKUP;
+
+    /** The elements annotated with the processed annotations of the current round. */
+    private AnnotatedElementIndex annotatedElementIndex = null;
+
+    /** The executor to run submitted renders on, or null for ForkJoinPool.commonPool(). */
+    private Executor renderExecutor = null;
+
+    /** Reports failed renders as compilation failures. */
+    private RenderFailureReporter renderFailureReporter = new RenderFailureReporter() {
+        @Override
+        public void renderFailed(String qualifiedName, Element element, Throwable failure) {
+            failCompile("Failed to render " + qualifiedName + "! [" + failure.getMessage() + "]", element, failure);
+        }
+    };
+
+    /** Receives the processing events or null if there are no observers. */
+    private ProcessingObserver observer = null;
+
+    /** The metrics enabled by the sap.metrics option or null. */
+    private ProcessingMetrics metrics = null;
+
+    /** The file to write the metrics report to. */
+    private File metricsFile = null;
+
+    /** The profiler of Elements and Types calls enabled by the sap.modelProfile option or null. */
+    private ModelQueryProfiler modelProfiler = null;
+
+    /** The file to write the model profile to. */
+    private File modelProfileFile = null;
+
+    /** The trace enabled by the sap.trace option or null. */
+    private ChromeTrace trace = null;
+
+    /** The number of the current round. */
+    private int round = 0;
+
     //
     // Constructors
     //
@@ -207,7 +383,7 @@ public abstract class SimplifiedAnnotationProcessor extends AbstractProcessor im
         ProcessedAnnotations processedAnnotations = getClass().getAnnotation(ProcessedAnnotations.class);
         if (processedAnnotations != null) {
             for (Class annotationClass : processedAnnotations.value()) {
-                supportedAnnotations.add(annotationClass.getName());
+                supportedAnnotations.add(DispatchTable.qualifiedName(annotationClass));
             }
         }
         else {
@@ -217,6 +393,40 @@ public abstract class SimplifiedAnnotationProcessor extends AbstractProcessor im
         return supportedAnnotations;
     }
 
+    /**
+     * Adds the options supported by this base class to the options supported by the subclass.
+     */
+    @Override
+    public Set<String> getSupportedOptions() {
+        Set<String> supportedOptions = new HashSet<String>(super.getSupportedOptions());
+        supportedOptions.add(OPTION_INVOCATION);
+        supportedOptions.add(OPTION_ELEMENT_INDEX);
+        supportedOptions.add(OPTION_RENDER_EXECUTOR);
+        supportedOptions.add(OPTION_METRICS);
+        supportedOptions.add(OPTION_JFR);
+        supportedOptions.add(OPTION_TRACE);
+        supportedOptions.add(OPTION_TRACE_ELEMENTS);
+        supportedOptions.add(OPTION_MODEL_PROFILE);
+        supportedOptions.add(OPTION_MODEL_PROFILE_CALLERS);
+        supportedOptions.add(OPTION_LOG_LEVEL);
+        supportedOptions.add(OPTION_LOG_MESSAGER);
+
+        return supportedOptions;
+    }
+
+    /**
+     * Adds an observer of the processing, which is told when each round and processing method starts and ends, and
+     * about each file written through GenerationSupport. The observers are called on the processing thread.
+     *
+     * @param observer The observer to add.
+     */
+    protected void addProcessingObserver(ProcessingObserver observer) {
+        this.observer = ProcessingObservers.add(this.observer, observer);
+        if (this.generationSupport != null) {
+            this.generationSupport.setProcessingObserver(this.observer);
+        }
+    }
+
     /**
      * Returns the element utils.
      */
@@ -231,6 +441,14 @@ public abstract class SimplifiedAnnotationProcessor extends AbstractProcessor im
         return this.typeUtils;
     }
 
+    /**
+     * Returns the elements annotated with the processed annotations of the current round. The sets passed to the
+     * @Process methods come from this index, which can also be used to look up elements by kind or enclosing type.
+     */
+    protected AnnotatedElementIndex getAnnotatedElementIndex() {
+        return this.annotatedElementIndex;
+    }
+
     /**
      * This shoud be used to generate code. If your @GenerateSource annotated method
      * takes a GenerationSupport instance a call to this method is unnecesarry.
@@ -241,25 +459,37 @@ public abstract class SimplifiedAnnotationProcessor extends AbstractProcessor im
     }
 
     /**
-     * Prints the text to stdout if verbose is true.
+     * Returns the logger. Its messages are written when the current round is done.
+     */
+    protected Logger getLogger() {
+        return this.logger;
+    }
+
+    /**
+     * Returns a lookup of the processor class used to bind processing methods for sap.invocation=direct, or null
+     * (default). Override with "return MethodHandles.lookup();" when the processor is loaded by another class loader
+     * than this library or has processing methods that are not public.
+     */
+    protected MethodHandles.Lookup getHandlerLookup() {
+        return null;
+    }
+
+    /**
+     * Logs the text, indented, at INFO level. Prefer getLogger(), which avoids building the text when not logged.
      *
-     * @param text The text to print.
+     * @param text The text to log.
      */
     public void verbose(String text) {
-        if (this.verbose) {
-            System.out.println("[INFO]     " + text);
-        }
+        this.logger.info("    {}", text);
     }
 
     /**
-     * Prints the text to stdout if verbose is true.
+     * Logs the text at INFO level. Prefer getLogger(), which avoids building the text when not logged.
      *
-     * @param text The text to print.
+     * @param text The text to log.
      */
     public void verboseHeading(String text) {
-        if (this.verbose) {
-            System.out.println("[INFO] " + text);
-        }
+        this.logger.info(text);
     }
 
     /**
@@ -344,6 +574,46 @@ public abstract class SimplifiedAnnotationProcessor extends AbstractProcessor im
         failCompile(message, (Exception)null);
     }
 
+    /**
+     * Runs a task for each input on worker threads, and returns the results in input order when all are done. The
+     * tasks must not use the javac or SAP model directly, but can make model calls through the bridge they are
+     * given, which makes them on the processing thread. The executor is given by the sap.renderExecutor option.
+     *
+     * @param inputs The inputs, which should be values extracted from the model.
+     * @param task The task to run for each input.
+     * @param <I> The input type.
+     * @param <R> The result type.
+     *
+     * @throws Exception The failure of the first failing input, after all tasks are done.
+     */
+    protected <I, R> List<R> runInParallel(Collection<? extends I> inputs, ParallelTask<I, R> task) throws Exception {
+        return new ProcessingThreadBridge(this.renderExecutor).runInParallel(inputs, task);
+    }
+
+    /**
+     * Tells the processing observers that the processing of an element starts. Call endElement(...) when done with
+     * it. With the sap.trace and sap.traceElements options this adds the processing of the element to the trace.
+     * This does nothing when there are no observers.
+     *
+     * @param element The element being processed.
+     */
+    protected void beginElement(Element element) {
+        if (this.observer != null) {
+            this.observer.elementStarted(element);
+        }
+    }
+
+    /**
+     * Tells the processing observers that the processing of an element started with beginElement(...) is done.
+     *
+     * @param element The processed element.
+     */
+    protected void endElement(Element element) {
+        if (this.observer != null) {
+            this.observer.elementEnded(element);
+        }
+    }
+
     /**
      * Provides a warning message to the compiler, which will handle it later.
      *
@@ -413,10 +683,112 @@ public abstract class SimplifiedAnnotationProcessor extends AbstractProcessor im
      */
     private void setupLocals() {
         this.messager = super.processingEnv.getMessager();
-        this.generationSupport = new GenerationSupport(super.processingEnv.getFiler(), this);
+        this.generationSupport = new GenerationSupport(super.processingEnv.getFiler(), this.logger);
+        this.generationSupport.setRenderExecutor(this.renderExecutor);
+        this.generationSupport.setRenderFailureReporter(this.renderFailureReporter);
+        this.generationSupport.setProcessingObserver(this.observer);
         this.elementUtils = super.processingEnv.getElementUtils();
         this.typeUtils = super.processingEnv.getTypeUtils();
+        if (this.modelProfiler != null) {
+            this.elementUtils = this.modelProfiler.wrap(this.elementUtils);
+            this.typeUtils = this.modelProfiler.wrap(this.typeUtils);
+        }
         SAPType.elementUtils = this.elementUtils;
+        SAPType.typeUtils = this.typeUtils;
+        SAPBaseElement.newRound(this);
+    }
+
+    /**
+     * Initializes the processor with the processing environment. This is where the processing methods
+     * are bound to this instance. If a dispatcher was generated for the processor class by @GenerateDispatcher
+     * that is used. Otherwise a dispatch table of processing methods is built by reflection. It is only done
+     * once per processor instance, after that each round only does lookups.
+     *
+     * @param processingEnv The processing environment.
+     */
+    @Override
+    public synchronized void init(ProcessingEnvironment processingEnv) {
+        super.init(processingEnv);
+        // Set here, and not only in setupLocals(), since printWarning(...) is used during init.
+        this.messager = processingEnv.getMessager();
+
+        LogLevel logLevel = this.verbose ? LogLevel.INFO : LogLevel.WARN;
+        String logLevelName = processingEnv.getOptions().get(OPTION_LOG_LEVEL);
+        if (logLevelName != null) {
+            if (LogLevel.forName(logLevelName) != null) {
+                logLevel = LogLevel.forName(logLevelName);
+            }
+            else {
+                processingEnv.getMessager().printMessage(Kind.WARNING, "Bad value for " + OPTION_LOG_LEVEL + ": " +
+                        logLevelName + "! Using " + logLevel.name().toLowerCase() + ".");
+            }
+        }
+        if (logLevel != LogLevel.OFF) {
+            this.logger = new Logger(logLevel, "true".equals(processingEnv.getOptions().get(OPTION_LOG_MESSAGER)) ?
+                    new BufferedLogSink(processingEnv.getMessager()) : new BufferedLogSink(System.out));
+        }
+
+        String elementIndex = processingEnv.getOptions().get(OPTION_ELEMENT_INDEX);
+        if (elementIndex != null) {
+            try {
+                this.elementIndexStrategy = AnnotatedElementIndex.Strategy.valueOf(elementIndex.toUpperCase());
+            }
+            catch (IllegalArgumentException iae) {
+                processingEnv.getMessager().printMessage(Kind.WARNING, "Bad value for " + OPTION_ELEMENT_INDEX + ": " +
+                        elementIndex + "! Using " + this.elementIndexStrategy.name().toLowerCase() + ".");
+            }
+        }
+
+        String renderExecutor = processingEnv.getOptions().get(OPTION_RENDER_EXECUTOR);
+        if (renderExecutor != null) {
+            this.renderExecutor = createRenderExecutor(renderExecutor);
+        }
+
+        String metricsDir = processingEnv.getOptions().get(OPTION_METRICS);
+        if (metricsDir != null) {
+            this.metrics = new ProcessingMetrics(getClass().getName());
+            this.metricsFile = new File(metricsDir.trim().length() > 0 ? metricsDir.trim() : ".",
+                    getClass().getName() + ".metrics.json");
+            addProcessingObserver(this.metrics);
+        }
+
+        String traceDir = processingEnv.getOptions().get(OPTION_TRACE);
+        if (traceDir != null) {
+            this.trace = ChromeTrace.forCompilation(processingEnv,
+                    new File(traceDir.trim().length() > 0 ? traceDir.trim() : ".", "sap.trace.json"));
+            addProcessingObserver(new TracingObserver(this.trace, getClass().getName(),
+                    "true".equals(processingEnv.getOptions().get(OPTION_TRACE_ELEMENTS))));
+        }
+
+        String modelProfileDir = processingEnv.getOptions().get(OPTION_MODEL_PROFILE);
+        if (modelProfileDir != null) {
+            this.modelProfiler = new ModelQueryProfiler(getClass().getName(),
+                    "true".equals(processingEnv.getOptions().get(OPTION_MODEL_PROFILE_CALLERS)));
+            this.modelProfileFile = new File(modelProfileDir.trim().length() > 0 ? modelProfileDir.trim() : ".",
+                    getClass().getName() + ".model-profile.txt");
+            addProcessingObserver(this.modelProfiler);
+        }
+
+        String jfr = processingEnv.getOptions().get(OPTION_JFR);
+        if (!"false".equals(jfr)) {
+            // Unless asked for, JFR is only touched if a recording is running.
+            FlightRecorderSupport flightRecorderSupport =
+                    "true".equals(jfr) ? FlightRecorderSupport.get() : FlightRecorderSupport.getIfRecording();
+            if (flightRecorderSupport != null) {
+                addProcessingObserver(flightRecorderSupport.createProcessingObserver(getClass().getName()));
+            }
+        }
+
+        this.dispatcher = loadGeneratedDispatcher();
+        if (this.dispatcher != null) {
+            return;
+        }
+
+        HandlerBinder.Invocation invocation = HandlerBinder.Invocation.REFLECTION;
+        if (INVOCATION_DIRECT.equals(processingEnv.getOptions().get(OPTION_INVOCATION))) {
+            invocation = HandlerBinder.Invocation.DIRECT;
+        }
+        this.dispatcher = new HandlerBinder(this, invocation, this.logger, getHandlerLookup()).bind(new DispatchTable(getClass()));
     }
 
     /**
@@ -426,29 +798,36 @@ public abstract class SimplifiedAnnotationProcessor extends AbstractProcessor im
      * @param annotations The annotations to process for this round.
      * @param roundEnv information about the round.
      */
-    @SuppressWarnings("Duplicates")
     @Override
     public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
         setupLocals();
 
         boolean allAnnotationsHandled = true;
 
+        ++this.round;
+        if (this.observer != null) {
+            this.observer.roundStarted(this.round);
+        }
+
         if (!roundEnv.processingOver()) {
-            verboseHeading(getClass().getSimpleName() + " invoked:");
+            this.logger.info("{} invoked:", getClass().getSimpleName());
+
+            this.annotatedElementIndex = new AnnotatedElementIndex(this.elementIndexStrategy, annotations, roundEnv,
+                    this.elementUtils, this.logger);
 
             // @NewRound
-            Method newRoundMethod = findAnnotatedMethod(NewRound.class);
-            if (newRoundMethod != null && newRoundMethod.getParameterTypes().length == 0) {
+            CallbackHandler newRoundHandler = this.dispatcher.getNewRoundHandler();
+            if (newRoundHandler != null) {
+                handlerStarted(HandlerKind.NEW_ROUND, null, -1);
+                boolean failed = false;
                 try {
-                    newRoundMethod.invoke(this, new Object[0]);
+                    newRoundHandler.call();
                 }
                 catch (Exception e) {
-                    if (e.getCause() != null) {
-                        Throwable cause = e.getCause();
-                        failCompile("" + cause.getMessage(), cause);
-                    }
-                    failCompile("" + e.getMessage(), e);
+                    failed = true;
+                    failHandler(e, null);
                 }
+                handlerEnded(HandlerKind.NEW_ROUND, null, -1, failed);
             }
 
             // @Process(x.class)
@@ -462,67 +841,62 @@ public abstract class SimplifiedAnnotationProcessor extends AbstractProcessor im
 
             // @GenerateSource
             if (processed > 0) {
-                List<Method> generateMethods = findAnnotatedMethods(GenerateSource.class);
-                for (Method generateMethod : generateMethods) {
-                    if (generateMethod != null) {
-                        if (generateMethod.getParameterTypes().length == 1 && generateMethod.getParameterTypes()[0].equals(GenerationSupport.class)) {
-                            try {
-                                generateMethod.invoke(this, this.generationSupport);
-                            }
-                            catch (Exception e) {
-                                if (e.getCause() != null) {
-                                    Throwable cause = e.getCause();
-                                    failCompile("" + cause.getMessage(), cause);
-                                }
-                                else {
-                                    failCompile("" + e.getMessage(), e);
-                                }
-                            }
-                        }
-                        else if(generateMethod.getParameterTypes().length == 0) {
-                            try {
-                                generateMethod.invoke(this, new Object[0]);
-                            }
-                            catch (Exception e) {
-                                if (e.getCause() != null) {
-                                    Throwable cause = e.getCause();
-                                    failCompile("" + cause.getMessage(), cause);
-                                }
-                                else {
-                                    failCompile("" + e.getMessage(), e);
-                                }
-                            }
-                        }
-                        else {
-                            failCompile("Found @Generate annotated method, but with wrong parameters! The @Generate method\n" +
-                                    "should take 1 or 0 parameters: GenerationSupport or no parameter.");
-                        }
+                int index = 0;
+                for (GenerateSourceHandler generateHandler : this.dispatcher.getGenerateSourceHandlers()) {
+                    handlerStarted(HandlerKind.GENERATE_SOURCE, null, index);
+                    boolean failed = false;
+                    try {
+                        generateHandler.generate(this.generationSupport);
                     }
+                    catch (Exception e) {
+                        failed = true;
+                        failHandler(e, null);
+                    }
+                    handlerEnded(HandlerKind.GENERATE_SOURCE, null, index++, failed);
                 }
             }
         }
         else {
-            verbose("Done.\n");
+            this.logger.info("    Done.\n");
+            this.annotatedElementIndex = null;
             // @AllProcessed
-            List<Method> allProcessedMethods = findAnnotatedMethods(AllProcessed.class);
-            for (Method allProcessedMethod : allProcessedMethods) {
-                if (allProcessedMethod != null && allProcessedMethod.getParameterTypes().length == 0) {
-                    try {
-                        allProcessedMethod.invoke(this, new Object[0]);
-                    }
-                    catch (Exception e) {
-                        if (e.getCause() != null) {
-                            Throwable cause = e.getCause();
-                            failCompile("" + cause.getMessage(), cause);
-                        }
-                        else {
-                            failCompile("" + e.getMessage(), e);
-                        }
-                    }
+            int index = 0;
+            for (CallbackHandler allProcessedHandler : this.dispatcher.getAllProcessedHandlers()) {
+                handlerStarted(HandlerKind.ALL_PROCESSED, null, index);
+                boolean failed = false;
+                try {
+                    allProcessedHandler.call();
+                }
+                catch (Exception e) {
+                    failed = true;
+                    failHandler(e, null);
                 }
+                handlerEnded(HandlerKind.ALL_PROCESSED, null, index++, failed);
             }
         }
 
+        // Whatever the methods of the round generated is written, also when no annotations were processed.
+        endGeneration();
+
+        if (this.observer != null) {
+            this.observer.roundEnded(this.round);
+            if (roundEnv.processingOver()) {
+                this.observer.processingOver();
+                writeMetricsReport();
+                writeTrace();
+                writeModelProfile();
+            }
+        }
+
+        if (roundEnv.processingOver()) {
+            // Drop the model so that no javac symbols are kept alive after the compilation.
+            SAPBaseElement.processingOver(this);
+            shutdownRenderExecutor();
+        }
+
+        // The log messages of the round are written together.
+        this.logger.flush();
+
         return allAnnotationsHandled;
     }
 
@@ -535,34 +909,22 @@ public abstract class SimplifiedAnnotationProcessor extends AbstractProcessor im
     protected boolean process(TypeElement annotationTypeElement, RoundEnvironment roundEnv) {
         boolean annotationHandled = false;
 
-        Method processMethod = findProcessMethod(annotationTypeElement.getQualifiedName());
-        if (processMethod != null) {
+        ProcessHandler processHandler = this.dispatcher.getProcessHandler(annotationTypeElement.getQualifiedName());
+        if (processHandler != null) {
+            Set<? extends Element> elementsAnnotatedWith = this.annotatedElementIndex != null ?
+                    this.annotatedElementIndex.getElementsAnnotatedWith(annotationTypeElement) :
+                    roundEnv.getElementsAnnotatedWith(annotationTypeElement);
+            handlerStarted(HandlerKind.PROCESS, annotationTypeElement.getQualifiedName(), elementsAnnotatedWith.size());
             try {
-                Set<? extends Element> elementsAnnotatedWith = roundEnv.getElementsAnnotatedWith(annotationTypeElement);
-                verbose("@" + annotationTypeElement.getSimpleName() + " - Processing " + elementsAnnotatedWith.size() + " elements.");
-                Object ret = null;
-                if (processMethod.getParameterTypes().length == 1) {
-                    ret = processMethod.invoke(this, elementsAnnotatedWith);
-                    annotationHandled = true;
-                }
-                else if (processMethod.getParameterTypes().length == 2) {
-                    ret = processMethod.invoke(this, annotationTypeElement, elementsAnnotatedWith);
-                    annotationHandled = true;
-                }
-                else {
-                    failCompile("@Process annotated method must take either (TypeElement, Set<? extends Element>) or " +
-                        "(Set<? extends Element>)! [" + processMethod.toGenericString() + "]");
-                }
+                this.logger.info("    @{} - Processing {} elements.", annotationTypeElement.getSimpleName(), elementsAnnotatedWith.size());
+                processHandler.process(annotationTypeElement, elementsAnnotatedWith);
+                annotationHandled = true;
             }
             catch (Exception e) {
-                if (e.getCause() != null) {
-                    Throwable cause = e.getCause();
-                    failCompile("" + cause.getMessage(), annotationTypeElement, cause);
-                }
-                else {
-                     failCompile("" + e.getMessage(), annotationTypeElement, e);
-                 }
+                failHandler(e, annotationTypeElement);
             }
+            handlerEnded(HandlerKind.PROCESS, annotationTypeElement.getQualifiedName(), elementsAnnotatedWith.size(),
+                    !annotationHandled);
         }
         else {
             failCompile("Found no processor for annotation '" + annotationTypeElement + "'!", annotationTypeElement);
@@ -577,56 +939,188 @@ public abstract class SimplifiedAnnotationProcessor extends AbstractProcessor im
     //
 
     /**
-     * Support method for finding the method to invoke for processing a specific annotation.
-     * Null is returned if none found.
+     * Returns a Dispatcher created by the dispatcher generated for this processor class by @GenerateDispatcher,
+     * or null if there is no such dispatcher.
+     */
+    private Dispatcher loadGeneratedDispatcher() {
+        try {
+            Class<?> dispatcherFactoryClass = Class.forName(getClass().getName() + DispatcherFactory.CLASS_NAME_SUFFIX, true,
+                    getClass().getClassLoader());
+            DispatcherFactory dispatcherFactory =
+                    (DispatcherFactory)dispatcherFactoryClass.getDeclaredConstructor().newInstance();
+            return dispatcherFactory.createDispatcher(this);
+        }
+        catch (ClassNotFoundException cnfe) {
+            return null;
+        }
+        catch (Exception e) {
+            printWarning("Failed to load generated dispatcher of " + getClass().getName() + ", using reflection! [" +
+                    e + "]");
+            return null;
+        }
+    }
+
+    /**
+     * Tells the observer, if any, that a processing method is about to be called.
+     *
+     * @param kind The kind of processing method.
+     * @param processedAnnotation The qualified name of the processed annotation of a @Process method, otherwise null.
+     * @param elementCountOrIndex The number of processed elements of a @Process method, otherwise the index of the method or -1.
+     */
+    private void handlerStarted(HandlerKind kind, CharSequence processedAnnotation, int elementCountOrIndex) {
+        if (this.observer != null) {
+            this.observer.handlerStarted(kind, kind.getHandlerName(processedAnnotation, elementCountOrIndex),
+                    kind == HandlerKind.PROCESS ? elementCountOrIndex : 0);
+        }
+    }
+
+    /**
+     * Tells the observer, if any, that a processing method has returned.
      *
-     * @param qualifiedName The qualified name of the annotation to find processing method for.
+     * @param kind The kind of processing method.
+     * @param processedAnnotation The qualified name of the processed annotation of a @Process method, otherwise null.
+     * @param elementCountOrIndex The number of processed elements of a @Process method, otherwise the index of the method or -1.
+     * @param failed True if the method threw an exception.
      */
-    private Method findProcessMethod(Name qualifiedName) {
-        Method processMethod = null;
+    private void handlerEnded(HandlerKind kind, CharSequence processedAnnotation, int elementCountOrIndex, boolean failed) {
+        if (this.observer != null) {
+            this.observer.handlerEnded(kind, kind.getHandlerName(processedAnnotation, elementCountOrIndex),
+                    kind == HandlerKind.PROCESS ? elementCountOrIndex : 0, failed);
+        }
+    }
 
-        for (Method pmethod : getClass().getDeclaredMethods()) {
-            Process processAnn = pmethod.getAnnotation(Process.class);
-            if (processAnn != null) {
-                if (qualifiedName.contentEquals(processAnn.value().getName())) {
-                    processMethod = pmethod;
-                    break;
-                }
-            }
+    /**
+     * Writes the metrics report if enabled by the sap.metrics option.
+     */
+    private void writeMetricsReport() {
+        if (this.metrics == null) {
+            return;
         }
+        try {
+            this.metrics.writeReport(this.metricsFile);
+            this.logger.info("    Wrote processing metrics to {}", this.metricsFile.getPath());
+        }
+        catch (IOException ioe) {
+            printWarning("Failed to write processing metrics to " + this.metricsFile.getPath() + "! [" + ioe.getMessage() + "]");
+        }
+    }
 
-        return processMethod;
+    /**
+     * Writes the trace if enabled by the sap.trace option. Each processor writes all spans recorded so far, so the
+     * last processor to finish writes the complete trace.
+     */
+    private void writeTrace() {
+        if (this.trace == null) {
+            return;
+        }
+        try {
+            this.trace.write();
+            this.logger.info("    Wrote processing trace to {}", this.trace.getFile().getPath());
+        }
+        catch (IOException ioe) {
+            printWarning("Failed to write processing trace to " + this.trace.getFile().getPath() + "! [" + ioe.getMessage() + "]");
+        }
     }
 
     /**
-     * Finds the first method annotated with the specified annotation and return it
-     * or null if not found.
-     *
-     * @param annotationClass The annotation to look for.
+     * Writes the model profile if enabled by the sap.modelProfile option.
      */
-    private Method findAnnotatedMethod(Class annotationClass) {
-        List<Method> annotatedMethods = findAnnotatedMethods(annotationClass);
-        return annotatedMethods.size() > 0 ? annotatedMethods.get(0) : null;
+    private void writeModelProfile() {
+        if (this.modelProfiler == null) {
+            return;
+        }
+        try {
+            this.modelProfiler.writeReport(this.modelProfileFile);
+            this.logger.info("    Wrote model profile to {}", this.modelProfileFile.getPath());
+        }
+        catch (IOException ioe) {
+            printWarning("Failed to write model profile to " + this.modelProfileFile.getPath() + "! [" + ioe.getMessage() + "]");
+        }
     }
 
     /**
-     * Finds all methods annotated with the specified annotation. An emmpty list
-     * will be returned if none found.
-     *
-     * @param annotationClass The annotation to look for.
+     * Writes the renders and sources generated during the round, and ends the round of the GenerationSupport so
+     * that renders submitted later are rejected instead of never being written.
      */
-    private List<Method> findAnnotatedMethods(Class annotationClass) {
-        List<Method> annotatedMethods = new ArrayList<Method>();
+    private void endGeneration() {
+        try {
+            this.generationSupport.commitRenders();
+        }
+        catch (IOException ioe) {
+            failCompile("Failed to write rendered source: " + ioe.getMessage());
+        }
 
-        for (Method amethod : getClass().getDeclaredMethods()) {
-            Object annotation = amethod.getAnnotation(annotationClass);
-            if (annotation != null) {
-                annotatedMethods.add(amethod);
+        try {
+            this.generationSupport.closeOpenSourceStreams();
+        }
+        catch (IOException ioe) {
+            failCompile("Failed to write generated source: " + ioe.getMessage());
+        }
 
-                break;
+        this.generationSupport.endRound();
+    }
+
+    /**
+     * Shuts down the render executor if it was created by createRenderExecutor(...), letting its threads end.
+     */
+    private void shutdownRenderExecutor() {
+        if (this.renderExecutor instanceof ExecutorService) {
+            ((ExecutorService)this.renderExecutor).shutdown();
+        }
+        this.renderExecutor = null;
+    }
+
+    /**
+     * Creates the executor specified by the sap.renderExecutor option.
+     *
+     * @param renderExecutor The option value.
+     *
+     * @return The executor or null for ForkJoinPool.commonPool().
+     */
+    private Executor createRenderExecutor(String renderExecutor) {
+        if (renderExecutor.equals("common")) {
+            return null;
+        }
+        if (renderExecutor.equals("caller")) {
+            return new Executor() {
+                @Override
+                public void execute(Runnable render) {
+                    render.run();
+                }
+            };
+        }
+        if (renderExecutor.equals("virtual")) {
+            try {
+                return (Executor)Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+            }
+            catch (Exception e) {
+                this.logger.info("    Virtual threads are not available, using the common pool!");
+                return null;
             }
         }
 
-        return annotatedMethods;
+        try {
+            return new ForkJoinPool(Integer.parseInt(renderExecutor));
+        }
+        catch (IllegalArgumentException iae) {
+            super.processingEnv.getMessager().printMessage(Kind.WARNING, "Bad value for " + OPTION_RENDER_EXECUTOR + ": " +
+                    renderExecutor + "! Using common.");
+            return null;
+        }
+    }
+
+    /**
+     * Fails compilation due to an exception thrown by a handler.
+     *
+     * @param e The exception thrown by the handler.
+     * @param element The element to associate the failure with. Can be null.
+     */
+    private void failHandler(Exception e, Element element) {
+        if (e instanceof HandlerSignatureException) {
+            failCompile(e.getMessage());
+        }
+        else {
+            failCompile("" + e.getMessage(), element, e);
+        }
     }
 }
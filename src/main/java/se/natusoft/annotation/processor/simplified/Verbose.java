@@ -39,7 +39,8 @@
 package se.natusoft.annotation.processor.simplified;
 
 /**
- * API for verbose output.
+ * API for verbose output. This is kept for GenerationSupport(Filer, Verbose). SimplifiedAnnotationProcessor logs
+ * through a Logger, see getLogger().
  */
 public interface Verbose {
 
@@ -0,0 +1,221 @@
+/*
+ *
+ * PROJECT
+ *     Name
+ *         SimplifiedAnnotationProcessor
+ *
+ *     Code Version
+ *         1.1
+ *
+ *     Description
+ *         An abstract annotation processor base class that simplifies the annotation
+ *         processing, but also limits it slightly. It is however good enough for most
+ *         cases and makes things a bit easier and clearer.
+ *
+ * COPYRIGHTS
+ *     Copyright (C) 2013 by Natusoft AB All rights reserved.
+ *
+ * LICENSE
+ *     Apache 2.0 (Open Source)
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ * AUTHORS
+ *     tommy ()
+ *         Changes:
+ *         2026-10-16: Created!
+ *
+ */
+package se.natusoft.annotation.processor.simplified.codegen;
+
+import se.natusoft.annotation.processor.simplified.monitor.ObservedOutputStream;
+import se.natusoft.annotation.processor.simplified.monitor.ProcessingObserver;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import javax.tools.FileObject;
+
+/**
+ * An OutputStream that collects everything written to it in memory, and writes it all to a FileObject in one
+ * single write when closed. flush() does nothing. The bytes written to this stream must be UTF-8 encoded text.
+ * The text is written to the FileObject through FileObject.openWriter(), so the file gets the source encoding
+ * used by the compiler.
+ * <p>
+ * The buffers are pooled and reused by later streams.
+ * <p>
+ * If created with a ProcessingObserver, the written file is reported to it on close.
+ */
+public class BufferedFileObjectOutputStream extends OutputStream {
+    //
+    // Constants
+    //
+
+    /** The encoding of the bytes written to this stream. */
+    public static final String ENCODING = "UTF-8";
+
+    /** The size of a new buffer. */
+    private static final int INITIAL_BUFFER_SIZE = 64 * 1024;
+
+    /** Buffers grown larger than this are not pooled. */
+    private static final int MAX_POOLED_BUFFER_SIZE = 1024 * 1024;
+
+    /** The max number of pooled buffers. */
+    private static final int MAX_POOLED_BUFFERS = 8;
+
+    //
+    // Private Members
+    //
+
+    /** The file to write to on close. */
+    private FileObject fileObject = null;
+
+    /** The buffer. This is null when closed. */
+    private byte[] buffer = null;
+
+    /** The number of bytes in the buffer. */
+    private int count = 0;
+
+    /** Receives the written file on close or null. */
+    private ProcessingObserver observer = null;
+
+    /** Released buffers for reuse. */
+    private static Deque<byte[]> pool = new ArrayDeque<byte[]>();
+
+    //
+    // Constructors
+    //
+
+    /**
+     * Creates a new BufferedFileObjectOutputStream.
+     *
+     * @param fileObject The file to write to on close.
+     */
+    public BufferedFileObjectOutputStream(FileObject fileObject) {
+        this.fileObject = fileObject;
+        this.buffer = acquireBuffer();
+    }
+
+    /**
+     * Creates a new BufferedFileObjectOutputStream.
+     *
+     * @param fileObject The file to write to on close.
+     * @param observer Receives the written file on close. Can be null.
+     */
+    public BufferedFileObjectOutputStream(FileObject fileObject, ProcessingObserver observer) {
+        this(fileObject);
+        this.observer = observer;
+    }
+
+    //
+    // Methods
+    //
+
+    /**
+     * Returns a pooled buffer or a new one if the pool is empty.
+     */
+    private static synchronized byte[] acquireBuffer() {
+        byte[] buffer = pool.poll();
+        return buffer != null ? buffer : new byte[INITIAL_BUFFER_SIZE];
+    }
+
+    /**
+     * Returns a buffer to the pool.
+     *
+     * @param buffer The buffer to return.
+     */
+    private static synchronized void releaseBuffer(byte[] buffer) {
+        if (buffer.length <= MAX_POOLED_BUFFER_SIZE && pool.size() < MAX_POOLED_BUFFERS) {
+            pool.push(buffer);
+        }
+    }
+
+    /**
+     * Makes sure the buffer can hold the specified number of more bytes.
+     *
+     * @param more The number of bytes to make room for.
+     *
+     * @throws IOException if the stream is closed.
+     */
+    private void ensureCapacity(int more) throws IOException {
+        if (this.buffer == null) {
+            throw new IOException("Stream for '" + this.fileObject.getName() + "' is closed!");
+        }
+        if (this.count + more > this.buffer.length) {
+            this.buffer = Arrays.copyOf(this.buffer, Math.max(this.buffer.length * 2, this.count + more));
+        }
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        ensureCapacity(1);
+        this.buffer[this.count++] = (byte)b;
+    }
+
+    @Override
+    public void write(byte[] bytes, int offset, int length) throws IOException {
+        ensureCapacity(length);
+        System.arraycopy(bytes, offset, this.buffer, this.count, length);
+        this.count += length;
+    }
+
+    /**
+     * Does nothing. Everything is written on close.
+     */
+    @Override
+    public void flush() {}
+
+    /**
+     * Returns true if this stream has been closed.
+     */
+    public boolean isClosed() {
+        return this.buffer == null;
+    }
+
+    /**
+     * Writes the buffered text to the file object and releases the buffer. Closing an already closed stream
+     * does nothing.
+     *
+     * @throws IOException on failure to write the file.
+     */
+    @Override
+    public void close() throws IOException {
+        if (this.buffer == null) {
+            return;
+        }
+
+        byte[] buffer = this.buffer;
+        this.buffer = null;
+        long start = System.nanoTime();
+        try {
+            Writer writer = this.fileObject.openWriter();
+            try {
+                writer.write(new String(buffer, 0, this.count, Charset.forName(ENCODING)));
+            }
+            finally {
+                writer.close();
+            }
+        }
+        finally {
+            if (this.observer != null) {
+                this.observer.fileWritten(this.fileObject.getName(), this.count,
+                        ObservedOutputStream.countLines(buffer, 0, this.count), System.nanoTime() - start);
+            }
+            releaseBuffer(buffer);
+        }
+    }
+}
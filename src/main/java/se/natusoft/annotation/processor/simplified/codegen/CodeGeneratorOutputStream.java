@@ -38,12 +38,21 @@
  */
 package se.natusoft.annotation.processor.simplified.codegen;
 
+import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.io.OutputStream;
 import java.io.PrintStream;
-import java.util.ArrayList;
-import java.util.List;
+import java.io.UnsupportedEncodingException;
+import java.lang.reflect.Method;
+import java.nio.charset.Charset;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedList;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Properties;
+import java.util.function.Function;
+import java.util.stream.Stream;
 
 /**
  * This is a PrintStream subclass that provides functionallity to simplify code generation. It is mainly
@@ -89,6 +98,7 @@ import java.util.Properties;
  * The more advanced "on first call" handling is supported by the following methods:
  * <ul>
  * <li><a href="#initializeOnFirst()">initializeOnFirst()</a></li>
+ * <li><a href="#onFirst(java.lang.Object, java.lang.Runnable)">onFirst(Object clause, Runnable r)</a></li>
  * <li><a href="#onFirst(java.lang.Runnable)">onFirst(Runnable r)</a></li>
  * </ul>
  * initializeOnFirst() should be called in a method that can be followed by methods handling list entries.
@@ -96,6 +106,10 @@ import java.util.Properties;
  * that will be executed on the first call to the method, but not on subsequent calls. Here you have more
  * flexibility since your runnable can execute any Java code. It can print a keyword. It can initialize
  * a comma by calling newComma().
+ * <p>
+ * Consecutive calls are identified by the clause passed to onFirst(Object, Runnable), like a constant for the
+ * "implements" list. The onFirst(Runnable) variant uses the calling method as clause, which requires a look
+ * at the call stack for each call.
  *
  * <h2>Delayed printing</h2>
  * This is a very special, but extremely useful feature supported by these methods:
@@ -141,9 +155,38 @@ import java.util.Properties;
  * argument list by flushing ")". Subsequent calls will just output the exception. The next method call that calls a flushing
  * print method will flush the rest and end the metod definition with " {". If methodException(...) is never called, both the
  * ")" and the " {" will be flushed togheter at the next flushing print method call.
+ *
+ * <h2>Insertion points</h2>
+ * When writing to a SegmentBuffer, text can be inserted at named positions after the text following them has been
+ * written. This is supported by the following methods:
+ * <ul>
+ * <li><a href="#insertionPoint(java.lang.String)">insertionPoint(String name)</a></li>
+ * <li><a href="#begInsert(java.lang.String)">begInsert(String name)</a></li>
+ * <li><a href="#endInsert()">endInsert()</a></li>
+ * </ul>
+ * insertionPoint(name) creates an insertion point at the current position, remembering the current indentation
+ * level. Everything printed between begInsert(name) and endInsert() goes to the insertion point, indented from the
+ * level of the insertion point. The indentation level, delayed prints, comma, first only and onFirst() state of
+ * the interrupted text are put aside during the insert and restored by endInsert().
  */
 public class CodeGeneratorOutputStream extends PrintStream {
 
+    //
+    // Constants
+    //
+
+    /** The clause when no clause has been started. This is never equal to any other clause. */
+    private static final Object NO_CLAUSE = new Object();
+
+    /** The newline printed after delayedPrintln() texts. */
+    private static final String NEWLINE = "\n";
+
+    /** The line separator printed by println(). This is what PrintStream prints. */
+    private static final String LINE_SEPARATOR = System.getProperty("line.separator");
+
+    /** The name of the encoding written by writeText(String) rather than by PrintStream. */
+    private static final String UTF_8 = "UTF-8";
+
     //
     // Private Members
     //
@@ -154,14 +197,44 @@ public class CodeGeneratorOutputStream extends PrintStream {
     /** Is initialized with a value that gets returned only once and after that empty string. */
     private FirstOnly firstOnly = null;
 
-    /** Entries for delayed printing. */
-    private List<String> delayedPrintQueue = null;
+    /** Entries for delayed printing. This is a ring buffer starting at delayedPrintHead. */
+    private String[] delayedPrintQueue = new String[8];
+
+    /** Flags the entries of delayedPrintQueue to be followed by a newline. */
+    private boolean[] delayedPrintNewline = new boolean[8];
+
+    /** The index of the first entry in delayedPrintQueue. */
+    private int delayedPrintHead = 0;
+
+    /** The number of entries in delayedPrintQueue. */
+    private int delayedPrintCount = 0;
 
-    /** The current indent. */
-    private String indent = "";
+    /** The current indentation level. */
+    private int indentLevel = 0;
 
-    /** The last caller. */
-    private String lastCaller = "";
+    /** The indents of each indentation level. This is shared by all instances and only grows. */
+    private static volatile String[] indents = {""};
+
+    /** The clause of the last onFirst()/onNonFirst() call. */
+    private Object lastClause = NO_CLAUSE;
+
+    /** The indentation level of each insertion point, created when first needed. */
+    private Map<String, Integer> insertionIndents = null;
+
+    /** The state put aside by begInsert(...) calls not yet ended, innermost first. */
+    private LinkedList<InsertState> inserts = null;
+
+    /** Finds the caller with java.lang.StackWalker if available. */
+    private static CallerWalker callerWalker = CallerWalker.create();
+
+    /** True if text is written as UTF-8 which writeText(String) encodes itself. */
+    private boolean utf8;
+
+    /** True if the OutputStream is flushed after each line. PrintStream keeps this private. */
+    private boolean autoFlush;
+
+    /** The buffer writeText(String) encodes text into. This is reused for all text. */
+    private byte[] textBuffer = new byte[512];
 
     //
     // Constructors
@@ -174,6 +247,23 @@ public class CodeGeneratorOutputStream extends PrintStream {
      */
     public CodeGeneratorOutputStream(OutputStream os) {
         super(os, true);
+        this.utf8 = Charset.defaultCharset().name().equals(UTF_8);
+        this.autoFlush = true;
+    }
+
+    /**
+     * Creates a new CodeGeneratorOutputStream instance.
+     *
+     * @param os The OutputStream to write to.
+     * @param autoFlush If true the OutputStream is flushed after each line.
+     * @param encoding The character encoding to write text with.
+     *
+     * @throws UnsupportedEncodingException if the encoding is not supported.
+     */
+    public CodeGeneratorOutputStream(OutputStream os, boolean autoFlush, String encoding) throws UnsupportedEncodingException {
+        super(os, autoFlush, encoding);
+        this.utf8 = Charset.forName(encoding).name().equals(UTF_8);
+        this.autoFlush = autoFlush;
     }
 
     //
@@ -184,14 +274,39 @@ public class CodeGeneratorOutputStream extends PrintStream {
      * Increments the indentation level.
      */
     public void incrementIndent() {
-        this.indent = this.indent + "    ";
+        ++this.indentLevel;
+        if (this.indentLevel >= indents.length) {
+            growIndents(this.indentLevel);
+        }
     }
 
     /**
      * Decrements the indentation level.
      */
     public void decrementIndent() {
-        this.indent = this.indent.substring(0, this.indent.length() - 4);
+        if (this.indentLevel == 0) {
+            throw new IllegalStateException("Indentation level is already 0!");
+        }
+        --this.indentLevel;
+    }
+
+    /**
+     * Makes the shared indent table hold the specified level.
+     *
+     * @param level The indentation level to hold.
+     */
+    private static synchronized void growIndents(int level) {
+        String[] current = indents;
+        if (level < current.length) {
+            return;
+        }
+
+        String[] grown = new String[Math.max(level + 1, current.length * 2)];
+        System.arraycopy(current, 0, grown, 0, current.length);
+        for (int ix = current.length; ix < grown.length; ix++) {
+            grown[ix] = grown[ix - 1] + "    ";
+        }
+        indents = grown;
     }
 
     /**
@@ -199,21 +314,26 @@ public class CodeGeneratorOutputStream extends PrintStream {
      */
     public void indent() {
         flushAllDelayedPrints();
-        super.print(this.indent);
+        writeText(indents[this.indentLevel]);
     }
 
     /**
      * Initializes a new comma with an empty string as first value and ", " as subsequent values.
      */
     public void newComma() {
-        this.comma = new Comma();
+        if (this.comma == null) {
+            this.comma = new Comma();
+        }
+        else {
+            this.comma.reset();
+        }
     }
 
     /**
      * Prints the current comma value.
      */
     public void printComma() {
-        super.print(this.comma.toString());
+        writeText(this.comma.toString());
     }
 
     /**
@@ -223,14 +343,19 @@ public class CodeGeneratorOutputStream extends PrintStream {
      * @param value The value to initialize with.
      */
     public void newFirstOnly(String value) {
-        this.firstOnly = new FirstOnly(value);
+        if (this.firstOnly == null) {
+            this.firstOnly = new FirstOnly(value);
+        }
+        else {
+            this.firstOnly.reset(value);
+        }
     }
 
     /**
      * Print current first value.
      */
     public void printFirstOnly() {
-        super.print(this.firstOnly.toString());
+        writeText(this.firstOnly.toString());
     }
 
     /**
@@ -239,10 +364,7 @@ public class CodeGeneratorOutputStream extends PrintStream {
      * @param text The text to print.
      */
     public void delayedPrint(String text) {
-        if (this.delayedPrintQueue == null) {
-            this.delayedPrintQueue = new ArrayList<String>();
-        }
-        this.delayedPrintQueue.add(text);
+        addDelayedPrint(text, false);
     }
 
     /**
@@ -251,18 +373,61 @@ public class CodeGeneratorOutputStream extends PrintStream {
      * @param text The text to print.
      */
     public void delayedPrintln(String text) {
-        delayedPrint(text + "\n");
+        addDelayedPrint(text, true);
+    }
+
+    /**
+     * Adds an entry last in the delayed print queue.
+     *
+     * @param text The text to print.
+     * @param newline True if the text should be followed by a newline.
+     */
+    private void addDelayedPrint(String text, boolean newline) {
+        if (this.delayedPrintCount == this.delayedPrintQueue.length) {
+            String[] queue = new String[this.delayedPrintQueue.length * 2];
+            boolean[] newlines = new boolean[queue.length];
+            for (int ix = 0; ix < this.delayedPrintCount; ix++) {
+                int from = (this.delayedPrintHead + ix) % this.delayedPrintQueue.length;
+                queue[ix] = this.delayedPrintQueue[from];
+                newlines[ix] = this.delayedPrintNewline[from];
+            }
+            this.delayedPrintQueue = queue;
+            this.delayedPrintNewline = newlines;
+            this.delayedPrintHead = 0;
+        }
+
+        int ix = (this.delayedPrintHead + this.delayedPrintCount) % this.delayedPrintQueue.length;
+        this.delayedPrintQueue[ix] = text;
+        this.delayedPrintNewline[ix] = newline;
+        ++this.delayedPrintCount;
+    }
+
+    /**
+     * Prints the first delayed print entry.
+     */
+    private void printFirstDelayedPrint() {
+        writeText(this.delayedPrintQueue[this.delayedPrintHead]);
+        if (this.delayedPrintNewline[this.delayedPrintHead]) {
+            writeText(NEWLINE);
+        }
+    }
+
+    /**
+     * Removes the first delayed print entry.
+     */
+    private void removeFirstDelayedPrint() {
+        this.delayedPrintQueue[this.delayedPrintHead] = null;
+        this.delayedPrintHead = (this.delayedPrintHead + 1) % this.delayedPrintQueue.length;
+        --this.delayedPrintCount;
     }
 
     /**
      * Flushes any delayed text.
      */
     private void flushAllDelayedPrints() {
-        if (this.delayedPrintQueue != null) {
-            for (String value : this.delayedPrintQueue) {
-                super.print(value);
-            }
-            this.delayedPrintQueue = null;
+        while (this.delayedPrintCount > 0) {
+            printFirstDelayedPrint();
+            removeFirstDelayedPrint();
         }
     }
 
@@ -270,9 +435,10 @@ public class CodeGeneratorOutputStream extends PrintStream {
      * Flushes the first delayed print, not removing it but changeing it to "" so that subsequent calls will return "".
      */
     public void flushFirstDelayedPrint() {
-        if (this.delayedPrintQueue != null) {
-            super.print(this.delayedPrintQueue.get(0));
-            this.delayedPrintQueue.set(0, "");
+        if (this.delayedPrintCount > 0) {
+            printFirstDelayedPrint();
+            this.delayedPrintQueue[this.delayedPrintHead] = "";
+            this.delayedPrintNewline[this.delayedPrintHead] = false;
         }
     }
 
@@ -281,11 +447,9 @@ public class CodeGeneratorOutputStream extends PrintStream {
      * return the next delayed print.
      */
     public void flushAndRemoveFirstDelayedPrint() {
-        if (this.delayedPrintQueue != null) {
-            super.print(this.delayedPrintQueue.remove(0));
-            if (this.delayedPrintQueue.isEmpty()) {
-                this.delayedPrintQueue = null;
-            }
+        if (this.delayedPrintCount > 0) {
+            printFirstDelayedPrint();
+            removeFirstDelayedPrint();
         }
     }
 
@@ -297,7 +461,8 @@ public class CodeGeneratorOutputStream extends PrintStream {
      */
     public void contentln(String line) {
         indent();
-        super.println(line);
+        writeText(String.valueOf(line));
+        writeText(LINE_SEPARATOR);
     }
 
     /**
@@ -305,27 +470,120 @@ public class CodeGeneratorOutputStream extends PrintStream {
      */
     public void emptyLine() {
         indent();
-        super.println("");
+        writeText(LINE_SEPARATOR);
+    }
+
+    /**
+     * Returns the SegmentBuffer written to.
+     *
+     * @throws IllegalStateException if not writing to a SegmentBuffer.
+     */
+    private SegmentBuffer getSegmentBuffer() {
+        if (!(this.out instanceof SegmentBuffer)) {
+            throw new IllegalStateException("Insertion points require writing to a SegmentBuffer!");
+        }
+
+        return (SegmentBuffer)this.out;
+    }
+
+    /**
+     * Creates an insertion point at the current position. Delayed prints are flushed first so that the insertion
+     * point comes after them.
+     *
+     * @param name The name of the insertion point.
+     *
+     * @throws IllegalStateException if not writing to a SegmentBuffer.
+     * @throws IllegalArgumentException if the insertion point already exists.
+     */
+    public void insertionPoint(String name) {
+        flushAllDelayedPrints();
+        getSegmentBuffer().insertionPoint(name);
+        if (this.insertionIndents == null) {
+            this.insertionIndents = new HashMap<String, Integer>();
+        }
+        this.insertionIndents.put(name, this.indentLevel);
+    }
+
+    /**
+     * Returns true if the specified insertion point exists.
+     *
+     * @param name The name of the insertion point.
+     */
+    public boolean hasInsertionPoint(String name) {
+        return this.insertionIndents != null && this.insertionIndents.containsKey(name);
     }
 
     /**
-     * Returns the caller.
+     * Makes everything printed until endInsert() go to the specified insertion point, after what has already been
+     * inserted there. The current state is put aside and the indentation level is set to that of the insertion
+     * point. Inserts can be nested.
+     *
+     * @param name The name of the insertion point.
+     *
+     * @throws IllegalStateException if not writing to a SegmentBuffer.
+     * @throws IllegalArgumentException if the insertion point does not exist.
      */
-    private String getCaller() {
-        return getCaller(3);
+    public void begInsert(String name) {
+        SegmentBuffer segmentBuffer = getSegmentBuffer();
+        if (!hasInsertionPoint(name)) {
+            throw new IllegalArgumentException("Insertion point '" + name + "' does not exist!");
+        }
+        if (this.inserts == null) {
+            this.inserts = new LinkedList<InsertState>();
+        }
+
+        this.inserts.push(new InsertState(segmentBuffer.getSelected()));
+        segmentBuffer.select(name);
+        this.indentLevel = this.insertionIndents.get(name);
     }
 
     /**
-     * Returns the caller.
+     * Ends the innermost begInsert(...). Delayed prints of the insert are flushed to the insertion point, after
+     * which the state put aside by begInsert(...) is restored.
+     *
+     * @throws IllegalStateException if there is no insert to end.
      */
-    private String getCaller(int ix) {
-        Exception e = new Exception();
-        StackTraceElement[] st = e.getStackTrace();
-        return st[ix].getClassName() + "." + st[ix].getMethodName();
+    public void endInsert() {
+        if (this.inserts == null || this.inserts.isEmpty()) {
+            throw new IllegalStateException("endInsert() without begInsert(...)!");
+        }
+
+        flushAllDelayedPrints();
+        InsertState state = this.inserts.pop();
+        state.restore();
+        if (state.selected != null) {
+            getSegmentBuffer().select(state.selected);
+        }
+        else {
+            getSegmentBuffer().selectEnd();
+        }
     }
 
     /**
-     * This saves the called subclass method and is for using onFirst(). Any method that can be followed by methods
+     * Returns the class and method name of the closest caller outside of this class. This uses StackWalker
+     * when available (Java 9+), which only looks at the frames needed, and otherwise a stack trace.
+     */
+    private static String getCaller() {
+        if (callerWalker != null) {
+            try {
+                return (String)callerWalker.walk.invoke(callerWalker.walker, callerWalker);
+            }
+            catch (Exception e) {
+                // Fall through to the stack trace.
+            }
+        }
+
+        for (StackTraceElement element : new Exception().getStackTrace()) {
+            if (!element.getClassName().equals(CodeGeneratorOutputStream.class.getName())) {
+                return element.getClassName() + "." + element.getMethodName();
+            }
+        }
+
+        return "";
+    }
+
+    /**
+     * This starts a new set of consecutive calls for using onFirst(). Any method that can be followed by methods
      * called consequtively to provide a list of items should call this to initialize.
      * <p>
      * This allows for execution of certiain code on the first of a set of consequtive calls to the same subclass method.
@@ -333,83 +591,67 @@ public class CodeGeneratorOutputStream extends PrintStream {
      * do not.
      */
     public void initializeOnFirst() {
-        this.lastCaller = getCaller(2);
+        this.lastClause = NO_CLAUSE;
     }
 
     /**
-     * This executes the Runnable if this is the first call to the method calling this in a series of consecutive calls
-     * to the method. For this to work initializeOnFirst() needs to be called for other methods not using this method.
+     * This executes the Runnable if this is the first call with the specified clause in a series of consecutive calls
+     * with the same clause. For this to work initializeOnFirst() needs to be called by methods not using this method.
+     * <p>
+     * The clause is any object identifying the list being written, like a constant for the "implements" list of a
+     * class. Clauses are compared with equals().
      *
+     * @param clause The clause to write an item of.
      * @param r The Runnable to execute on first call.
      */
-    public void onFirst(Runnable r) {
-        String caller = getCaller();
-        if (!caller.equals(this.lastCaller)) {
+    public void onFirst(Object clause, Runnable r) {
+        if (!clause.equals(this.lastClause)) {
             r.run();
         }
-        this.lastCaller = caller;
+        this.lastClause = clause;
     }
 
     /**
-     * Does the opposite of onFirst(). The runnable is executed on second to n:th consecutive call to the method.
+     * Does the opposite of onFirst(Object, Runnable). The runnable is executed on second to n:th consecutive call
+     * with the same clause.
      *
+     * @param clause The clause to write an item of.
      * @param r The Runnable to execute on non first call.
      */
-    public void onNonFirst(Runnable r) {
-        String caller = getCaller();
-        if (caller.equals(this.lastCaller)) {
+    public void onNonFirst(Object clause, Runnable r) {
+        if (clause.equals(this.lastClause)) {
             r.run();
         }
-        this.lastCaller = caller;
+        this.lastClause = clause;
     }
 
-    // Special variable expanding string versions
-
     /**
-     * Expands a String containing variable references using the supplied variable varContext.
+     * This executes the Runnable if this is the first call to the method calling this in a series of consecutive calls
+     * to the method. For this to work initializeOnFirst() needs to be called for other methods not using this method.
+     * <p>
+     * This identifies the calling method by walking the stack. onFirst(Object, Runnable) with an explicit clause
+     * is cheaper.
      *
-     * @param toExpand The string to expand variables for.
-     * @param varContext The variables with their values.
+     * @param r The Runnable to execute on first call.
      */
-    private String expand(String toExpand, Properties varContext) {
-        String result = toExpand;
-
-        for (String key : varContext.stringPropertyNames()) {
-            String value = varContext.getProperty(key);
-
-            String replace = "${" + key + "}";
-            result = replace(result, replace, value);
-
-            String replaceGetter = "${get:" + key + "}";
-            String getValue = "get" + value.substring(0, 1).toUpperCase() + value.substring(1) + "()";
-            result = replace(result, replaceGetter, getValue);
-
-            String replaceSetter = "${set:" + key + "}";
-            String setValue = "set" + value.substring(0, 1).toUpperCase() + value.substring(1);
-            result = replace(result, replaceSetter, setValue);
-        }
-
-        return result;
+    public void onFirst(Runnable r) {
+        onFirst(getCaller(), r);
     }
 
     /**
-     * I'm having strange problems with String.replace() so I tried doing my own instead.
+     * Does the opposite of onFirst(). The runnable is executed on second to n:th consecutive call to the method.
+     * <p>
+     * This identifies the calling method by walking the stack. onNonFirst(Object, Runnable) with an explicit clause
+     * is cheaper.
      *
-     * @param toReplaceIn
-     * @param from
-     * @param to
+     * @param r The Runnable to execute on non first call.
      */
-    private String replace(String toReplaceIn, String from, String to) {
-        String result = toReplaceIn;
-        int ix = result.indexOf(from);
-        while (ix >= 0) {
-            result = (result.substring(0, ix) + to + result.substring(ix + from.length()));
-            ix = result.indexOf(from);
-        }
-
-        return result;
+    public void onNonFirst(Runnable r) {
+        onNonFirst(getCaller(), r);
     }
 
+    // Special variable expanding string versions
+
     /**
      * Prints the text with variable expandsion from the variable context.
      * <p>
@@ -421,7 +663,8 @@ public class CodeGeneratorOutputStream extends PrintStream {
      * @param varContext The variable context to expand variables from.
      */
     public void print(Properties varContext, String text) {
-        print(expand(text, varContext));
+        flushAllDelayedPrints();
+        VariableTemplate.compile(text).render(varContext, this);
     }
 
     /**
@@ -436,7 +679,9 @@ public class CodeGeneratorOutputStream extends PrintStream {
      */
     public void println(Properties varContext, String... texts) {
         for (String text : texts) {
-            println(expand(text, varContext));
+            flushAllDelayedPrints();
+            VariableTemplate.compile(text).render(varContext, this);
+            writeText(LINE_SEPARATOR);
         }
     }
 
@@ -452,48 +697,117 @@ public class CodeGeneratorOutputStream extends PrintStream {
      */
     public void contentln(Properties varContext, String... texts) {
         for (String text : texts) {
-            contentln(expand(text, varContext));
+            indent();
+            VariableTemplate.compile(text).render(varContext, this);
+            writeText(LINE_SEPARATOR);
+        }
+    }
+
+    /**
+     * Writes text without flushing delayed prints. UTF-8 text is encoded into a reused buffer and written
+     * straight to the OutputStream, while PrintStream would wrap and encode every String in new buffers. Text
+     * in other encodings is printed by PrintStream. As in PrintStream unpaired surrogates are written as '?',
+     * and an IOException sets the error flag checked by checkError().
+     *
+     * @param text The text to write.
+     */
+    private void writeText(String text) {
+        if (!this.utf8) {
+            super.print(text);
+            return;
+        }
+
+        synchronized (this) {
+            try {
+                if (this.out == null) {
+                    throw new IOException("Stream closed");
+                }
+
+                byte[] buffer = this.textBuffer;
+                int length = text.length();
+                int count = 0;
+                for (int ix = 0; ix < length; ix++) {
+                    if (count > buffer.length - 4) {
+                        this.out.write(buffer, 0, count);
+                        count = 0;
+                    }
+
+                    char c = text.charAt(ix);
+                    if (c < 0x80) {
+                        buffer[count++] = (byte)c;
+                    }
+                    else if (c < 0x800) {
+                        buffer[count++] = (byte)(0xc0 | (c >> 6));
+                        buffer[count++] = (byte)(0x80 | (c & 0x3f));
+                    }
+                    else if (Character.isHighSurrogate(c) && ix + 1 < length &&
+                            Character.isLowSurrogate(text.charAt(ix + 1))) {
+                        int codePoint = Character.toCodePoint(c, text.charAt(++ix));
+                        buffer[count++] = (byte)(0xf0 | (codePoint >> 18));
+                        buffer[count++] = (byte)(0x80 | ((codePoint >> 12) & 0x3f));
+                        buffer[count++] = (byte)(0x80 | ((codePoint >> 6) & 0x3f));
+                        buffer[count++] = (byte)(0x80 | (codePoint & 0x3f));
+                    }
+                    else if (Character.isSurrogate(c)) {
+                        buffer[count++] = (byte)'?';
+                    }
+                    else {
+                        buffer[count++] = (byte)(0xe0 | (c >> 12));
+                        buffer[count++] = (byte)(0x80 | ((c >> 6) & 0x3f));
+                        buffer[count++] = (byte)(0x80 | (c & 0x3f));
+                    }
+                }
+                this.out.write(buffer, 0, count);
+
+                if (this.autoFlush && text.indexOf('\n') >= 0) {
+                    this.out.flush();
+                }
+            }
+            catch (InterruptedIOException iioe) {
+                Thread.currentThread().interrupt();
+            }
+            catch (IOException ioe) {
+                setError();
+            }
         }
     }
 
     // Raw, non flushing versions of the print(*) methods.
 
     public void rawPrint(boolean b) {
-        super.print(Boolean.toString(b));
+        writeText(Boolean.toString(b));
     }
 
     public void rawPrint(char c) {
-        super.print(Character.toString(c));
+        writeText(Character.toString(c));
     }
 
     public void rawPrint(int i) {
-        super.print(Integer.toString(i));
+        writeText(Integer.toString(i));
     }
 
     public void rawPrint(long l) {
-        super.print(Long.toString(l));
+        writeText(Long.toString(l));
     }
 
     public void rawPrint(float f) {
-        super.print(Float.toString(f));
+        writeText(Float.toString(f));
     }
 
     public void rawPrint(double d) {
-        super.print(Double.toString(d));
+        writeText(Double.toString(d));
     }
 
     public void rawPrint(char[] s) {
-        for (char c : s) {
-            super.print(Character.toString(c));
-        }
+        writeText(new String(s));
     }
 
     public void rawPrint(String s) {
-        super.print(s);
+        writeText(String.valueOf(s));
     }
 
     public void rawPrint(Object obj) {
-        super.print(obj.toString());
+        writeText(obj.toString());
     }
 
     //
@@ -545,13 +859,26 @@ public class CodeGeneratorOutputStream extends PrintStream {
     @Override
     public void print(String s) {
         flushAllDelayedPrints();
-        super.print(s);
+        writeText(String.valueOf(s));
+    }
+
+    @Override
+    public void println() {
+        writeText(LINE_SEPARATOR);
+    }
+
+    @Override
+    public void println(String s) {
+        synchronized (this) {
+            print(s);
+            writeText(LINE_SEPARATOR);
+        }
     }
 
     @Override
     public void print(Object obj) {
         flushAllDelayedPrints();
-        super.print(obj);
+        writeText(String.valueOf(obj));
     }
 
     @Override
@@ -634,6 +961,13 @@ public class CodeGeneratorOutputStream extends PrintStream {
         // Methods
         //
 
+        /**
+         * Makes the next rendering "" again.
+         */
+        public void reset() {
+            this.value = "";
+        }
+
         /**
          * Renders the comma value.
          */
@@ -674,6 +1008,15 @@ public class CodeGeneratorOutputStream extends PrintStream {
         // Methods
         //
 
+        /**
+         * Sets a new value to render the next time.
+         *
+         * @param value The new value.
+         */
+        public void reset(String value) {
+            this.value = value;
+        }
+
         /**
          * Renders the first only value.
          */
@@ -684,4 +1027,140 @@ public class CodeGeneratorOutputStream extends PrintStream {
             return str;
         }
     }
+
+    /**
+     * The state of the stream put aside during an insert.
+     */
+    private class InsertState {
+        //
+        // Private Members
+        //
+
+        /** The insertion point written to before the insert or null for the end. */
+        private String selected = null;
+
+        private int indentLevel = 0;
+        private String[] delayedPrintQueue = null;
+        private boolean[] delayedPrintNewline = null;
+        private int delayedPrintHead = 0;
+        private int delayedPrintCount = 0;
+        private Comma comma = null;
+        private FirstOnly firstOnly = null;
+        private Object lastClause = null;
+
+        //
+        // Constructors
+        //
+
+        /**
+         * Creates a new InsertState, putting aside the current state of the stream and giving it a fresh state.
+         *
+         * @param selected The insertion point written to before the insert or null for the end.
+         */
+        public InsertState(String selected) {
+            CodeGeneratorOutputStream stream = CodeGeneratorOutputStream.this;
+            this.selected = selected;
+            this.indentLevel = stream.indentLevel;
+            this.delayedPrintQueue = stream.delayedPrintQueue;
+            this.delayedPrintNewline = stream.delayedPrintNewline;
+            this.delayedPrintHead = stream.delayedPrintHead;
+            this.delayedPrintCount = stream.delayedPrintCount;
+            this.comma = stream.comma;
+            this.firstOnly = stream.firstOnly;
+            this.lastClause = stream.lastClause;
+
+            stream.delayedPrintQueue = new String[4];
+            stream.delayedPrintNewline = new boolean[4];
+            stream.delayedPrintHead = 0;
+            stream.delayedPrintCount = 0;
+            stream.comma = null;
+            stream.firstOnly = null;
+            stream.lastClause = NO_CLAUSE;
+        }
+
+        //
+        // Methods
+        //
+
+        /**
+         * Gives the stream back the state put aside.
+         */
+        public void restore() {
+            CodeGeneratorOutputStream stream = CodeGeneratorOutputStream.this;
+            stream.indentLevel = this.indentLevel;
+            stream.delayedPrintQueue = this.delayedPrintQueue;
+            stream.delayedPrintNewline = this.delayedPrintNewline;
+            stream.delayedPrintHead = this.delayedPrintHead;
+            stream.delayedPrintCount = this.delayedPrintCount;
+            stream.comma = this.comma;
+            stream.firstOnly = this.firstOnly;
+            stream.lastClause = this.lastClause;
+        }
+    }
+
+    /**
+     * Finds the caller with java.lang.StackWalker. That is only available from Java 9 so it is called through
+     * reflection. As a Function it is passed to StackWalker.walk(...) and receives the stream of stack frames.
+     */
+    private static class CallerWalker implements Function<Stream<Object>, String> {
+        //
+        // Private Members
+        //
+
+        /** The StackWalker instance. */
+        private Object walker = null;
+
+        /** StackWalker.walk(Function). */
+        private Method walk = null;
+
+        /** StackWalker.StackFrame.getClassName(). */
+        private Method getClassName = null;
+
+        /** StackWalker.StackFrame.getMethodName(). */
+        private Method getMethodName = null;
+
+        //
+        // Methods
+        //
+
+        /**
+         * Returns a new CallerWalker or null if StackWalker is not available.
+         */
+        public static CallerWalker create() {
+            try {
+                Class<?> stackWalkerClass = Class.forName("java.lang.StackWalker");
+                Class<?> stackFrameClass = Class.forName("java.lang.StackWalker$StackFrame");
+
+                CallerWalker callerWalker = new CallerWalker();
+                callerWalker.walker = stackWalkerClass.getMethod("getInstance").invoke(null);
+                callerWalker.walk = stackWalkerClass.getMethod("walk", Function.class);
+                callerWalker.getClassName = stackFrameClass.getMethod("getClassName");
+                callerWalker.getMethodName = stackFrameClass.getMethod("getMethodName");
+
+                return callerWalker;
+            }
+            catch (Exception e) {
+                return null;
+            }
+        }
+
+        @Override
+        public String apply(Stream<Object> frames) {
+            try {
+                Iterator<Object> frameIterator = frames.iterator();
+                while (frameIterator.hasNext()) {
+                    Object frame = frameIterator.next();
+                    String className = (String)this.getClassName.invoke(frame);
+                    if (!className.equals(CodeGeneratorOutputStream.class.getName())) {
+                        return className + "." + this.getMethodName.invoke(frame);
+                    }
+                }
+            }
+            catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+
+            return "";
+        }
+    }
 }
@@ -39,6 +39,11 @@
 package se.natusoft.annotation.processor.simplified.codegen;
 
 import se.natusoft.annotation.processor.simplified.Verbose;
+import se.natusoft.annotation.processor.simplified.log.LogLevel;
+import se.natusoft.annotation.processor.simplified.log.LogSink;
+import se.natusoft.annotation.processor.simplified.log.Logger;
+import se.natusoft.annotation.processor.simplified.monitor.ObservedOutputStream;
+import se.natusoft.annotation.processor.simplified.monitor.ProcessingObserver;
 
 import java.io.ByteArrayOutputStream;
 import java.io.File;
@@ -46,7 +51,16 @@ import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
 import java.io.OutputStream;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.FutureTask;
 import javax.annotation.processing.Filer;
 import javax.lang.model.element.Element;
 import javax.tools.FileObject;
@@ -67,15 +81,47 @@ public class GenerationSupport {
     /** We wrap a Filer instance. */
     private Filer filer = null;
 
-    private Verbose verbose = null;
+    /** Logs what is generated. */
+    private Logger logger = Logger.OFF;
+
+    /** The buffered source streams not yet known to be closed. */
+    private List<OutputStream> bufferedStreams = new ArrayList<OutputStream>();
+
+    /** Runs the renderers submitted with submitRender(...). Null for ForkJoinPool.commonPool(). */
+    private Executor renderExecutor = null;
+
+    /** True when the round has ended and no more renders are accepted. */
+    private boolean roundEnded = false;
+
+    /** Receives render failures. If null they are thrown by commitRenders(). */
+    private RenderFailureReporter renderFailureReporter = null;
+
+    /** The submitted renders not yet committed, in submit order. */
+    private List<RenderJob> renderJobs = new ArrayList<RenderJob>();
+
+    /** Receives the written files or null. */
+    private ProcessingObserver processingObserver = null;
 
     //
     // Constructors
     //
 
-    public GenerationSupport(Filer filer, Verbose verbose) {
+    public GenerationSupport(Filer filer, Logger logger) {
+        this.filer = filer;
+        this.logger = logger;
+    }
+
+    public GenerationSupport(Filer filer, final Verbose verbose) {
         this.filer = filer;
-        this.verbose = verbose;
+        this.logger = new Logger(LogLevel.INFO, new LogSink() {
+            @Override
+            public void write(LogLevel level, String message) {
+                verbose.verbose(message.trim());
+            }
+
+            @Override
+            public void flush() {}
+        });
     }
 
     public GenerationSupport(Filer filer) {
@@ -86,8 +132,25 @@ public class GenerationSupport {
     // Methods
     //
 
-    private void verbose(String text) {
-        this.verbose.verbose(text);
+    /**
+     * Sets the observer to report written files to. SimplifiedAnnotationProcessor sets this when processing
+     * observers are added.
+     *
+     * @param processingObserver The observer or null for none.
+     */
+    public void setProcessingObserver(ProcessingObserver processingObserver) {
+        this.processingObserver = processingObserver;
+    }
+
+    /**
+     * Wraps a stream of a written file so that the file is reported to the processing observer when closed.
+     * Returns the stream as is if there is no processing observer.
+     *
+     * @param out The stream to wrap.
+     * @param name The name of the written file.
+     */
+    private OutputStream observe(OutputStream out, String name) {
+        return this.processingObserver != null ? new ObservedOutputStream(out, name, this.processingObserver) : out;
     }
 
     /**
@@ -106,7 +169,7 @@ public class GenerationSupport {
      * @throws IOException
      */
     public JavaFileObject getWritableJavaFileObjectForToBeCompiledSource(String qualifiedName, Element element) throws IOException {
-        verbose("Producing Java source file: " + qualifiedName);
+        this.logger.info("    Producing Java source file: {}", qualifiedName);
         return this.filer.createSourceFile(qualifiedName, element);
     }
 
@@ -132,7 +195,7 @@ public class GenerationSupport {
     public OutputStream getToBeCompiledSourceFileStream(String qualifiedName, Element element) throws IOException {
         JavaFileObject jfo = getWritableJavaFileObjectForToBeCompiledSource(qualifiedName, element);
         jfo.delete();
-        return jfo.openOutputStream();
+        return observe(jfo.openOutputStream(), jfo.getName());
     }
 
     /**
@@ -145,11 +208,14 @@ public class GenerationSupport {
     public OutputStream getToBeCompiledSourceFileStream(String qualifiedName) throws IOException {
         JavaFileObject jfo = getWritableJavaFileObjectForToBeCompiledSource(qualifiedName);
         jfo.delete();
-        return jfo.openOutputStream();
+        return observe(jfo.openOutputStream(), jfo.getName());
     }
 
     /**
      * Returns a JavaSourceOutputStream for writing Java Source code to be compiled.
+     * <p>
+     * The generated source is buffered in memory and written to the file in one go when the stream is closed.
+     * Streams not closed by the @GenerateSource method are closed when it returns.
      * 
      * @param qualifiedName The fully qualified name of the class to write.
      * @param element An optional Element to associate with this file.
@@ -157,7 +223,11 @@ public class GenerationSupport {
      * @throws IOException
      */
     public JavaSourceOutputStream getToBeCompiledJavaSourceOutputStream(String qualifiedName, Element element) throws IOException {
-        return new JavaSourceOutputStream(getToBeCompiledSourceFileStream(qualifiedName, element));
+        JavaFileObject jfo = getWritableJavaFileObjectForToBeCompiledSource(qualifiedName, element);
+        jfo.delete();
+        BufferedFileObjectOutputStream bufferedStream = new BufferedFileObjectOutputStream(jfo, this.processingObserver);
+        this.bufferedStreams.add(bufferedStream);
+        return new JavaSourceOutputStream(bufferedStream, false, BufferedFileObjectOutputStream.ENCODING);
     }
 
     /**
@@ -168,7 +238,166 @@ public class GenerationSupport {
      * @throws IOException
      */
     public JavaSourceOutputStream getToBeCompiledJavaSourceOutputStream(String qualifiedName) throws IOException {
-        return new JavaSourceOutputStream(getToBeCompiledSourceFileStream(qualifiedName));
+        return getToBeCompiledJavaSourceOutputStream(qualifiedName, null);
+    }
+
+    /**
+     * Returns a JavaSourceOutputStream for writing Java Source code to be compiled, that writes to a SegmentBuffer.
+     * This supports insertion points, like JavaSourceOutputStream.IMPORTS and JavaSourceOutputStream.FIELDS, so that
+     * imports and fields can be inserted when discovered.
+     * <p>
+     * The generated source is kept in memory and written to the file in one go when the stream is closed.
+     * Streams not closed by the @GenerateSource method are closed when it returns.
+     *
+     * @param qualifiedName The fully qualified name of the class to write.
+     * @param element An optional Element to associate with this file.
+     *
+     * @throws IOException
+     */
+    public JavaSourceOutputStream getToBeCompiledSegmentedJavaSourceOutputStream(String qualifiedName, Element element)
+            throws IOException {
+        JavaFileObject jfo = getWritableJavaFileObjectForToBeCompiledSource(qualifiedName, element);
+        jfo.delete();
+        SegmentBuffer segmentBuffer = new SegmentBuffer(new BufferedFileObjectOutputStream(jfo, this.processingObserver));
+        this.bufferedStreams.add(segmentBuffer);
+        return new JavaSourceOutputStream(segmentBuffer, false, BufferedFileObjectOutputStream.ENCODING);
+    }
+
+    /**
+     * Sets the executor to run renderers submitted with submitRender(...) on. This is ForkJoinPool.commonPool()
+     * by default. On Java 21 and later Executors.newVirtualThreadPerTaskExecutor() can be used.
+     *
+     * @param renderExecutor The executor to use or null for the default.
+     */
+    public void setRenderExecutor(Executor renderExecutor) {
+        this.renderExecutor = renderExecutor;
+    }
+
+    /**
+     * Sets the receiver of render failures. SimplifiedAnnotationProcessor sets one reporting the failures as
+     * compilation failures on the element of the render.
+     *
+     * @param renderFailureReporter The reporter to use or null to have commitRenders() throw the failures.
+     */
+    public void setRenderFailureReporter(RenderFailureReporter renderFailureReporter) {
+        this.renderFailureReporter = renderFailureReporter;
+    }
+
+    /**
+     * Submits a renderer of a Java source file to be compiled. The renderer is run on the render executor,
+     * rendering into memory, and the result is written by commitRenders(). Only creating and writing the source
+     * file is done on the processing thread.
+     * <p>
+     * Since the renderer is run on another thread it must not use Elements, Types or the SAP model wrappers.
+     * Extract the values it needs before submitting it.
+     *
+     * @param qualifiedName The fully qualified name of the class to render.
+     * @param element An optional Element to associate with the file, and to report failures on.
+     * @param renderer The renderer.
+     *
+     * @throws IllegalStateException if the round of this GenerationSupport has ended.
+     */
+    public void submitRender(String qualifiedName, Element element, SourceRenderer renderer) {
+        if (this.roundEnded) {
+            throw new IllegalStateException("Render of " + qualifiedName + " submitted after the end of the round! " +
+                    "It would never be written.");
+        }
+        RenderJob renderJob = new RenderJob(qualifiedName, element, renderer);
+        this.renderJobs.add(renderJob);
+        (this.renderExecutor != null ? this.renderExecutor : ForkJoinPool.commonPool()).execute(renderJob.task);
+    }
+
+    /**
+     * Waits for all renders submitted with submitRender(...) and writes their sources, in the order they were
+     * submitted, so the generated files do not depend on which render finishes first. Failed renders are passed
+     * to the render failure reporter. This is called by SimplifiedAnnotationProcessor at the end of each round.
+     *
+     * @throws IOException on failure to write a source, or on a failed render if there is no render failure
+     *                     reporter. All renders are still waited for and the rest written.
+     */
+    public void commitRenders() throws IOException {
+        IOException failure = null;
+        List<RenderJob> renderJobs = this.renderJobs;
+        this.renderJobs = new ArrayList<RenderJob>();
+
+        for (RenderJob renderJob : renderJobs) {
+            ByteArrayOutputStream rendered = null;
+            try {
+                rendered = renderJob.task.get();
+            }
+            catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted waiting for render of " + renderJob.qualifiedName + "!");
+            }
+            catch (ExecutionException ee) {
+                if (this.renderFailureReporter != null) {
+                    this.renderFailureReporter.renderFailed(renderJob.qualifiedName, renderJob.element, ee.getCause());
+                }
+                else {
+                    failure = new IOException("Failed to render " + renderJob.qualifiedName + "! [" +
+                            ee.getCause().getMessage() + "]", ee.getCause());
+                }
+                continue;
+            }
+
+            try {
+                JavaFileObject jfo = getWritableJavaFileObjectForToBeCompiledSource(renderJob.qualifiedName, renderJob.element);
+                jfo.delete();
+                long start = System.nanoTime();
+                // Written as text, so the file gets the source encoding used by the compiler.
+                Writer writer = jfo.openWriter();
+                try {
+                    writer.write(rendered.toString(BufferedFileObjectOutputStream.ENCODING));
+                }
+                finally {
+                    writer.close();
+                }
+                if (this.processingObserver != null) {
+                    byte[] source = rendered.toByteArray();
+                    this.processingObserver.fileWritten(jfo.getName(), source.length,
+                            ObservedOutputStream.countLines(source, 0, source.length), System.nanoTime() - start);
+                }
+            }
+            catch (IOException ioe) {
+                failure = ioe;
+            }
+        }
+
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * Ends the round of this GenerationSupport. Renders submitted after this are rejected, since they would never
+     * be committed. This is called by SimplifiedAnnotationProcessor after the renders of the round are committed.
+     */
+    public void endRound() {
+        this.roundEnded = true;
+    }
+
+    /**
+     * Writes all JavaSourceOutputStreams returned by getToBeCompiledJavaSourceOutputStream(...) that have not
+     * been closed. These are buffered in memory and only written to file when closed. This is called by
+     * SimplifiedAnnotationProcessor at the end of each round.
+     *
+     * @throws IOException on failure to write a file. All streams are still closed.
+     */
+    public void closeOpenSourceStreams() throws IOException {
+        IOException failure = null;
+        for (OutputStream bufferedStream : this.bufferedStreams) {
+            try {
+                bufferedStream.close();
+            }
+            catch (IOException ioe) {
+                failure = ioe;
+            }
+        }
+        this.bufferedStreams.clear();
+
+        if (failure != null) {
+            throw failure;
+        }
     }
 
     /**
@@ -181,7 +410,7 @@ public class GenerationSupport {
      * @throws IOException
      */
     public FileObject getWritableResourceFileObject(String pkg, String name, Element element) throws IOException {
-        verbose("    Producing resource file: " + pkg + "." + name);
+        this.logger.info("        Producing resource file: {}.{}", pkg, name);
         return this.filer.createResource(StandardLocation.SOURCE_OUTPUT, pkg, name, element);
     }
 
@@ -252,7 +481,7 @@ public class GenerationSupport {
     public OutputStream getWritableResourceFileStream(String pkg, String name, Element element) throws IOException {
         FileObject fo = getWritableResourceFileObject(pkg, name, element);
         fo.delete();
-        return fo.openOutputStream();
+        return observe(fo.openOutputStream(), fo.getName());
     }
 
     /**
@@ -288,7 +517,7 @@ public class GenerationSupport {
     public OutputStream getWritableResourceFileStream(String pkg, String name) throws IOException {
         FileObject fo = getWritableResourceFileObject(pkg, name);
         fo.delete();
-        return fo.openOutputStream();
+        return observe(fo.openOutputStream(), fo.getName());
     }
 
     /**
@@ -320,7 +549,7 @@ public class GenerationSupport {
      * @throws IOException
      */
     public OutputStream getWritableMavenResourceFileStream(String path) throws IOException {
-        verbose("Producing maven resource file: " + path);
+        this.logger.info("    Producing maven resource file: {}", path);
         int ix = path.lastIndexOf(File.separatorChar);
         String directory = null;
         String name = null;
@@ -336,8 +565,8 @@ public class GenerationSupport {
         File resourceFile = new File(rootPath, directory);
         resourceFile.mkdirs();
         resourceFile = new File(resourceFile, name);
-        System.out.println("Resource file: [" + resourceFile + "]");
-        return new FileOutputStream(resourceFile);
+        this.logger.debug("    Resource file: [{}]", resourceFile);
+        return observe(new FileOutputStream(resourceFile), resourceFile.getPath());
     }
 
     /**
@@ -349,7 +578,7 @@ public class GenerationSupport {
      * @throws IOException
      */
     public OutputStream getWritableCurrentDirRelativeResourceFileStream(String path) throws IOException {
-        verbose("Producing current directory relative resource file: " + path);
+        this.logger.info("    Producing current directory relative resource file: {}", path);
         int ix = path.lastIndexOf(File.separatorChar);
         String directory = null;
         String name = null;
@@ -368,8 +597,8 @@ public class GenerationSupport {
         File resourceFile = new File(directory);
         resourceFile.mkdirs();
         resourceFile = new File(resourceFile, name);
-        System.out.println("Resource file: [" + resourceFile + "]");
-        return new FileOutputStream(resourceFile);
+        this.logger.debug("    Resource file: [{}]", resourceFile);
+        return observe(new FileOutputStream(resourceFile), resourceFile.getPath());
 
     }
 
@@ -383,7 +612,7 @@ public class GenerationSupport {
      * @param resourceRelPath
      */
     public ResourceReference getBestEffortResourceReference(String resourceRelPath, String[] tryFirstRootPaths) {
-        verbose("Producing best effort resource file: " + resourceRelPath);
+        this.logger.info("    Producing best effort resource file: {}", resourceRelPath);
         ResourceReference rr = null;
         File resourceRoot = null;
 
@@ -425,6 +654,52 @@ public class GenerationSupport {
     //
     // Inner Classes
     //
+
+    /**
+     * A submitted render.
+     */
+    private static class RenderJob {
+        //
+        // Private Members
+        //
+
+        /** The fully qualified name of the class rendered. */
+        private String qualifiedName = null;
+
+        /** The element associated with the file, or null. */
+        private Element element = null;
+
+        /** The render, producing the rendered source as UTF-8. */
+        private FutureTask<ByteArrayOutputStream> task = null;
+
+        //
+        // Constructors
+        //
+
+        /**
+         * Creates a new RenderJob.
+         *
+         * @param qualifiedName The fully qualified name of the class rendered.
+         * @param element The element associated with the file, or null.
+         * @param renderer The renderer.
+         */
+        public RenderJob(String qualifiedName, Element element, final SourceRenderer renderer) {
+            this.qualifiedName = qualifiedName;
+            this.element = element;
+            this.task = new FutureTask<ByteArrayOutputStream>(new Callable<ByteArrayOutputStream>() {
+                @Override
+                public ByteArrayOutputStream call() throws Exception {
+                    ByteArrayOutputStream rendered = new ByteArrayOutputStream(8192);
+                    JavaSourceOutputStream jos = new JavaSourceOutputStream(new SegmentBuffer(rendered), false,
+                            BufferedFileObjectOutputStream.ENCODING);
+                    renderer.render(jos);
+                    jos.close();
+
+                    return rendered;
+                }
+            });
+        }
+    }
     
     /**
      * This holds a reference to a resource file that can be both read and written.
@@ -39,9 +39,11 @@
 package se.natusoft.annotation.processor.simplified.codegen;
 
 import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
 import java.text.SimpleDateFormat;
 import java.util.Date;
-import java.util.StringTokenizer;
+import java.util.HashSet;
+import java.util.Set;
 
 /**
  * This output stream class simplifies writing Java source code. This is best shown with an example:
@@ -201,12 +203,70 @@ import java.util.StringTokenizer;
  *         }
  *     }
  * </pre>
+ * <p>
+ * When writing to a SegmentBuffer, imports and fields discovered late can be inserted where they belong. Create
+ * the insertion points with insertionPoint(IMPORTS) after the package line and insertionPoint(FIELDS) after the
+ * class has begun, and then insert with insertImport(...) and insertField(...) at any time before close:
+ * <pre>
+ *     JavaSourceOutputStream jos = new JavaSourceOutputStream(new SegmentBuffer(out));
+ *     jos.packageLine("jsos.example");
+ *     jos.emptyLine();
+ *     jos.insertionPoint(JavaSourceOutputStream.IMPORTS);
+ *     jos.emptyLine();
+ *     jos.begClass("public", "", "MyClass");
+ *     jos.emptyLine();
+ *     jos.insertionPoint(JavaSourceOutputStream.FIELDS);
+ *     ...
+ *     jos.insertImport("java.util.List");
+ *     jos.insertField("private", "List&lt;String&gt;", "names", null);
+ * </pre>
  */
 public class JavaSourceOutputStream extends CodeGeneratorOutputStream {
+    //
+    // Constants
+    //
+
+    /** The onFirst() clause of implementsInterface(). */
+    private static final String IMPLEMENTS_CLAUSE = "implements";
+
+    /** The onFirst() clause of methodException(). */
+    private static final String THROWS_CLAUSE = "throws";
+
+    /** The name of the insertion point for imports used by insertImport(...). */
+    public static final String IMPORTS = "imports";
+
+    /** The name of an insertion point before the class, for late class javadoc and annotations. */
+    public static final String CLASS_HEADER = "classHeader";
+
+    /** The name of the insertion point for fields used by insertField(...). */
+    public static final String FIELDS = "fields";
+
     //
     // Private Members
     //
 
+    /** The imports written so far, created on first import. */
+    private Set<String> imports = null;
+
+    /** Begins the implements list on the first implementsInterface(). */
+    private Runnable beginImplements = new Runnable() {
+        @Override
+        public void run() {
+            rawPrint(" implements ");
+            newComma();
+        }
+    };
+
+    /** Ends the argument list and begins the throws list on the first methodException(). */
+    private Runnable beginThrows = new Runnable() {
+        @Override
+        public void run() {
+            flushAndRemoveFirstDelayedPrint();
+            rawPrint(" throws ");
+            newComma();
+        }
+    };
+
     //
     // Constructors
     //
@@ -220,6 +280,19 @@ public class JavaSourceOutputStream extends CodeGeneratorOutputStream {
         super(os);
     }
 
+    /**
+     * Creates a new JavaSourceOutputStream.
+     *
+     * @param os The OutputStream to write to.
+     * @param autoFlush If true the OutputStream is flushed after each line.
+     * @param encoding The character encoding to write text with.
+     *
+     * @throws UnsupportedEncodingException if the encoding is not supported.
+     */
+    public JavaSourceOutputStream(OutputStream os, boolean autoFlush, String encoding) throws UnsupportedEncodingException {
+        super(os, autoFlush, encoding);
+    }
+
     //
     // Methods
     //
@@ -326,11 +399,34 @@ public class JavaSourceOutputStream extends CodeGeneratorOutputStream {
      * @param importSpec The import without the "import" keyword and the ending semicolon.
      */
     public void importLine(String importSpec) {
+        if (this.imports == null) {
+            this.imports = new HashSet<String>();
+        }
+        this.imports.add(importSpec);
+
         print("import ");
         print(importSpec);
         println(";");
     }
 
+    /**
+     * Inserts an "import" line at the IMPORTS insertion point, unless the same import has already been written.
+     *
+     * @param importSpec The import without the "import" keyword and the ending semicolon.
+     *
+     * @throws IllegalStateException if not writing to a SegmentBuffer.
+     * @throws IllegalArgumentException if there is no IMPORTS insertion point.
+     */
+    public void insertImport(String importSpec) {
+        if (this.imports != null && this.imports.contains(importSpec)) {
+            return;
+        }
+
+        begInsert(IMPORTS);
+        importLine(importSpec);
+        endInsert();
+    }
+
     /**
      * Writes the @Generated annotation.
      *
@@ -358,13 +454,9 @@ public class JavaSourceOutputStream extends CodeGeneratorOutputStream {
             print("(");
             String comma = "";
             for (String param : annParams) {
-                StringTokenizer tokenizer = new StringTokenizer(param, "=");
-                String name = tokenizer.nextToken();
-                String value = tokenizer.nextToken();
+                // The parameter is already in the format "name=value".
                 print(comma);
-                print(name);
-                print("=");
-                print(value);
+                print(param);
                 comma = ", ";
             }
             print(")");
@@ -433,13 +525,7 @@ public class JavaSourceOutputStream extends CodeGeneratorOutputStream {
      * @param implementsInterface The implemented interface to print.
      */
     public void implementsInterface(String implementsInterface) {
-        onFirst(new Runnable() {
-            @Override
-            public void run() {
-                rawPrint(" implements ");
-                newComma();
-            }
-        });
+        onFirst(IMPLEMENTS_CLAUSE, this.beginImplements);
         printComma();
         rawPrint(implementsInterface);
     }
@@ -512,14 +598,7 @@ public class JavaSourceOutputStream extends CodeGeneratorOutputStream {
      * @param exception
      */
     public void methodException(String exception) {
-        onFirst(new Runnable() {
-            @Override
-           public void run() {
-               flushAndRemoveFirstDelayedPrint();
-               rawPrint(" throws ");
-               newComma();
-           }
-        });
+        onFirst(THROWS_CLAUSE, this.beginThrows);
         printComma();
         rawPrint(exception);
     }
@@ -557,11 +636,29 @@ public class JavaSourceOutputStream extends CodeGeneratorOutputStream {
         print(" ");
         print(name);
         if (value != null) {
-            print(" = " + value);
+            print(" = ");
+            print(value);
         }
         println(";");
     }
 
+    /**
+     * Inserts a field at the FIELDS insertion point.
+     *
+     * @param access The access of the field.
+     * @param type The type of the field.
+     * @param name The name of the field.
+     * @param value A default value or null for none.
+     *
+     * @throws IllegalStateException if not writing to a SegmentBuffer.
+     * @throws IllegalArgumentException if there is no FIELDS insertion point.
+     */
+    public void insertField(String access, String type, String name, String value) {
+        begInsert(FIELDS);
+        field(access, type, name, value);
+        endInsert();
+    }
+
     /**
      * Writes a field.
      *
@@ -0,0 +1,335 @@
+/*
+ *
+ * PROJECT
+ *     Name
+ *         SimplifiedAnnotationProcessor
+ *
+ *     Code Version
+ *         1.1
+ *
+ *     Description
+ *         An abstract annotation processor base class that simplifies the annotation
+ *         processing, but also limits it slightly. It is however good enough for most
+ *         cases and makes things a bit easier and clearer.
+ *
+ * COPYRIGHTS
+ *     Copyright (C) 2013 by Natusoft AB All rights reserved.
+ *
+ * LICENSE
+ *     Apache 2.0 (Open Source)
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ * AUTHORS
+ *     tommy ()
+ *         Changes:
+ *         2026-10-16: Created!
+ *
+ */
+package se.natusoft.annotation.processor.simplified.codegen;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An OutputStream that keeps what is written to it as a sequence of segments, and that can have named insertion
+ * points written to in any order. This makes it possible to for example write the imports or fields of a class
+ * when they are discovered, after the rest of the class has been written.
+ * <p>
+ * An insertion point is created at the current write position with insertionPoint(name). Writing continues
+ * after it. select(name) makes the following writes go to the insertion point, after what has already been
+ * written there, and selectEnd() makes them go to the end again.
+ * <p>
+ * Segments hold their bytes in chunks that are never copied. Everything is written to the target stream, in
+ * segment order, on close. flush() does nothing.
+ */
+public class SegmentBuffer extends OutputStream {
+    //
+    // Constants
+    //
+
+    /** The size of the first chunk of a segment. */
+    private static final int MIN_CHUNK_SIZE = 256;
+
+    /** The max size of a chunk. */
+    private static final int MAX_CHUNK_SIZE = 64 * 1024;
+
+    //
+    // Private Members
+    //
+
+    /** The stream to write to on close. */
+    private OutputStream target = null;
+
+    /** The first segment. */
+    private Segment first = null;
+
+    /** The last segment, where writes go when no insertion point is selected. */
+    private Segment end = null;
+
+    /** The segment written to. */
+    private Segment current = null;
+
+    /** The name of the selected insertion point or null if writing at the end. */
+    private String selected = null;
+
+    /** The segment written to by each insertion point. */
+    private Map<String, Segment> insertionPoints = new HashMap<String, Segment>();
+
+    /** True when closed. */
+    private boolean closed = false;
+
+    //
+    // Constructors
+    //
+
+    /**
+     * Creates a new SegmentBuffer.
+     *
+     * @param target The stream to write to on close.
+     */
+    public SegmentBuffer(OutputStream target) {
+        this.target = target;
+        this.first = new Segment();
+        this.end = this.first;
+        this.current = this.first;
+    }
+
+    //
+    // Methods
+    //
+
+    /**
+     * Creates an insertion point at the current write position. Writing continues after the insertion point.
+     * An insertion point created while writing to another insertion point is placed after what has been written
+     * there so far, and later writes to that other insertion point go after the new insertion point.
+     *
+     * @param name The name of the insertion point.
+     *
+     * @throws IllegalArgumentException if the insertion point already exists.
+     */
+    public void insertionPoint(String name) {
+        if (this.insertionPoints.containsKey(name)) {
+            throw new IllegalArgumentException("Insertion point '" + name + "' already exists!");
+        }
+
+        Segment point = insertAfter(this.current);
+        Segment continuation = insertAfter(point);
+        if (this.current == this.end) {
+            this.end = continuation;
+        }
+        if (this.selected != null) {
+            this.insertionPoints.put(this.selected, continuation);
+        }
+        this.insertionPoints.put(name, point);
+        this.current = continuation;
+    }
+
+    /**
+     * Returns true if the specified insertion point exists.
+     *
+     * @param name The name of the insertion point.
+     */
+    public boolean hasInsertionPoint(String name) {
+        return this.insertionPoints.containsKey(name);
+    }
+
+    /**
+     * Makes the following writes go to the specified insertion point.
+     *
+     * @param name The name of the insertion point.
+     *
+     * @throws IllegalArgumentException if the insertion point does not exist.
+     */
+    public void select(String name) {
+        Segment point = this.insertionPoints.get(name);
+        if (point == null) {
+            throw new IllegalArgumentException("Insertion point '" + name + "' does not exist!");
+        }
+        this.current = point;
+        this.selected = name;
+    }
+
+    /**
+     * Makes the following writes go to the end.
+     */
+    public void selectEnd() {
+        this.current = this.end;
+        this.selected = null;
+    }
+
+    /**
+     * Returns the name of the selected insertion point or null if writing at the end.
+     */
+    public String getSelected() {
+        return this.selected;
+    }
+
+    /**
+     * Inserts a new segment after a segment.
+     *
+     * @param segment The segment to insert after.
+     */
+    private static Segment insertAfter(Segment segment) {
+        Segment inserted = new Segment();
+        inserted.next = segment.next;
+        segment.next = inserted;
+
+        return inserted;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        ensureOpen();
+        this.current.write(b);
+    }
+
+    @Override
+    public void write(byte[] bytes, int offset, int length) throws IOException {
+        ensureOpen();
+        this.current.write(bytes, offset, length);
+    }
+
+    /**
+     * Does nothing. Everything is written on close.
+     */
+    @Override
+    public void flush() {}
+
+    /**
+     * Writes all segments in order to the target stream and closes it. Closing an already closed buffer does
+     * nothing.
+     *
+     * @throws IOException on failure to write.
+     */
+    @Override
+    public void close() throws IOException {
+        if (this.closed) {
+            return;
+        }
+        this.closed = true;
+
+        try {
+            for (Segment segment = this.first; segment != null; segment = segment.next) {
+                segment.writeTo(this.target);
+            }
+        }
+        finally {
+            this.first = null;
+            this.end = null;
+            this.current = null;
+            this.insertionPoints.clear();
+            this.target.close();
+        }
+    }
+
+    /**
+     * @throws IOException if closed.
+     */
+    private void ensureOpen() throws IOException {
+        if (this.closed) {
+            throw new IOException("SegmentBuffer is closed!");
+        }
+    }
+
+    //
+    // Inner Classes
+    //
+
+    /**
+     * A sequence of bytes kept in chunks.
+     */
+    private static class Segment {
+        //
+        // Private Members
+        //
+
+        /** The chunks. All but the last are full. */
+        private List<byte[]> chunks = new ArrayList<byte[]>(2);
+
+        /** The number of bytes in the last chunk. */
+        private int count = 0;
+
+        /** The total number of bytes. */
+        private int size = 0;
+
+        /** The next segment. */
+        private Segment next = null;
+
+        //
+        // Methods
+        //
+
+        /**
+         * Returns the last chunk with room for at least one more byte.
+         */
+        private byte[] chunk() {
+            byte[] chunk = this.chunks.isEmpty() ? null : this.chunks.get(this.chunks.size() - 1);
+            if (chunk == null || this.count == chunk.length) {
+                // Chunks grow with the segment, so a large segment has few chunks.
+                chunk = new byte[Math.min(Math.max(this.size, MIN_CHUNK_SIZE), MAX_CHUNK_SIZE)];
+                this.chunks.add(chunk);
+                this.count = 0;
+            }
+
+            return chunk;
+        }
+
+        /**
+         * Appends a byte.
+         *
+         * @param b The byte to append.
+         */
+        public void write(int b) {
+            chunk()[this.count++] = (byte)b;
+            ++this.size;
+        }
+
+        /**
+         * Appends bytes.
+         *
+         * @param bytes The bytes to append from.
+         * @param offset The offset of the first byte to append.
+         * @param length The number of bytes to append.
+         */
+        public void write(byte[] bytes, int offset, int length) {
+            while (length > 0) {
+                byte[] chunk = chunk();
+                int part = Math.min(length, chunk.length - this.count);
+                System.arraycopy(bytes, offset, chunk, this.count, part);
+                this.count += part;
+                this.size += part;
+                offset += part;
+                length -= part;
+            }
+        }
+
+        /**
+         * Writes the bytes of the segment to a stream.
+         *
+         * @param out The stream to write to.
+         *
+         * @throws IOException on failure to write.
+         */
+        public void writeTo(OutputStream out) throws IOException {
+            for (int ix = 0; ix < this.chunks.size(); ix++) {
+                byte[] chunk = this.chunks.get(ix);
+                out.write(chunk, 0, ix == this.chunks.size() - 1 ? this.count : chunk.length);
+            }
+        }
+    }
+}
@@ -0,0 +1,57 @@
+/*
+ *
+ * PROJECT
+ *     Name
+ *         SimplifiedAnnotationProcessor
+ *
+ *     Code Version
+ *         1.1
+ *
+ *     Description
+ *         An abstract annotation processor base class that simplifies the annotation
+ *         processing, but also limits it slightly. It is however good enough for most
+ *         cases and makes things a bit easier and clearer.
+ *
+ * COPYRIGHTS
+ *     Copyright (C) 2013 by Natusoft AB All rights reserved.
+ *
+ * LICENSE
+ *     Apache 2.0 (Open Source)
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ * AUTHORS
+ *     tommy ()
+ *         Changes:
+ *         2026-10-16: Created!
+ *
+ */
+package se.natusoft.annotation.processor.simplified.codegen;
+
+/**
+ * Renders one generated source file. Renderers passed to GenerationSupport.submitRender(...) are run on another
+ * thread than the processing thread, and must therefore only use values extracted from the model before being
+ * submitted, never Elements, Types or the SAP model wrappers.
+ */
+public interface SourceRenderer {
+
+    /**
+     * Renders the source.
+     *
+     * @param jos The stream to render to. This writes to a SegmentBuffer, so insertion points can be used. It
+     *            does not have to be closed.
+     *
+     * @throws Exception Any failure to render, which will be reported as a compilation failure.
+     */
+    void render(JavaSourceOutputStream jos) throws Exception;
+}
@@ -0,0 +1,201 @@
+/*
+ *
+ * PROJECT
+ *     Name
+ *         SimplifiedAnnotationProcessor
+ *
+ *     Code Version
+ *         1.1
+ *
+ *     Description
+ *         An abstract annotation processor base class that simplifies the annotation
+ *         processing, but also limits it slightly. It is however good enough for most
+ *         cases and makes things a bit easier and clearer.
+ *
+ * COPYRIGHTS
+ *     Copyright (C) 2013 by Natusoft AB All rights reserved.
+ *
+ * LICENSE
+ *     Apache 2.0 (Open Source)
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ * AUTHORS
+ *     tommy ()
+ *         Changes:
+ *         2026-10-16: Created!
+ *
+ */
+package se.natusoft.annotation.processor.simplified.codegen;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * A text with variable references, parsed once into literal and variable segments. Variable references are in
+ * the form of ${name}, ${get:name} which takes the value and converts it to a getter including (), or ${set:name}
+ * which takes the value and converts it to a setter <b>not</b> including (). References to variables not in the
+ * variable context are left as is.
+ * <p>
+ * Compiled templates are cached by text, so the same text is only parsed once.
+ */
+public class VariableTemplate {
+    //
+    // Constants
+    //
+
+    /** The max number of cached templates. */
+    private static final int MAX_CACHED_TEMPLATES = 512;
+
+    /** A ${name} reference. */
+    private static final int PLAIN = 0;
+
+    /** A ${get:name} reference. */
+    private static final int GETTER = 1;
+
+    /** A ${set:name} reference. */
+    private static final int SETTER = 2;
+
+    //
+    // Private Members
+    //
+
+    /** The literal texts. There is one literal before each variable and one last, possibly empty. */
+    private String[] literals = null;
+
+    /** The names of the referenced variables. */
+    private String[] names = null;
+
+    /** The kinds of the variable references. */
+    private int[] kinds = null;
+
+    /** The variable references as written in the text, used for variables not in the context. */
+    private String[] references = null;
+
+    /** The compiled templates keyed by text. The least recently used is dropped when full. */
+    private static Map<String, VariableTemplate> cache = new LinkedHashMap<String, VariableTemplate>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, VariableTemplate> eldest) {
+            return size() > MAX_CACHED_TEMPLATES;
+        }
+    };
+
+    //
+    // Constructors
+    //
+
+    /**
+     * Creates a new VariableTemplate by parsing a text.
+     *
+     * @param text The text to parse.
+     */
+    private VariableTemplate(String text) {
+        List<String> literals = new ArrayList<String>();
+        List<String> names = new ArrayList<String>();
+        List<Integer> kinds = new ArrayList<Integer>();
+        List<String> references = new ArrayList<String>();
+
+        int start = 0;
+        int refStart = text.indexOf("${");
+        while (refStart >= 0) {
+            int refEnd = text.indexOf('}', refStart + 2);
+            if (refEnd < 0) {
+                break;
+            }
+
+            String name = text.substring(refStart + 2, refEnd);
+            int kind = PLAIN;
+            if (name.startsWith("get:")) {
+                kind = GETTER;
+                name = name.substring(4);
+            }
+            else if (name.startsWith("set:")) {
+                kind = SETTER;
+                name = name.substring(4);
+            }
+
+            literals.add(text.substring(start, refStart));
+            names.add(name);
+            kinds.add(kind);
+            references.add(text.substring(refStart, refEnd + 1));
+
+            start = refEnd + 1;
+            refStart = text.indexOf("${", start);
+        }
+        literals.add(text.substring(start));
+
+        this.literals = literals.toArray(new String[literals.size()]);
+        this.names = names.toArray(new String[names.size()]);
+        this.references = references.toArray(new String[references.size()]);
+        this.kinds = new int[kinds.size()];
+        for (int ix = 0; ix < this.kinds.length; ix++) {
+            this.kinds[ix] = kinds.get(ix);
+        }
+    }
+
+    //
+    // Methods
+    //
+
+    /**
+     * Returns the compiled template for a text.
+     *
+     * @param text The text to get template for.
+     */
+    public static VariableTemplate compile(String text) {
+        synchronized (cache) {
+            VariableTemplate template = cache.get(text);
+            if (template == null) {
+                template = new VariableTemplate(text);
+                cache.put(text, template);
+            }
+
+            return template;
+        }
+    }
+
+    /**
+     * Writes the template with its variables expanded from the variable context to a code generator stream.
+     * This uses rawPrint(...) and thus does not flush delayed prints.
+     *
+     * @param varContext The variables with their values.
+     * @param out The stream to write to.
+     */
+    public void render(Properties varContext, CodeGeneratorOutputStream out) {
+        for (int ix = 0; ix < this.names.length; ix++) {
+            out.rawPrint(this.literals[ix]);
+
+            String value = varContext.getProperty(this.names[ix]);
+            if (value == null) {
+                out.rawPrint(this.references[ix]);
+            }
+            else if (this.kinds[ix] == PLAIN) {
+                out.rawPrint(value);
+            }
+            else {
+                out.rawPrint(this.kinds[ix] == GETTER ? "get" : "set");
+                if (value.length() > 0) {
+                    out.rawPrint(Character.toUpperCase(value.charAt(0)));
+                    out.rawPrint(value.substring(1));
+                }
+                if (this.kinds[ix] == GETTER) {
+                    out.rawPrint("()");
+                }
+            }
+        }
+        out.rawPrint(this.literals[this.names.length]);
+    }
+}
@@ -0,0 +1,362 @@
+/*
+ *
+ * PROJECT
+ *     Name
+ *         SimplifiedAnnotationProcessor
+ *
+ *     Code Version
+ *         1.1
+ *
+ *     Description
+ *         An abstract annotation processor base class that simplifies the annotation
+ *         processing, but also limits it slightly. It is however good enough for most
+ *         cases and makes things a bit easier and clearer.
+ *
+ * COPYRIGHTS
+ *     Copyright (C) 2013 by Natusoft AB All rights reserved.
+ *
+ * LICENSE
+ *     Apache 2.0 (Open Source)
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ * AUTHORS
+ *     tommy ()
+ *         Changes:
+ *         2026-10-16: Created!
+ *
+ */
+package se.natusoft.annotation.processor.simplified.codegen.template;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A reference to a value in a template, like "${type.simpleName}". The first name of the path is a variable
+ * in the TemplateContext and each following name is a property of the previous value. A property "name" is
+ * read with a public getName(), isName() or name() method, or with get("name") for a Map. If the class of the
+ * value is not public, like the read only lists of Collections.unmodifiableList(...), or is in a package its
+ * module does not export, like the javac implementations of javax.lang.model, the method is called through a
+ * public superclass or interface declaring it.
+ * <p>
+ * The methods found are kept per class with a ClassValue, and not by the expression. Templates are shared by
+ * the whole JVM, so this way they don't keep the classes of rendered values, and their loaders, alive.
+ */
+public class Expression {
+    //
+    // Inner Types
+    //
+
+    /**
+     * How the value is written.
+     */
+    public enum Kind {
+        /** ${path} - The value as is. */
+        VALUE,
+
+        /** ${get:path} - The value converted to a getter call: "getValue()". */
+        GETTER,
+
+        /** ${set:path} - The value converted to a setter name: "setValue". */
+        SETTER
+    }
+
+    //
+    // Private Members
+    //
+
+    /** The expression as written in the template. */
+    private String text = null;
+
+    /** The variable name followed by the property names. */
+    private String[] path = null;
+
+    /** How the value is written. */
+    private Kind kind = null;
+
+    /** The property read methods found per class, keyed by property name. */
+    private static final ClassValue<Map<String, Method>> readMethods = new ClassValue<Map<String, Method>>() {
+        @Override
+        protected Map<String, Method> computeValue(Class<?> type) {
+            return new ConcurrentHashMap<String, Method>();
+        }
+    };
+
+    /** Class.getModule() on Java 9 and later. */
+    private static final Method GET_MODULE = getMethod(Class.class, "getModule");
+
+    /** Module.isExported(String) on Java 9 and later. */
+    private static final Method IS_EXPORTED = GET_MODULE != null ?
+            getMethod(GET_MODULE.getReturnType(), "isExported", String.class) : null;
+
+    //
+    // Constructors
+    //
+
+    /**
+     * Creates a new Expression.
+     *
+     * @param text The expression as written in the template.
+     * @param path The variable name followed by the property names.
+     * @param kind How the value is written.
+     */
+    public Expression(String text, String[] path, Kind kind) {
+        this.text = text;
+        this.path = path;
+        this.kind = kind;
+    }
+
+    //
+    // Methods
+    //
+
+    /**
+     * Returns a public method or null if there is no such method.
+     *
+     * @param type The class of the method.
+     * @param name The name of the method.
+     * @param parameterTypes The parameter types of the method.
+     */
+    private static Method getMethod(Class<?> type, String name, Class<?>... parameterTypes) {
+        try {
+            return type.getMethod(name, parameterTypes);
+        }
+        catch (NoSuchMethodException nsme) {
+            return null;
+        }
+    }
+
+    /**
+     * Parses a path like "type.simpleName".
+     *
+     * @param text The expression as written in the template.
+     * @param path The path to parse.
+     * @param kind How the value is written.
+     *
+     * @throws TemplateException if the path is not a dot separated list of Java identifiers.
+     */
+    public static Expression parse(String text, String path, Kind kind) throws TemplateException {
+        String[] names = path.trim().split("\\.", -1);
+        for (String name : names) {
+            if (!isIdentifier(name)) {
+                throw new TemplateException("Bad reference '" + text + "'!");
+            }
+        }
+
+        return new Expression(text, names, kind);
+    }
+
+    /**
+     * Returns true if the text is a Java identifier.
+     *
+     * @param text The text to check.
+     */
+    private static boolean isIdentifier(String text) {
+        if (text.length() == 0 || !Character.isJavaIdentifierStart(text.charAt(0))) {
+            return false;
+        }
+        for (int ix = 1; ix < text.length(); ix++) {
+            if (!Character.isJavaIdentifierPart(text.charAt(ix))) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Returns the expression as written in the template.
+     */
+    public String getText() {
+        return this.text;
+    }
+
+    /**
+     * Returns the variable name followed by the property names.
+     */
+    public String[] getPath() {
+        return this.path.clone();
+    }
+
+    /**
+     * Returns how the value is written.
+     */
+    public Kind getKind() {
+        return this.kind;
+    }
+
+    /**
+     * Returns the value of the expression.
+     *
+     * @param context The variables to get the value from.
+     *
+     * @throws TemplateException if a variable or property is not available.
+     */
+    public Object evaluate(TemplateContext context) throws TemplateException {
+        Object value = context.get(this.path[0]);
+        for (int ix = 1; ix < this.path.length; ix++) {
+            if (value == null) {
+                throw new TemplateException("'" + this.text + "': Can't get '" + this.path[ix] + "' of null!");
+            }
+            value = getProperty(value, ix);
+        }
+
+        return value;
+    }
+
+    /**
+     * Appends the value of the expression written according to the kind of the expression.
+     *
+     * @param context The variables to get the value from.
+     * @param sb The StringBuilder to append to.
+     *
+     * @throws TemplateException if a variable or property is not available.
+     */
+    public void appendTo(TemplateContext context, StringBuilder sb) throws TemplateException {
+        appendTo(this.kind, String.valueOf(evaluate(context)), sb);
+    }
+
+    /**
+     * Appends a value written according to a kind of expression.
+     *
+     * @param kind How to write the value.
+     * @param value The value to write.
+     * @param sb The StringBuilder to append to.
+     */
+    public static void appendTo(Kind kind, String value, StringBuilder sb) {
+        if (kind == Kind.VALUE) {
+            sb.append(value);
+        }
+        else {
+            sb.append(kind == Kind.GETTER ? "get" : "set");
+            if (value.length() > 0) {
+                sb.append(Character.toUpperCase(value.charAt(0)));
+                sb.append(value, 1, value.length());
+            }
+            if (kind == Kind.GETTER) {
+                sb.append("()");
+            }
+        }
+    }
+
+    /**
+     * Returns a property of a value.
+     *
+     * @param bean The value to get property of.
+     * @param ix The index of the property name in the path.
+     *
+     * @throws TemplateException if the property is not available.
+     */
+    private Object getProperty(Object bean, int ix) throws TemplateException {
+        if (bean instanceof Map) {
+            return ((Map<?, ?>)bean).get(this.path[ix]);
+        }
+
+        Map<String, Method> typeReadMethods = readMethods.get(bean.getClass());
+        Method method = typeReadMethods.get(this.path[ix]);
+        if (method == null) {
+            method = findReadMethod(bean.getClass(), this.path[ix]);
+            typeReadMethods.put(this.path[ix], method);
+        }
+
+        try {
+            return method.invoke(bean);
+        }
+        catch (Exception e) {
+            throw new TemplateException("'" + this.text + "': Failed to get '" + this.path[ix] + "' of " +
+                    bean.getClass().getName() + "!", e);
+        }
+    }
+
+    /**
+     * Finds the public method reading a property.
+     *
+     * @param type The class to find method in.
+     * @param property The name of the property.
+     *
+     * @throws TemplateException if there is no such method.
+     */
+    private Method findReadMethod(Class<?> type, String property) throws TemplateException {
+        String capitalized = Character.toUpperCase(property.charAt(0)) + property.substring(1);
+        for (String name : new String[] {"get" + capitalized, "is" + capitalized, property}) {
+            Method method = findAccessibleMethod(type, name);
+            if (method != null) {
+                return method;
+            }
+        }
+
+        throw new TemplateException("'" + this.text + "': " + type.getName() + " has no property '" + property + "'!");
+    }
+
+    /**
+     * Finds a public method without parameters declared by an accessible class, searching the class itself and
+     * then its interfaces and superclasses.
+     *
+     * @param type The class to find the method in.
+     * @param name The name of the method.
+     *
+     * @return The method or null if not found.
+     */
+    private static Method findAccessibleMethod(Class<?> type, String name) {
+        if (isAccessible(type)) {
+            Method method = getMethod(type, name);
+            if (method == null) {
+                // No public supertype has it either.
+                return null;
+            }
+            if (isAccessible(method.getDeclaringClass())) {
+                return method;
+            }
+        }
+
+        for (Class<?> superInterface : type.getInterfaces()) {
+            Method method = findAccessibleMethod(superInterface, name);
+            if (method != null) {
+                return method;
+            }
+        }
+
+        return type.getSuperclass() != null ? findAccessibleMethod(type.getSuperclass(), name) : null;
+    }
+
+    /**
+     * Returns true if the public methods of a class can be called from anywhere. That is if the class is public
+     * and, on Java 9 and later, in a package exported by its module.
+     *
+     * @param type The class to check.
+     */
+    private static boolean isAccessible(Class<?> type) {
+        if (!Modifier.isPublic(type.getModifiers())) {
+            return false;
+        }
+        if (IS_EXPORTED == null) {
+            return true;
+        }
+
+        String className = type.getName();
+        String packageName = className.lastIndexOf('.') >= 0 ? className.substring(0, className.lastIndexOf('.')) : "";
+        try {
+            return (Boolean)IS_EXPORTED.invoke(GET_MODULE.invoke(type), packageName);
+        }
+        catch (Exception e) {
+            return false;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return this.text;
+    }
+}
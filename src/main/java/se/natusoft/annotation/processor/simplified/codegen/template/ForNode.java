@@ -0,0 +1,149 @@
+/*
+ *
+ * PROJECT
+ *     Name
+ *         SimplifiedAnnotationProcessor
+ *
+ *     Code Version
+ *         1.1
+ *
+ *     Description
+ *         An abstract annotation processor base class that simplifies the annotation
+ *         processing, but also limits it slightly. It is however good enough for most
+ *         cases and makes things a bit easier and clearer.
+ *
+ * COPYRIGHTS
+ *     Copyright (C) 2013 by Natusoft AB All rights reserved.
+ *
+ * LICENSE
+ *     Apache 2.0 (Open Source)
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ * AUTHORS
+ *     tommy ()
+ *         Changes:
+ *         2026-10-16: Created!
+ *
+ */
+package se.natusoft.annotation.processor.simplified.codegen.template;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import se.natusoft.annotation.processor.simplified.codegen.CodeGeneratorOutputStream;
+
+/**
+ * A "#for variable : path" loop. The body is rendered once for each item of the Iterable or array the path
+ * references. In the body the item is available as the loop variable, together with "variable_index" (0 based),
+ * "variable_first" and "variable_last".
+ */
+public class ForNode implements TemplateNode {
+    //
+    // Private Members
+    //
+
+    /** The name of the loop variable. */
+    private String variable = null;
+
+    /** The names of the loop index, first and last variables. */
+    private String indexVariable, firstVariable, lastVariable;
+
+    /** The values to loop over. */
+    private Expression items = null;
+
+    /** The body of the loop. */
+    private List<TemplateNode> body = null;
+
+    //
+    // Constructors
+    //
+
+    /**
+     * Creates a new ForNode.
+     *
+     * @param variable The name of the loop variable.
+     * @param items The values to loop over.
+     * @param body The body of the loop.
+     */
+    public ForNode(String variable, Expression items, List<TemplateNode> body) {
+        this.variable = variable;
+        this.indexVariable = variable + "_index";
+        this.firstVariable = variable + "_first";
+        this.lastVariable = variable + "_last";
+        this.items = items;
+        this.body = body;
+    }
+
+    //
+    // Methods
+    //
+
+    /**
+     * Returns the name of the loop variable.
+     */
+    public String getVariable() {
+        return this.variable;
+    }
+
+    /**
+     * Returns the values to loop over.
+     */
+    public Expression getItems() {
+        return this.items;
+    }
+
+    /**
+     * Returns the body of the loop.
+     */
+    public List<TemplateNode> getBody() {
+        return this.body;
+    }
+
+    /**
+     * Returns an iterator over a value that is an Iterable or an array.
+     *
+     * @param items The value to iterate over.
+     * @param expression The expression of the value for error messages.
+     *
+     * @throws TemplateException if the value can't be iterated.
+     */
+    public static Iterator<?> iterator(Object items, Expression expression) throws TemplateException {
+        if (items instanceof Iterable) {
+            return ((Iterable<?>)items).iterator();
+        }
+        if (items instanceof Object[]) {
+            return Arrays.asList((Object[])items).iterator();
+        }
+
+        throw new TemplateException("'" + expression + "' is not an Iterable or an array!");
+    }
+
+    @Override
+    public void render(TemplateContext context, CodeGeneratorOutputStream out) throws TemplateException {
+        Iterator<?> iterator = iterator(this.items.evaluate(context), this.items);
+
+        TemplateContext scope = context.newScope();
+        int index = 0;
+        while (iterator.hasNext()) {
+            scope.set(this.variable, iterator.next());
+            scope.set(this.indexVariable, index);
+            scope.set(this.firstVariable, index == 0);
+            scope.set(this.lastVariable, !iterator.hasNext());
+            for (TemplateNode node : this.body) {
+                node.render(scope, out);
+            }
+            ++index;
+        }
+    }
+}
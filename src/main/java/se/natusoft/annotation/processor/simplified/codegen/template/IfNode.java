@@ -0,0 +1,154 @@
+/*
+ *
+ * PROJECT
+ *     Name
+ *         SimplifiedAnnotationProcessor
+ *
+ *     Code Version
+ *         1.1
+ *
+ *     Description
+ *         An abstract annotation processor base class that simplifies the annotation
+ *         processing, but also limits it slightly. It is however good enough for most
+ *         cases and makes things a bit easier and clearer.
+ *
+ * COPYRIGHTS
+ *     Copyright (C) 2013 by Natusoft AB All rights reserved.
+ *
+ * LICENSE
+ *     Apache 2.0 (Open Source)
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ * AUTHORS
+ *     tommy ()
+ *         Changes:
+ *         2026-10-16: Created!
+ *
+ */
+package se.natusoft.annotation.processor.simplified.codegen.template;
+
+import java.lang.reflect.Array;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import se.natusoft.annotation.processor.simplified.codegen.CodeGeneratorOutputStream;
+
+/**
+ * An "#if path" or "#if !path" conditional with an optional "#else". A value is true unless it is null, false,
+ * an empty string, an empty collection, an empty map or an empty array.
+ */
+public class IfNode implements TemplateNode {
+    //
+    // Private Members
+    //
+
+    /** The condition. */
+    private Expression condition = null;
+
+    /** True if the condition is negated with '!'. */
+    private boolean negated = false;
+
+    /** Rendered when the condition is true. */
+    private List<TemplateNode> thenNodes = null;
+
+    /** Rendered when the condition is false. */
+    private List<TemplateNode> elseNodes = null;
+
+    //
+    // Constructors
+    //
+
+    /**
+     * Creates a new IfNode.
+     *
+     * @param condition The condition.
+     * @param negated True if the condition is negated with '!'.
+     * @param thenNodes Rendered when the condition is true.
+     * @param elseNodes Rendered when the condition is false.
+     */
+    public IfNode(Expression condition, boolean negated, List<TemplateNode> thenNodes, List<TemplateNode> elseNodes) {
+        this.condition = condition;
+        this.negated = negated;
+        this.thenNodes = thenNodes;
+        this.elseNodes = elseNodes;
+    }
+
+    //
+    // Methods
+    //
+
+    /**
+     * Returns the condition.
+     */
+    public Expression getCondition() {
+        return this.condition;
+    }
+
+    /**
+     * Returns true if the condition is negated with '!'.
+     */
+    public boolean isNegated() {
+        return this.negated;
+    }
+
+    /**
+     * Returns the nodes rendered when the condition is true.
+     */
+    public List<TemplateNode> getThenNodes() {
+        return this.thenNodes;
+    }
+
+    /**
+     * Returns the nodes rendered when the condition is false. This is empty if there is no #else.
+     */
+    public List<TemplateNode> getElseNodes() {
+        return this.elseNodes;
+    }
+
+    /**
+     * Returns the truth of a value.
+     *
+     * @param value The value to get the truth of.
+     */
+    public static boolean isTrue(Object value) {
+        if (value == null) {
+            return false;
+        }
+        if (value instanceof Boolean) {
+            return (Boolean)value;
+        }
+        if (value instanceof CharSequence) {
+            return ((CharSequence)value).length() > 0;
+        }
+        if (value instanceof Collection) {
+            return !((Collection<?>)value).isEmpty();
+        }
+        if (value instanceof Map) {
+            return !((Map<?, ?>)value).isEmpty();
+        }
+        if (value.getClass().isArray()) {
+            return Array.getLength(value) > 0;
+        }
+
+        return true;
+    }
+
+    @Override
+    public void render(TemplateContext context, CodeGeneratorOutputStream out) throws TemplateException {
+        List<TemplateNode> nodes = isTrue(this.condition.evaluate(context)) != this.negated ? this.thenNodes : this.elseNodes;
+        for (TemplateNode node : nodes) {
+            node.render(context, out);
+        }
+    }
+}
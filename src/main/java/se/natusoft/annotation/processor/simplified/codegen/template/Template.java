@@ -0,0 +1,487 @@
+/*
+ *
+ * PROJECT
+ *     Name
+ *         SimplifiedAnnotationProcessor
+ *
+ *     Code Version
+ *         1.1
+ *
+ *     Description
+ *         An abstract annotation processor base class that simplifies the annotation
+ *         processing, but also limits it slightly. It is however good enough for most
+ *         cases and makes things a bit easier and clearer.
+ *
+ * COPYRIGHTS
+ *     Copyright (C) 2013 by Natusoft AB All rights reserved.
+ *
+ * LICENSE
+ *     Apache 2.0 (Open Source)
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ * AUTHORS
+ *     tommy ()
+ *         Changes:
+ *         2026-10-16: Created!
+ *
+ */
+package se.natusoft.annotation.processor.simplified.codegen.template;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import se.natusoft.annotation.processor.simplified.codegen.CodeGeneratorOutputStream;
+
+/**
+ * A compiled code generation template. A template is line based. Each line is either a directive or a line
+ * of text rendered with contentln(...) of the stream rendered to. Text lines can reference values with
+ * ${path}, ${get:path} and ${set:path} in the same way as CodeGeneratorOutputStream.contentln(Properties, ...),
+ * where path is a variable optionally followed by properties like "type.simpleName".
+ * <p>
+ * The directives are, with optional leading whitespace:
+ * <pre>
+ *     ## A comment line, not rendered.
+ *     #for variable : path
+ *     #if path
+ *     #if !path
+ *     #else
+ *     #end
+ * </pre>
+ * Example:
+ * <pre>
+ *     #for field : type.fields
+ *     public ${field.type} ${get:field.simpleName} {
+ *         return this.${field.simpleName};
+ *     }
+ *     #end
+ * </pre>
+ * A template text is only compiled once per template name, and a template resource is only loaded once per class loader. Compiled
+ * templates are kept for the whole JVM, so they are reused by later compilations in a long lived JVM like a build
+ * daemon. The least recently used compiled templates are dropped when more than 256 are kept. Templates don't
+ * reference the classes of the values rendered, so keeping them does not keep those classes loaded.
+ */
+public class Template {
+    //
+    // Constants
+    //
+
+    /** The max number of compiled templates kept. */
+    private static final int MAX_CACHED_TEMPLATES = 256;
+
+    //
+    // Private Members
+    //
+
+    /** The name of the template, used in error messages. */
+    private String name = null;
+
+    /** The nodes of the template. */
+    private List<TemplateNode> nodes = null;
+
+    /** Compiled templates keyed by text. */
+    private static Map<String, Template> compiled = new CompiledTemplates();
+
+    /** Loaded templates keyed by resource name per class loader. */
+    private static Map<ClassLoader, Map<String, Template>> loaded = new WeakHashMap<ClassLoader, Map<String, Template>>();
+
+    //
+    // Constructors
+    //
+
+    /**
+     * Creates a new Template.
+     *
+     * @param name The name of the template, used in error messages.
+     * @param nodes The nodes of the template.
+     */
+    private Template(String name, List<TemplateNode> nodes) {
+        this.name = name;
+        this.nodes = nodes;
+    }
+
+    //
+    // Methods
+    //
+
+    /**
+     * Loads and compiles a template resource. The template is only loaded once per class loader.
+     *
+     * @param classLoader The class loader to load the template with. Normally the class loader of the processor.
+     * @param resourceName The name of the template resource.
+     *
+     * @throws IOException if the template can't be loaded.
+     * @throws TemplateException on a syntax error in the template.
+     */
+    public static Template load(ClassLoader classLoader, String resourceName) throws IOException, TemplateException {
+        synchronized (loaded) {
+            Map<String, Template> loaderTemplates = loaded.get(classLoader);
+            if (loaderTemplates != null && loaderTemplates.containsKey(resourceName)) {
+                return loaderTemplates.get(resourceName);
+            }
+        }
+
+        Template template = compile(resourceName, readResource(classLoader, resourceName));
+
+        synchronized (loaded) {
+            Map<String, Template> loaderTemplates = loaded.get(classLoader);
+            if (loaderTemplates == null) {
+                loaderTemplates = new HashMap<String, Template>();
+                loaded.put(classLoader, loaderTemplates);
+            }
+            loaderTemplates.put(resourceName, template);
+        }
+
+        return template;
+    }
+
+    /**
+     * Reads a template resource as UTF-8 text.
+     *
+     * @param classLoader The class loader to load the template with.
+     * @param resourceName The name of the template resource.
+     *
+     * @throws IOException if the template can't be read.
+     */
+    public static String readResource(ClassLoader classLoader, String resourceName) throws IOException {
+        InputStream templateStream = classLoader.getResourceAsStream(resourceName);
+        if (templateStream == null) {
+            throw new IOException("Template '" + resourceName + "' was not found!");
+        }
+
+        return readText(templateStream);
+    }
+
+    /**
+     * Reads a template as UTF-8 text and closes the stream. Templates are always UTF-8, whatever the source
+     * encoding of the compilation, so a template renders the same when compiled by CodeTemplateProcessor as when
+     * loaded with load(...).
+     *
+     * @param templateStream The stream to read the template from.
+     *
+     * @throws IOException if the template can't be read.
+     */
+    public static String readText(InputStream templateStream) throws IOException {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = templateStream.read(buffer)) > 0) {
+                bytes.write(buffer, 0, read);
+            }
+
+            return bytes.toString("UTF-8");
+        }
+        finally {
+            templateStream.close();
+        }
+    }
+
+    /**
+     * Compiles a template text. The same text is only compiled once for the same name. Templates with the same
+     * text but different names are compiled separately, since the name is part of the template and its errors.
+     *
+     * @param name The name of the template, used in error messages.
+     * @param text The template text.
+     *
+     * @throws TemplateException on a syntax error in the template.
+     */
+    public static Template compile(String name, String text) throws TemplateException {
+        String key = name + '\u0000' + text;
+        synchronized (compiled) {
+            Template template = compiled.get(key);
+            if (template != null) {
+                return template;
+            }
+        }
+
+        Template template = new Template(name, parse(name, text));
+
+        synchronized (compiled) {
+            compiled.put(key, template);
+        }
+
+        return template;
+    }
+
+    /**
+     * Returns the name of the template.
+     */
+    public String getName() {
+        return this.name;
+    }
+
+    /**
+     * Returns the nodes of the template.
+     */
+    public List<TemplateNode> getNodes() {
+        return this.nodes;
+    }
+
+    /**
+     * Renders the template.
+     *
+     * @param context The variables to render with.
+     * @param out The stream to render to.
+     *
+     * @throws TemplateException if something referenced by the template is not available.
+     */
+    public void render(TemplateContext context, CodeGeneratorOutputStream out) throws TemplateException {
+        try {
+            for (TemplateNode node : this.nodes) {
+                node.render(context, out);
+            }
+        }
+        catch (TemplateException te) {
+            throw new TemplateException(this.name + ": " + te.getMessage(), te.getCause());
+        }
+    }
+
+    /**
+     * Parses a template text into nodes.
+     *
+     * @param name The name of the template, used in error messages.
+     * @param text The template text.
+     *
+     * @throws TemplateException on a syntax error in the template.
+     */
+    private static List<TemplateNode> parse(String name, String text) throws TemplateException {
+        List<TemplateNode> nodes = new ArrayList<TemplateNode>();
+        LinkedList<Block> openBlocks = new LinkedList<Block>();
+        List<TemplateNode> current = nodes;
+
+        String[] lines = text.split("\n", -1);
+        // A text ending with a newline does not end with an empty line.
+        int lineCount = lines.length > 0 && lines[lines.length - 1].length() == 0 ? lines.length - 1 : lines.length;
+
+        for (int ix = 0; ix < lineCount; ix++) {
+            String line = lines[ix];
+            if (line.endsWith("\r")) {
+                line = line.substring(0, line.length() - 1);
+            }
+            String where = name + ":" + (ix + 1) + ": ";
+            String directive = line.trim();
+
+            try {
+                if (directive.startsWith("##")) {
+                    // Comment.
+                }
+                else if (directive.startsWith("#for ")) {
+                    String loop = directive.substring(5);
+                    int colon = loop.indexOf(':');
+                    if (colon < 0) {
+                        throw new TemplateException("Expected '#for variable : path'!");
+                    }
+                    Expression variable = Expression.parse(directive, loop.substring(0, colon), Expression.Kind.VALUE);
+                    if (variable.getPath().length != 1) {
+                        throw new TemplateException("Bad loop variable in '" + directive + "'!");
+                    }
+                    Block block = new Block(directive, where);
+                    block.variable = variable.getPath()[0];
+                    block.expression = Expression.parse(directive, loop.substring(colon + 1), Expression.Kind.VALUE);
+                    block.parentNodes = current;
+                    openBlocks.push(block);
+                    current = block.thenNodes;
+                }
+                else if (directive.startsWith("#if ")) {
+                    String condition = directive.substring(4).trim();
+                    Block block = new Block(directive, where);
+                    block.negated = condition.startsWith("!");
+                    if (block.negated) {
+                        condition = condition.substring(1);
+                    }
+                    block.expression = Expression.parse(directive, condition, Expression.Kind.VALUE);
+                    block.parentNodes = current;
+                    openBlocks.push(block);
+                    current = block.thenNodes;
+                }
+                else if (directive.equals("#else")) {
+                    Block block = openBlocks.peek();
+                    if (block == null || block.variable != null || block.elseNodes != null) {
+                        throw new TemplateException("#else without #if!");
+                    }
+                    block.elseNodes = new ArrayList<TemplateNode>();
+                    current = block.elseNodes;
+                }
+                else if (directive.equals("#end")) {
+                    Block block = openBlocks.poll();
+                    if (block == null) {
+                        throw new TemplateException("#end without #for or #if!");
+                    }
+                    current = block.parentNodes;
+                    if (block.variable != null) {
+                        current.add(new ForNode(block.variable, block.expression, block.thenNodes));
+                    }
+                    else {
+                        List<TemplateNode> elseNodes = block.elseNodes;
+                        if (elseNodes == null) {
+                            elseNodes = Collections.emptyList();
+                        }
+                        current.add(new IfNode(block.expression, block.negated, block.thenNodes, elseNodes));
+                    }
+                }
+                else if (directive.startsWith("#for") || directive.startsWith("#if") || directive.startsWith("#else") ||
+                        directive.startsWith("#end")) {
+                    throw new TemplateException("Bad directive '" + directive + "'!");
+                }
+                else {
+                    current.add(parseText(line));
+                }
+            }
+            catch (TemplateException te) {
+                throw new TemplateException(where + te.getMessage());
+            }
+        }
+
+        if (!openBlocks.isEmpty()) {
+            Block block = openBlocks.peek();
+            throw new TemplateException(block.where + "'" + block.directive + "' has no #end!");
+        }
+
+        return nodes;
+    }
+
+    /**
+     * Parses a line of text with references to values.
+     *
+     * @param line The line to parse.
+     *
+     * @throws TemplateException on a bad reference.
+     */
+    private static TextNode parseText(String line) throws TemplateException {
+        List<String> literals = new ArrayList<String>();
+        List<Expression> expressions = new ArrayList<Expression>();
+
+        int start = 0;
+        int refStart = line.indexOf("${");
+        while (refStart >= 0) {
+            int refEnd = line.indexOf('}', refStart + 2);
+            if (refEnd < 0) {
+                throw new TemplateException("'${' without '}'!");
+            }
+
+            String reference = line.substring(refStart, refEnd + 1);
+            String path = line.substring(refStart + 2, refEnd);
+            Expression.Kind kind = Expression.Kind.VALUE;
+            if (path.startsWith("get:")) {
+                kind = Expression.Kind.GETTER;
+                path = path.substring(4);
+            }
+            else if (path.startsWith("set:")) {
+                kind = Expression.Kind.SETTER;
+                path = path.substring(4);
+            }
+
+            literals.add(line.substring(start, refStart));
+            expressions.add(Expression.parse(reference, path, kind));
+
+            start = refEnd + 1;
+            refStart = line.indexOf("${", start);
+        }
+        literals.add(line.substring(start));
+
+        return new TextNode(literals, expressions);
+    }
+
+    //
+    // Inner Classes
+    //
+
+    /**
+     * The compiled templates in least recently used order, dropping the least recently used one when more than
+     * MAX_CACHED_TEMPLATES are kept.
+     */
+    private static class CompiledTemplates extends LinkedHashMap<String, Template> {
+        //
+        // Constants
+        //
+
+        private static final long serialVersionUID = 1L;
+
+        //
+        // Constructors
+        //
+
+        /**
+         * Creates a new CompiledTemplates.
+         */
+        public CompiledTemplates() {
+            super(16, 0.75f, true);
+        }
+
+        //
+        // Methods
+        //
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Template> eldest) {
+            return size() > MAX_CACHED_TEMPLATES;
+        }
+    }
+
+    /**
+     * A #for or #if block being parsed.
+     */
+    private static class Block {
+        //
+        // Private Members
+        //
+
+        /** The directive starting the block. */
+        private String directive = null;
+
+        /** The template name and line number of the directive. */
+        private String where = null;
+
+        /** The loop variable of a #for or null for an #if. */
+        private String variable = null;
+
+        /** The loop values of a #for or the condition of an #if. */
+        private Expression expression = null;
+
+        /** True if the condition of an #if is negated. */
+        private boolean negated = false;
+
+        /** The nodes of the #for body or of the #if true branch. */
+        private List<TemplateNode> thenNodes = new ArrayList<TemplateNode>();
+
+        /** The nodes of the #else branch or null if there is no #else. */
+        private List<TemplateNode> elseNodes = null;
+
+        /** The nodes the block is added to when ended. */
+        private List<TemplateNode> parentNodes = null;
+
+        //
+        // Constructors
+        //
+
+        /**
+         * Creates a new Block.
+         *
+         * @param directive The directive starting the block.
+         * @param where The template name and line number of the directive.
+         */
+        public Block(String directive, String where) {
+            this.directive = directive;
+            this.where = where;
+        }
+    }
+}
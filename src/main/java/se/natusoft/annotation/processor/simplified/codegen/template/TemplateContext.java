@@ -0,0 +1,137 @@
+/*
+ *
+ * PROJECT
+ *     Name
+ *         SimplifiedAnnotationProcessor
+ *
+ *     Code Version
+ *         1.1
+ *
+ *     Description
+ *         An abstract annotation processor base class that simplifies the annotation
+ *         processing, but also limits it slightly. It is however good enough for most
+ *         cases and makes things a bit easier and clearer.
+ *
+ * COPYRIGHTS
+ *     Copyright (C) 2013 by Natusoft AB All rights reserved.
+ *
+ * LICENSE
+ *     Apache 2.0 (Open Source)
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ * AUTHORS
+ *     tommy ()
+ *         Changes:
+ *         2026-10-16: Created!
+ *
+ */
+package se.natusoft.annotation.processor.simplified.codegen.template;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The variables a template is rendered with. A #for loop renders its body in a new scope of the context
+ * holding the loop variables, which hides variables with the same name in the enclosing scope.
+ */
+public class TemplateContext {
+    //
+    // Private Members
+    //
+
+    /** The enclosing scope or null for the top scope. */
+    private TemplateContext parent = null;
+
+    /** The variables of this scope. */
+    private Map<String, Object> variables = new HashMap<String, Object>();
+
+    //
+    // Constructors
+    //
+
+    /**
+     * Creates a new empty TemplateContext.
+     */
+    public TemplateContext() {}
+
+    /**
+     * Creates a new scope of a TemplateContext.
+     *
+     * @param parent The enclosing scope.
+     */
+    private TemplateContext(TemplateContext parent) {
+        this.parent = parent;
+    }
+
+    //
+    // Methods
+    //
+
+    /**
+     * Sets a variable.
+     *
+     * @param name The name of the variable.
+     * @param value The value of the variable. This can be null.
+     *
+     * @return this context to allow chained calls.
+     */
+    public TemplateContext set(String name, Object value) {
+        this.variables.put(name, value);
+        return this;
+    }
+
+    /**
+     * Returns a new scope enclosed by this context.
+     */
+    public TemplateContext newScope() {
+        return new TemplateContext(this);
+    }
+
+    /**
+     * Returns true if the variable is set in this scope or an enclosing scope.
+     *
+     * @param name The name of the variable.
+     */
+    public boolean isSet(String name) {
+        TemplateContext scope = this;
+        while (scope != null) {
+            if (scope.variables.containsKey(name)) {
+                return true;
+            }
+            scope = scope.parent;
+        }
+
+        return false;
+    }
+
+    /**
+     * Returns the value of a variable.
+     *
+     * @param name The name of the variable.
+     *
+     * @throws TemplateException if the variable is not set.
+     */
+    public Object get(String name) throws TemplateException {
+        TemplateContext scope = this;
+        while (scope != null) {
+            Object value = scope.variables.get(name);
+            if (value != null || scope.variables.containsKey(name)) {
+                return value;
+            }
+            scope = scope.parent;
+        }
+
+        throw new TemplateException("Variable '" + name + "' is not set!");
+    }
+}
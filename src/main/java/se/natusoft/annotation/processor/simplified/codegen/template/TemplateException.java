@@ -0,0 +1,74 @@
+/*
+ *
+ * PROJECT
+ *     Name
+ *         SimplifiedAnnotationProcessor
+ *
+ *     Code Version
+ *         1.1
+ *
+ *     Description
+ *         An abstract annotation processor base class that simplifies the annotation
+ *         processing, but also limits it slightly. It is however good enough for most
+ *         cases and makes things a bit easier and clearer.
+ *
+ * COPYRIGHTS
+ *     Copyright (C) 2013 by Natusoft AB All rights reserved.
+ *
+ * LICENSE
+ *     Apache 2.0 (Open Source)
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ * AUTHORS
+ *     tommy ()
+ *         Changes:
+ *         2026-10-16: Created!
+ *
+ */
+package se.natusoft.annotation.processor.simplified.codegen.template;
+
+/**
+ * Thrown on a syntax error in a template, or when a template references something that is not available
+ * when rendered.
+ */
+public class TemplateException extends Exception {
+    //
+    // Constants
+    //
+
+    private static final long serialVersionUID = 1L;
+
+    //
+    // Constructors
+    //
+
+    /**
+     * Creates a new TemplateException.
+     *
+     * @param message The message describing the problem.
+     */
+    public TemplateException(String message) {
+        super(message);
+    }
+
+    /**
+     * Creates a new TemplateException.
+     *
+     * @param message The message describing the problem.
+     * @param cause The cause of the problem.
+     */
+    public TemplateException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
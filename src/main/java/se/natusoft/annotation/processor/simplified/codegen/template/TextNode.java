@@ -0,0 +1,120 @@
+/*
+ *
+ * PROJECT
+ *     Name
+ *         SimplifiedAnnotationProcessor
+ *
+ *     Code Version
+ *         1.1
+ *
+ *     Description
+ *         An abstract annotation processor base class that simplifies the annotation
+ *         processing, but also limits it slightly. It is however good enough for most
+ *         cases and makes things a bit easier and clearer.
+ *
+ * COPYRIGHTS
+ *     Copyright (C) 2013 by Natusoft AB All rights reserved.
+ *
+ * LICENSE
+ *     Apache 2.0 (Open Source)
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ * AUTHORS
+ *     tommy ()
+ *         Changes:
+ *         2026-10-16: Created!
+ *
+ */
+package se.natusoft.annotation.processor.simplified.codegen.template;
+
+import java.util.List;
+import se.natusoft.annotation.processor.simplified.codegen.CodeGeneratorOutputStream;
+
+/**
+ * A line of text with references to values. This is rendered with contentln(...), so it is indented at the
+ * current indentation level of the stream in addition to its own indentation.
+ */
+public class TextNode implements TemplateNode {
+    //
+    // Private Members
+    //
+
+    /** The literal texts. There is one literal before each expression and one last, possibly empty. */
+    private String[] literals = null;
+
+    /** The referenced values. */
+    private Expression[] expressions = null;
+
+    //
+    // Constructors
+    //
+
+    /**
+     * Creates a new TextNode.
+     *
+     * @param literals The literal texts. There must be one more literal than expressions.
+     * @param expressions The referenced values.
+     */
+    public TextNode(List<String> literals, List<Expression> expressions) {
+        this.literals = literals.toArray(new String[literals.size()]);
+        this.expressions = expressions.toArray(new Expression[expressions.size()]);
+    }
+
+    //
+    // Methods
+    //
+
+    /**
+     * Returns the literal text before the expression at the specified index, or the last literal text if
+     * the index is the number of expressions.
+     *
+     * @param ix The index of the literal text.
+     */
+    public String getLiteral(int ix) {
+        return this.literals[ix];
+    }
+
+    /**
+     * Returns the number of expressions.
+     */
+    public int getExpressionCount() {
+        return this.expressions.length;
+    }
+
+    /**
+     * Returns the expression at the specified index.
+     *
+     * @param ix The index of the expression.
+     */
+    public Expression getExpression(int ix) {
+        return this.expressions[ix];
+    }
+
+    @Override
+    public void render(TemplateContext context, CodeGeneratorOutputStream out) throws TemplateException {
+        if (this.expressions.length == 0) {
+            out.contentln(this.literals[0]);
+            return;
+        }
+
+        StringBuilder sb = new StringBuilder();
+        for (int ix = 0; ix < this.expressions.length; ix++) {
+            sb.append(this.literals[ix]);
+            this.expressions[ix].appendTo(context, sb);
+        }
+        sb.append(this.literals[this.expressions.length]);
+
+        out.contentln(sb.toString());
+    }
+}
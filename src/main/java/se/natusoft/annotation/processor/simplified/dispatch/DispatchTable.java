@@ -0,0 +1,160 @@
+/*
+ *
+ * PROJECT
+ *     Name
+ *         SimplifiedAnnotationProcessor
+ *
+ *     Code Version
+ *         1.1
+ *
+ *     Description
+ *         An abstract annotation processor base class that simplifies the annotation
+ *         processing, but also limits it slightly. It is however good enough for most
+ *         cases and makes things a bit easier and clearer.
+ *
+ * COPYRIGHTS
+ *     Copyright (C) 2013 by Natusoft AB All rights reserved.
+ *
+ * LICENSE
+ *     Apache 2.0 (Open Source)
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ * AUTHORS
+ *     tommy ()
+ *         Changes:
+ *         2026-10-16: Created!
+ *
+ */
+package se.natusoft.annotation.processor.simplified.dispatch;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import se.natusoft.annotation.processor.simplified.annotations.AllProcessed;
+import se.natusoft.annotation.processor.simplified.annotations.GenerateSource;
+import se.natusoft.annotation.processor.simplified.annotations.NewRound;
+import se.natusoft.annotation.processor.simplified.annotations.Process;
+
+/**
+ * This is a table of all the processing methods of a processor class. It is built once by scanning
+ * the declared methods of the processor class, and after that handlers are looked up by the qualified
+ * name of the annotation they process without any more reflection.
+ */
+public class DispatchTable {
+    //
+    // Private Members
+    //
+
+    /** The @Process methods keyed by the qualified name of the processed annotation. */
+    private Map<String, HandlerMethod> processMethods = new HashMap<String, HandlerMethod>();
+
+    /** The @NewRound method if any. */
+    private HandlerMethod newRoundMethod = null;
+
+    /** The @GenerateSource methods. */
+    private List<HandlerMethod> generateSourceMethods = new ArrayList<HandlerMethod>();
+
+    /** The @AllProcessed methods. */
+    private List<HandlerMethod> allProcessedMethods = new ArrayList<HandlerMethod>();
+
+    //
+    // Constructors
+    //
+
+    /**
+     * Creates a new DispatchTable by scanning the declared methods of the specified processor class.
+     *
+     * @param processorClass The processor class to build table for.
+     */
+    public DispatchTable(Class<?> processorClass) {
+        for (Method method : processorClass.getDeclaredMethods()) {
+            Process processAnn = method.getAnnotation(Process.class);
+            if (processAnn != null) {
+                String annotationName = qualifiedName(processAnn.value());
+                if (!this.processMethods.containsKey(annotationName)) {
+                    this.processMethods.put(annotationName,
+                            new HandlerMethod(method, HandlerMethod.resolveProcessSignature(method)));
+                }
+            }
+
+            if (method.getAnnotation(NewRound.class) != null && this.newRoundMethod == null) {
+                this.newRoundMethod = new HandlerMethod(method, HandlerMethod.resolveNoArgsSignature(method));
+            }
+
+            if (method.getAnnotation(GenerateSource.class) != null) {
+                this.generateSourceMethods.add(new HandlerMethod(method, HandlerMethod.resolveGenerateSignature(method)));
+            }
+
+            if (method.getAnnotation(AllProcessed.class) != null) {
+                this.allProcessedMethods.add(new HandlerMethod(method, HandlerMethod.resolveNoArgsSignature(method)));
+            }
+        }
+    }
+
+    //
+    // Methods
+    //
+
+    /**
+     * Returns the name used as key for an annotation class. This is the same name as the
+     * qualified name of the TypeElement representing the annotation, which for a nested
+     * annotation is the canonical name (Outer.Inner), not the binary name (Outer$Inner).
+     *
+     * @param annotationClass The annotation class to get the name of.
+     */
+    public static String qualifiedName(Class<?> annotationClass) {
+        String name = annotationClass.getCanonicalName();
+        return name != null ? name : annotationClass.getName();
+    }
+
+    /**
+     * Returns the @Process method for the specified annotation or null if there is none.
+     *
+     * @param annotationQualifiedName The qualified name of the annotation to get the processing method for.
+     */
+    public HandlerMethod getProcessMethod(CharSequence annotationQualifiedName) {
+        return this.processMethods.get(annotationQualifiedName.toString());
+    }
+
+    /**
+     * Returns all @Process methods keyed by the qualified name of the processed annotation.
+     */
+    public Map<String, HandlerMethod> getProcessMethods() {
+        return Collections.unmodifiableMap(this.processMethods);
+    }
+
+    /**
+     * Returns the @NewRound method or null if there is none.
+     */
+    public HandlerMethod getNewRoundMethod() {
+        return this.newRoundMethod;
+    }
+
+    /**
+     * Returns the @GenerateSource methods. An empty list is returned if there are none.
+     */
+    public List<HandlerMethod> getGenerateSourceMethods() {
+        return Collections.unmodifiableList(this.generateSourceMethods);
+    }
+
+    /**
+     * Returns the @AllProcessed methods. An empty list is returned if there are none.
+     */
+    public List<HandlerMethod> getAllProcessedMethods() {
+        return Collections.unmodifiableList(this.allProcessedMethods);
+    }
+}
@@ -0,0 +1,184 @@
+/*
+ *
+ * PROJECT
+ *     Name
+ *         SimplifiedAnnotationProcessor
+ *
+ *     Code Version
+ *         1.1
+ *
+ *     Description
+ *         An abstract annotation processor base class that simplifies the annotation
+ *         processing, but also limits it slightly. It is however good enough for most
+ *         cases and makes things a bit easier and clearer.
+ *
+ * COPYRIGHTS
+ *     Copyright (C) 2013 by Natusoft AB All rights reserved.
+ *
+ * LICENSE
+ *     Apache 2.0 (Open Source)
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ * AUTHORS
+ *     tommy ()
+ *         Changes:
+ *         2026-10-16: Created!
+ *
+ */
+package se.natusoft.annotation.processor.simplified.dispatch;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.TypeElement;
+import se.natusoft.annotation.processor.simplified.codegen.GenerationSupport;
+
+/**
+ * Holds the handlers of one processor instance, bound to that instance. SimplifiedAnnotationProcessor
+ * calls these handlers rather than the processing methods themselves.
+ */
+public class Dispatcher {
+    //
+    // Private Members
+    //
+
+    /** The @Process handlers keyed by the qualified name of the processed annotation. */
+    private Map<String, ProcessHandler> processHandlers = new HashMap<String, ProcessHandler>();
+
+    /** The @NewRound handler if any. */
+    private CallbackHandler newRoundHandler = null;
+
+    /** The @GenerateSource handlers. */
+    private List<GenerateSourceHandler> generateSourceHandlers = new ArrayList<GenerateSourceHandler>();
+
+    /** The @AllProcessed handlers. */
+    private List<CallbackHandler> allProcessedHandlers = new ArrayList<CallbackHandler>();
+
+    //
+    // Constructors
+    //
+
+    /**
+     * Creates a new, empty Dispatcher.
+     */
+    public Dispatcher() {}
+
+    //
+    // Methods
+    //
+
+    /**
+     * Adds a handler for the specified annotation. If there already is a handler for the annotation
+     * this call is ignored.
+     *
+     * @param annotationQualifiedName The qualified name of the handled annotation.
+     * @param processHandler The handler to add.
+     */
+    public void addProcessHandler(String annotationQualifiedName, ProcessHandler processHandler) {
+        if (!this.processHandlers.containsKey(annotationQualifiedName)) {
+            this.processHandlers.put(annotationQualifiedName, processHandler);
+        }
+    }
+
+    /**
+     * Adds a handler for the specified annotation. If there already is a handler for the annotation
+     * this call is ignored.
+     *
+     * @param annotationQualifiedName The qualified name of the handled annotation.
+     * @param processHandler The handler to add.
+     */
+    public void addProcessHandler(String annotationQualifiedName, final ElementsProcessHandler processHandler) {
+        addProcessHandler(annotationQualifiedName, new ProcessHandler() {
+            @Override
+            public void process(TypeElement annotation, Set<? extends Element> annotatedElements) throws Exception {
+                processHandler.process(annotatedElements);
+            }
+        });
+    }
+
+    /**
+     * Returns the handler for the specified annotation or null if there is none.
+     *
+     * @param annotationQualifiedName The qualified name of the annotation to get handler for.
+     */
+    public ProcessHandler getProcessHandler(CharSequence annotationQualifiedName) {
+        return this.processHandlers.get(annotationQualifiedName.toString());
+    }
+
+    /**
+     * Sets the @NewRound handler.
+     *
+     * @param newRoundHandler The handler to set.
+     */
+    public void setNewRoundHandler(CallbackHandler newRoundHandler) {
+        this.newRoundHandler = newRoundHandler;
+    }
+
+    /**
+     * Returns the @NewRound handler or null if there is none.
+     */
+    public CallbackHandler getNewRoundHandler() {
+        return this.newRoundHandler;
+    }
+
+    /**
+     * Adds a @GenerateSource handler.
+     *
+     * @param generateSourceHandler The handler to add.
+     */
+    public void addGenerateSourceHandler(GenerateSourceHandler generateSourceHandler) {
+        this.generateSourceHandlers.add(generateSourceHandler);
+    }
+
+    /**
+     * Adds a @GenerateSource handler for a method that does not take a GenerationSupport.
+     *
+     * @param generateSourceHandler The handler to add.
+     */
+    public void addGenerateSourceHandler(final CallbackHandler generateSourceHandler) {
+        addGenerateSourceHandler(new GenerateSourceHandler() {
+            @Override
+            public void generate(GenerationSupport generationSupport) throws Exception {
+                generateSourceHandler.call();
+            }
+        });
+    }
+
+    /**
+     * Returns the @GenerateSource handlers in the order they should be called.
+     */
+    public List<GenerateSourceHandler> getGenerateSourceHandlers() {
+        return Collections.unmodifiableList(this.generateSourceHandlers);
+    }
+
+    /**
+     * Adds an @AllProcessed handler.
+     *
+     * @param allProcessedHandler The handler to add.
+     */
+    public void addAllProcessedHandler(CallbackHandler allProcessedHandler) {
+        this.allProcessedHandlers.add(allProcessedHandler);
+    }
+
+    /**
+     * Returns the @AllProcessed handlers in the order they should be called.
+     */
+    public List<CallbackHandler> getAllProcessedHandlers() {
+        return Collections.unmodifiableList(this.allProcessedHandlers);
+    }
+}
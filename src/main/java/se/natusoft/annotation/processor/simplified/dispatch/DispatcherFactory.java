@@ -0,0 +1,58 @@
+/*
+ *
+ * PROJECT
+ *     Name
+ *         SimplifiedAnnotationProcessor
+ *
+ *     Code Version
+ *         1.1
+ *
+ *     Description
+ *         An abstract annotation processor base class that simplifies the annotation
+ *         processing, but also limits it slightly. It is however good enough for most
+ *         cases and makes things a bit easier and clearer.
+ *
+ * COPYRIGHTS
+ *     Copyright (C) 2013 by Natusoft AB All rights reserved.
+ *
+ * LICENSE
+ *     Apache 2.0 (Open Source)
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ * AUTHORS
+ *     tommy ()
+ *         Changes:
+ *         2026-10-16: Created!
+ *
+ */
+package se.natusoft.annotation.processor.simplified.dispatch;
+
+/**
+ * Implemented by the dispatchers generated for processors annotated with @GenerateDispatcher. The generated
+ * class is named as the binary name of the processor class followed by "$Dispatcher" and must have a public
+ * no args constructor.
+ */
+public interface DispatcherFactory {
+
+    /** The suffix added to the processor class name to get the name of its generated dispatcher. */
+    String CLASS_NAME_SUFFIX = "$Dispatcher";
+
+    /**
+     * Creates a Dispatcher with handlers bound to the specified processor.
+     *
+     * @param processor The processor to bind handlers to. This is always an instance of the processor the
+     *                  factory was generated for.
+     */
+    Dispatcher createDispatcher(Object processor);
+}
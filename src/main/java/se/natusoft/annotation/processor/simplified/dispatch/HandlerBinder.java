@@ -0,0 +1,473 @@
+/*
+ *
+ * PROJECT
+ *     Name
+ *         SimplifiedAnnotationProcessor
+ *
+ *     Code Version
+ *         1.1
+ *
+ *     Description
+ *         An abstract annotation processor base class that simplifies the annotation
+ *         processing, but also limits it slightly. It is however good enough for most
+ *         cases and makes things a bit easier and clearer.
+ *
+ * COPYRIGHTS
+ *     Copyright (C) 2013 by Natusoft AB All rights reserved.
+ *
+ * LICENSE
+ *     Apache 2.0 (Open Source)
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ * AUTHORS
+ *     tommy ()
+ *         Changes:
+ *         2026-10-16: Created!
+ *
+ */
+package se.natusoft.annotation.processor.simplified.dispatch;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.Set;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.TypeElement;
+import se.natusoft.annotation.processor.simplified.codegen.GenerationSupport;
+import se.natusoft.annotation.processor.simplified.log.Logger;
+
+/**
+ * Binds the methods of a DispatchTable to a processor instance producing a Dispatcher.
+ * <p>
+ * Handlers can be bound in one of two ways:
+ * <ul>
+ * <li>REFLECTION - Each call goes through Method.invoke(...). This is what has always been done.</li>
+ * <li>DIRECT - Each handler is an implementation of the handler interface generated by LambdaMetafactory
+ *     that calls the processor method directly. This costs the same as a normal interface call and can
+ *     be inlined by the JIT. If a method cannot be bound directly it falls back to REFLECTION for that
+ *     method, and the reason is logged as a warning.</li>
+ * </ul>
+ * The handler implementations must be defined in a class loader that can see the processor class. The
+ * lookup used to define them is the first of:
+ * <ul>
+ * <li>A lookup of the processor class supplied by the processor. This also allows non public methods.</li>
+ * <li>The lookup of this class, if the processor class is visible to the class loader of this library.</li>
+ * <li>A private lookup in the processor class (MethodHandles.privateLookupIn(...)). LambdaMetafactory only
+ *     accepts this on Java 9 to 13.</li>
+ * </ul>
+ */
+public class HandlerBinder {
+    //
+    // Constants
+    //
+
+    /** The lookup of this class, used for getting private lookups in processor classes. */
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+    /** MethodHandles.privateLookupIn(Class, Lookup) or null on Java 8. */
+    private static final Method PRIVATE_LOOKUP_IN = findPrivateLookupIn();
+
+    private static final MethodType PROCESS_TYPE = MethodType.methodType(void.class, TypeElement.class, Set.class);
+    private static final MethodType ELEMENTS_PROCESS_TYPE = MethodType.methodType(void.class, Set.class);
+    private static final MethodType GENERATE_SOURCE_TYPE = MethodType.methodType(void.class, GenerationSupport.class);
+    private static final MethodType CALLBACK_TYPE = MethodType.methodType(void.class);
+
+    //
+    // Inner Types
+    //
+
+    /**
+     * The ways handlers can be invoked.
+     */
+    public enum Invocation {
+        REFLECTION,
+        DIRECT
+    }
+
+    //
+    // Private Members
+    //
+
+    /** The processor to bind handlers to. */
+    private Object processor = null;
+
+    /** How handlers should be invoked. */
+    private Invocation invocation = null;
+
+    /** Logs methods that cannot be bound directly. */
+    private Logger logger = Logger.OFF;
+
+    /** A lookup of the processor class supplied by the processor or null. */
+    private MethodHandles.Lookup processorLookup = null;
+
+    //
+    // Constructors
+    //
+
+    /**
+     * Creates a new HandlerBinder.
+     *
+     * @param processor The processor to bind handlers to.
+     * @param invocation How handlers should be invoked.
+     */
+    public HandlerBinder(Object processor, Invocation invocation) {
+        this.processor = processor;
+        this.invocation = invocation;
+    }
+
+    /**
+     * Creates a new HandlerBinder.
+     *
+     * @param processor The processor to bind handlers to.
+     * @param invocation How handlers should be invoked.
+     * @param logger Logs methods that cannot be bound directly.
+     * @param processorLookup A lookup of the processor class to bind direct handlers with, or null.
+     */
+    public HandlerBinder(Object processor, Invocation invocation, Logger logger, MethodHandles.Lookup processorLookup) {
+        this(processor, invocation);
+        this.logger = logger;
+        this.processorLookup = processorLookup;
+    }
+
+    //
+    // Methods
+    //
+
+    /**
+     * Returns MethodHandles.privateLookupIn(Class, Lookup), or null if not available (Java 8).
+     */
+    private static Method findPrivateLookupIn() {
+        try {
+            return MethodHandles.class.getMethod("privateLookupIn", Class.class, MethodHandles.Lookup.class);
+        }
+        catch (NoSuchMethodException nsme) {
+            return null;
+        }
+    }
+
+    /**
+     * Returns the lookup to define the handler implementation of a method with.
+     *
+     * @param declaringClass The class declaring the handler method.
+     *
+     * @throws Exception if no usable lookup can be had.
+     */
+    private MethodHandles.Lookup lookupFor(Class<?> declaringClass) throws Exception {
+        if (this.processorLookup != null && this.processorLookup.lookupClass() == this.processor.getClass()) {
+            return this.processorLookup;
+        }
+
+        // A handler defined by our lookup is loaded by our class loader, which must see the same class.
+        Class<?> visible = null;
+        try {
+            visible = Class.forName(declaringClass.getName(), false, HandlerBinder.class.getClassLoader());
+        }
+        catch (ClassNotFoundException cnfe) {
+            // Not visible.
+        }
+        if (visible == declaringClass) {
+            return LOOKUP;
+        }
+
+        if (PRIVATE_LOOKUP_IN != null) {
+            try {
+                return (MethodHandles.Lookup)PRIVATE_LOOKUP_IN.invoke(null, declaringClass, LOOKUP);
+            }
+            catch (InvocationTargetException ite) {
+                throw ite.getCause() instanceof Exception ? (Exception)ite.getCause() : ite;
+            }
+        }
+
+        throw new IllegalAccessException(declaringClass.getName() + " is not visible to the class loader of " +
+                HandlerBinder.class.getName() + ". The processor must supply a lookup.");
+    }
+
+    /**
+     * Binds all methods of the specified dispatch table and returns a Dispatcher with the bound handlers.
+     * <p>
+     * A @Process or @GenerateSource method with an invalid signature is bound to a handler that throws
+     * a HandlerSignatureException when called. @NewRound and @AllProcessed methods that take parameters
+     * are ignored.
+     *
+     * @param dispatchTable The dispatch table to bind.
+     */
+    public Dispatcher bind(DispatchTable dispatchTable) {
+        Dispatcher dispatcher = new Dispatcher();
+
+        for (Map.Entry<String, HandlerMethod> entry : dispatchTable.getProcessMethods().entrySet()) {
+            dispatcher.addProcessHandler(entry.getKey(), bindProcess(entry.getValue()));
+        }
+
+        HandlerMethod newRoundMethod = dispatchTable.getNewRoundMethod();
+        if (newRoundMethod != null && newRoundMethod.isValid()) {
+            dispatcher.setNewRoundHandler(bindCallback(newRoundMethod));
+        }
+
+        for (HandlerMethod generateMethod : dispatchTable.getGenerateSourceMethods()) {
+            dispatcher.addGenerateSourceHandler(bindGenerateSource(generateMethod));
+        }
+
+        for (HandlerMethod allProcessedMethod : dispatchTable.getAllProcessedMethods()) {
+            if (allProcessedMethod.isValid()) {
+                dispatcher.addAllProcessedHandler(bindCallback(allProcessedMethod));
+            }
+        }
+
+        return dispatcher;
+    }
+
+    /**
+     * Binds a @Process method.
+     *
+     * @param handlerMethod The method to bind.
+     */
+    private ProcessHandler bindProcess(HandlerMethod handlerMethod) {
+        switch (handlerMethod.getSignature()) {
+            case ANNOTATION_AND_ELEMENTS:
+                ProcessHandler processHandler = bindDirect(ProcessHandler.class, PROCESS_TYPE, handlerMethod);
+                if (processHandler != null) {
+                    return processHandler;
+                }
+                break;
+
+            case ELEMENTS:
+                final ElementsProcessHandler elementsHandler =
+                        bindDirect(ElementsProcessHandler.class, ELEMENTS_PROCESS_TYPE, handlerMethod);
+                if (elementsHandler != null) {
+                    return new ProcessHandler() {
+                        @Override
+                        public void process(TypeElement annotation, Set<? extends Element> annotatedElements) throws Exception {
+                            elementsHandler.process(annotatedElements);
+                        }
+                    };
+                }
+                break;
+
+            default:
+                return new InvalidSignatureHandler("@Process annotated method must take either (TypeElement, Set<? extends Element>) or " +
+                        "(Set<? extends Element>)! [" + handlerMethod + "]");
+        }
+
+        return new ReflectiveHandler(this.processor, handlerMethod);
+    }
+
+    /**
+     * Binds a @GenerateSource method.
+     *
+     * @param handlerMethod The method to bind.
+     */
+    private GenerateSourceHandler bindGenerateSource(HandlerMethod handlerMethod) {
+        switch (handlerMethod.getSignature()) {
+            case GENERATION_SUPPORT:
+                GenerateSourceHandler generateHandler = bindDirect(GenerateSourceHandler.class, GENERATE_SOURCE_TYPE, handlerMethod);
+                if (generateHandler != null) {
+                    return generateHandler;
+                }
+                break;
+
+            case NO_ARGS:
+                final CallbackHandler callbackHandler = bindDirect(CallbackHandler.class, CALLBACK_TYPE, handlerMethod);
+                if (callbackHandler != null) {
+                    return new GenerateSourceHandler() {
+                        @Override
+                        public void generate(GenerationSupport generationSupport) throws Exception {
+                            callbackHandler.call();
+                        }
+                    };
+                }
+                break;
+
+            default:
+                return new InvalidSignatureHandler("Found @Generate annotated method, but with wrong parameters! The @Generate method\n" +
+                        "should take 1 or 0 parameters: GenerationSupport or no parameter.");
+        }
+
+        return new ReflectiveHandler(this.processor, handlerMethod);
+    }
+
+    /**
+     * Binds a method taking no arguments.
+     *
+     * @param handlerMethod The method to bind.
+     */
+    private CallbackHandler bindCallback(HandlerMethod handlerMethod) {
+        CallbackHandler callbackHandler = bindDirect(CallbackHandler.class, CALLBACK_TYPE, handlerMethod);
+        return callbackHandler != null ? callbackHandler : new ReflectiveHandler(this.processor, handlerMethod);
+    }
+
+    /**
+     * Creates an implementation of a handler interface that calls the handler method directly. Null is
+     * returned if invocation is not DIRECT or if the method cannot be bound directly.
+     *
+     * @param handlerInterface The handler interface to implement. This must have exactly one method.
+     * @param handlerType The type of the handler interface method.
+     * @param handlerMethod The method to call.
+     */
+    private <T> T bindDirect(Class<T> handlerInterface, MethodType handlerType, HandlerMethod handlerMethod) {
+        if (this.invocation != Invocation.DIRECT) {
+            return null;
+        }
+
+        Method method = handlerMethod.getMethod();
+        try {
+            MethodHandles.Lookup lookup = lookupFor(method.getDeclaringClass());
+            MethodHandle implementation = lookup.unreflect(method);
+            CallSite callSite = LambdaMetafactory.metafactory(
+                    lookup,
+                    handlerInterface.getMethods()[0].getName(),
+                    MethodType.methodType(handlerInterface, method.getDeclaringClass()),
+                    handlerType,
+                    implementation,
+                    handlerType
+            );
+
+            return handlerInterface.cast(callSite.getTarget().invokeWithArguments(this.processor));
+        }
+        catch (Throwable t) {
+            // Not accessible or not adaptable. The reflective path will be used instead, which
+            // will report the problem if it fails.
+            this.logger.warn("Cannot bind {} directly, using reflection! [{}]", method, t);
+            return null;
+        }
+    }
+
+    //
+    // Inner Classes
+    //
+
+    /**
+     * A handler that calls the method with Method.invoke(...).
+     */
+    private static class ReflectiveHandler implements ProcessHandler, GenerateSourceHandler, CallbackHandler {
+        //
+        // Private Members
+        //
+
+        /** The processor to call the method on. */
+        private Object processor = null;
+
+        /** The method to call. */
+        private HandlerMethod handlerMethod = null;
+
+        //
+        // Constructors
+        //
+
+        /**
+         * Creates a new ReflectiveHandler.
+         *
+         * @param processor The processor to call the method on.
+         * @param handlerMethod The method to call.
+         */
+        public ReflectiveHandler(Object processor, HandlerMethod handlerMethod) {
+            this.processor = processor;
+            this.handlerMethod = handlerMethod;
+        }
+
+        //
+        // Methods
+        //
+
+        @Override
+        public void process(TypeElement annotation, Set<? extends Element> annotatedElements) throws Exception {
+            if (this.handlerMethod.getSignature() == HandlerMethod.Signature.ELEMENTS) {
+                invoke(annotatedElements);
+            }
+            else {
+                invoke(annotation, annotatedElements);
+            }
+        }
+
+        @Override
+        public void generate(GenerationSupport generationSupport) throws Exception {
+            if (this.handlerMethod.getSignature() == HandlerMethod.Signature.GENERATION_SUPPORT) {
+                invoke(generationSupport);
+            }
+            else {
+                invoke();
+            }
+        }
+
+        @Override
+        public void call() throws Exception {
+            invoke();
+        }
+
+        /**
+         * Invokes the method, rethrowing what the method throws rather than the InvocationTargetException
+         * wrapping it, so that the same exceptions are seen as when calling directly.
+         *
+         * @param args The arguments to pass.
+         */
+        private void invoke(Object... args) throws Exception {
+            try {
+                this.handlerMethod.getMethod().invoke(this.processor, args);
+            }
+            catch (InvocationTargetException ite) {
+                Throwable cause = ite.getCause();
+                if (cause instanceof Exception) {
+                    throw (Exception)cause;
+                }
+                if (cause instanceof Error) {
+                    throw (Error)cause;
+                }
+                throw ite;
+            }
+        }
+    }
+
+    /**
+     * A handler for a method with an invalid signature. Calling it always throws a HandlerSignatureException.
+     */
+    private static class InvalidSignatureHandler implements ProcessHandler, GenerateSourceHandler {
+        //
+        // Private Members
+        //
+
+        /** The message describing the correct signature. */
+        private String message = null;
+
+        //
+        // Constructors
+        //
+
+        /**
+         * Creates a new InvalidSignatureHandler.
+         *
+         * @param message The message describing the correct signature.
+         */
+        public InvalidSignatureHandler(String message) {
+            this.message = message;
+        }
+
+        //
+        // Methods
+        //
+
+        @Override
+        public void process(TypeElement annotation, Set<? extends Element> annotatedElements) throws Exception {
+            throw new HandlerSignatureException(this.message);
+        }
+
+        @Override
+        public void generate(GenerationSupport generationSupport) throws Exception {
+            throw new HandlerSignatureException(this.message);
+        }
+    }
+}
@@ -0,0 +1,176 @@
+/*
+ *
+ * PROJECT
+ *     Name
+ *         SimplifiedAnnotationProcessor
+ *
+ *     Code Version
+ *         1.1
+ *
+ *     Description
+ *         An abstract annotation processor base class that simplifies the annotation
+ *         processing, but also limits it slightly. It is however good enough for most
+ *         cases and makes things a bit easier and clearer.
+ *
+ * COPYRIGHTS
+ *     Copyright (C) 2013 by Natusoft AB All rights reserved.
+ *
+ * LICENSE
+ *     Apache 2.0 (Open Source)
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ * AUTHORS
+ *     tommy ()
+ *         Changes:
+ *         2026-10-16: Created!
+ *
+ */
+package se.natusoft.annotation.processor.simplified.dispatch;
+
+import java.lang.reflect.Method;
+import java.util.Set;
+import javax.lang.model.element.TypeElement;
+import se.natusoft.annotation.processor.simplified.codegen.GenerationSupport;
+
+/**
+ * Holds a processor method annotated with one of the processing annotations together with its
+ * already validated signature. This is resolved once when the processor is initialized, so that
+ * nothing needs to be looked up or validated again for each round.
+ */
+public class HandlerMethod {
+    //
+    // Inner Types
+    //
+
+    /**
+     * The supported handler signatures.
+     */
+    public enum Signature {
+        /** (TypeElement annotation, Set&lt;? extends Element&gt; annotatedElements) */
+        ANNOTATION_AND_ELEMENTS,
+
+        /** (Set&lt;? extends Element&gt; annotatedElements) */
+        ELEMENTS,
+
+        /** (GenerationSupport generationSupport) */
+        GENERATION_SUPPORT,
+
+        /** () */
+        NO_ARGS,
+
+        /** Anything else. */
+        INVALID
+    }
+
+    //
+    // Private Members
+    //
+
+    /** The handler method. */
+    private Method method = null;
+
+    /** The validated signature of the method. */
+    private Signature signature = null;
+
+    //
+    // Constructors
+    //
+
+    /**
+     * Creates a new HandlerMethod.
+     *
+     * @param method The handler method.
+     * @param signature The validated signature of the method.
+     */
+    public HandlerMethod(Method method, Signature signature) {
+        this.method = method;
+        this.signature = signature;
+    }
+
+    //
+    // Methods
+    //
+
+    /**
+     * Returns the handler method.
+     */
+    public Method getMethod() {
+        return this.method;
+    }
+
+    /**
+     * Returns the validated signature of the method.
+     */
+    public Signature getSignature() {
+        return this.signature;
+    }
+
+    /**
+     * Returns true if the signature is one of the valid ones.
+     */
+    public boolean isValid() {
+        return this.signature != Signature.INVALID;
+    }
+
+    /**
+     * Resolves the signature of a @Process annotated method.
+     *
+     * @param method The method to resolve signature for.
+     */
+    public static Signature resolveProcessSignature(Method method) {
+        Class<?>[] paramTypes = method.getParameterTypes();
+
+        if (paramTypes.length == 1 && paramTypes[0].isAssignableFrom(Set.class)) {
+            return Signature.ELEMENTS;
+        }
+        if (paramTypes.length == 2 && paramTypes[0].isAssignableFrom(TypeElement.class) &&
+                paramTypes[1].isAssignableFrom(Set.class)) {
+            return Signature.ANNOTATION_AND_ELEMENTS;
+        }
+
+        return Signature.INVALID;
+    }
+
+    /**
+     * Resolves the signature of a @GenerateSource annotated method.
+     *
+     * @param method The method to resolve signature for.
+     */
+    public static Signature resolveGenerateSignature(Method method) {
+        Class<?>[] paramTypes = method.getParameterTypes();
+
+        if (paramTypes.length == 0) {
+            return Signature.NO_ARGS;
+        }
+        if (paramTypes.length == 1 && paramTypes[0].equals(GenerationSupport.class)) {
+            return Signature.GENERATION_SUPPORT;
+        }
+
+        return Signature.INVALID;
+    }
+
+    /**
+     * Resolves the signature of a @NewRound or @AllProcessed annotated method.
+     *
+     * @param method The method to resolve signature for.
+     */
+    public static Signature resolveNoArgsSignature(Method method) {
+        return method.getParameterTypes().length == 0 ? Signature.NO_ARGS : Signature.INVALID;
+    }
+
+    @Override
+    public String toString() {
+        return this.method.toGenericString();
+    }
+}
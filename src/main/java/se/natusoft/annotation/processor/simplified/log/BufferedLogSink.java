@@ -0,0 +1,119 @@
+/*
+ *
+ * PROJECT
+ *     Name
+ *         SimplifiedAnnotationProcessor
+ *
+ *     Code Version
+ *         1.1
+ *
+ *     Description
+ *         An abstract annotation processor base class that simplifies the annotation
+ *         processing, but also limits it slightly. It is however good enough for most
+ *         cases and makes things a bit easier and clearer.
+ *
+ * COPYRIGHTS
+ *     Copyright (C) 2013 by Natusoft AB All rights reserved.
+ *
+ * LICENSE
+ *     Apache 2.0 (Open Source)
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ * AUTHORS
+ *     tommy ()
+ *         Changes:
+ *         2026-10-16: Created!
+ *
+ */
+package se.natusoft.annotation.processor.simplified.log;
+
+import java.io.PrintStream;
+import javax.annotation.processing.Messager;
+import javax.tools.Diagnostic.Kind;
+
+/**
+ * A LogSink that buffers the messages in memory and writes them in one single write when flushed, to a PrintStream
+ * or as one NOTE to a Messager. SimplifiedAnnotationProcessor flushes it once per round, which keeps the messages
+ * of a round together when several builds write to the same console.
+ * <p>
+ * Messages are written as "[LEVEL] message", one per line. Messages can be written from any thread.
+ */
+public class BufferedLogSink implements LogSink {
+    //
+    // Private Members
+    //
+
+    /** The stream to write to or null if writing to the messager. */
+    private PrintStream out = null;
+
+    /** The messager to write to or null if writing to the stream. */
+    private Messager messager = null;
+
+    /** The messages not yet flushed. */
+    private StringBuilder buffer = new StringBuilder(1024);
+
+    //
+    // Constructors
+    //
+
+    /**
+     * Creates a new BufferedLogSink writing to a stream.
+     *
+     * @param out The stream to write to.
+     */
+    public BufferedLogSink(PrintStream out) {
+        this.out = out;
+    }
+
+    /**
+     * Creates a new BufferedLogSink writing NOTEs to a Messager.
+     *
+     * @param messager The messager to write to.
+     */
+    public BufferedLogSink(Messager messager) {
+        this.messager = messager;
+    }
+
+    //
+    // Methods
+    //
+
+    @Override
+    public synchronized void write(LogLevel level, String message) {
+        this.buffer.append('[').append(level.name()).append("] ").append(message).append('\n');
+    }
+
+    /**
+     * Writes the buffered messages, if any.
+     */
+    @Override
+    public void flush() {
+        String messages;
+        synchronized (this) {
+            if (this.buffer.length() == 0) {
+                return;
+            }
+            messages = this.buffer.toString();
+            this.buffer.setLength(0);
+        }
+
+        if (this.messager != null) {
+            this.messager.printMessage(Kind.NOTE, messages.substring(0, messages.length() - 1));
+        }
+        else {
+            this.out.print(messages);
+            this.out.flush();
+        }
+    }
+}
@@ -0,0 +1,266 @@
+/*
+ *
+ * PROJECT
+ *     Name
+ *         SimplifiedAnnotationProcessor
+ *
+ *     Code Version
+ *         1.1
+ *
+ *     Description
+ *         An abstract annotation processor base class that simplifies the annotation
+ *         processing, but also limits it slightly. It is however good enough for most
+ *         cases and makes things a bit easier and clearer.
+ *
+ * COPYRIGHTS
+ *     Copyright (C) 2013 by Natusoft AB All rights reserved.
+ *
+ * LICENSE
+ *     Apache 2.0 (Open Source)
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ * AUTHORS
+ *     tommy ()
+ *         Changes:
+ *         2026-10-16: Created!
+ *
+ */
+package se.natusoft.annotation.processor.simplified.log;
+
+import java.util.function.Supplier;
+
+/**
+ * A leveled logger. Messages below the level of the logger are dropped after a single comparison, before any
+ * message is built. To keep that cheap at the call site, messages can be given as a format with up to two
+ * arguments, where each {} is replaced by the next argument, or as a Supplier that is only called when the
+ * message is logged:
+ * <pre>
+ *     logger.info("Processing {} elements.", elements.size());
+ *     logger.debug(new Supplier&lt;String&gt;() {
+ *         public String get() {
+ *             return describe(elements);
+ *         }
+ *     });
+ * </pre>
+ * The messages go to a LogSink, which for SimplifiedAnnotationProcessor is a BufferedLogSink flushed once per round.
+ */
+public class Logger {
+    //
+    // Constants
+    //
+
+    /** A logger that logs nothing. */
+    public static final Logger OFF = new Logger(LogLevel.OFF, null);
+
+    //
+    // Private Members
+    //
+
+    /** The ordinal of the least severe level logged. */
+    private int threshold = 0;
+
+    /** The sink to write to. */
+    private LogSink sink = null;
+
+    //
+    // Constructors
+    //
+
+    /**
+     * Creates a new Logger.
+     *
+     * @param level The least severe level to log, or OFF to log nothing.
+     * @param sink The sink to write to. Can be null if the level is OFF.
+     */
+    public Logger(LogLevel level, LogSink sink) {
+        this.threshold = level.ordinal();
+        this.sink = sink;
+    }
+
+    //
+    // Methods
+    //
+
+    /**
+     * Returns true if messages of the specified level are logged.
+     *
+     * @param level The level to check.
+     */
+    public boolean isEnabled(LogLevel level) {
+        return level.ordinal() >= this.threshold;
+    }
+
+    /**
+     * Logs a message.
+     *
+     * @param level The level of the message. Must not be OFF.
+     * @param message The message.
+     */
+    public void log(LogLevel level, String message) {
+        if (level.ordinal() >= this.threshold) {
+            this.sink.write(level, message);
+        }
+    }
+
+    /**
+     * Logs a message formatted with one argument.
+     *
+     * @param level The level of the message. Must not be OFF.
+     * @param format The message with a {} to replace with the argument.
+     * @param arg The argument.
+     */
+    public void log(LogLevel level, String format, Object arg) {
+        if (level.ordinal() >= this.threshold) {
+            this.sink.write(level, format(format, arg, null));
+        }
+    }
+
+    /**
+     * Logs a message formatted with two arguments.
+     *
+     * @param level The level of the message. Must not be OFF.
+     * @param format The message with a {} to replace with each argument.
+     * @param arg1 The first argument.
+     * @param arg2 The second argument.
+     */
+    public void log(LogLevel level, String format, Object arg1, Object arg2) {
+        if (level.ordinal() >= this.threshold) {
+            this.sink.write(level, format(format, arg1, arg2));
+        }
+    }
+
+    /**
+     * Logs a message supplied when it is logged.
+     *
+     * @param level The level of the message. Must not be OFF.
+     * @param message Supplies the message.
+     */
+    public void log(LogLevel level, Supplier<String> message) {
+        if (level.ordinal() >= this.threshold) {
+            this.sink.write(level, message.get());
+        }
+    }
+
+    /** Logs a DEBUG message. */
+    public void debug(String message) {
+        log(LogLevel.DEBUG, message);
+    }
+
+    /** Logs a DEBUG message formatted with one argument. See log(LogLevel, String, Object). */
+    public void debug(String format, Object arg) {
+        log(LogLevel.DEBUG, format, arg);
+    }
+
+    /** Logs a DEBUG message formatted with two arguments. See log(LogLevel, String, Object, Object). */
+    public void debug(String format, Object arg1, Object arg2) {
+        log(LogLevel.DEBUG, format, arg1, arg2);
+    }
+
+    /** Logs a DEBUG message supplied when it is logged. See log(LogLevel, Supplier). */
+    public void debug(Supplier<String> message) {
+        log(LogLevel.DEBUG, message);
+    }
+
+    /** Logs a INFO message. */
+    public void info(String message) {
+        log(LogLevel.INFO, message);
+    }
+
+    /** Logs a INFO message formatted with one argument. See log(LogLevel, String, Object). */
+    public void info(String format, Object arg) {
+        log(LogLevel.INFO, format, arg);
+    }
+
+    /** Logs a INFO message formatted with two arguments. See log(LogLevel, String, Object, Object). */
+    public void info(String format, Object arg1, Object arg2) {
+        log(LogLevel.INFO, format, arg1, arg2);
+    }
+
+    /** Logs a INFO message supplied when it is logged. See log(LogLevel, Supplier). */
+    public void info(Supplier<String> message) {
+        log(LogLevel.INFO, message);
+    }
+
+    /** Logs a WARN message. */
+    public void warn(String message) {
+        log(LogLevel.WARN, message);
+    }
+
+    /** Logs a WARN message formatted with one argument. See log(LogLevel, String, Object). */
+    public void warn(String format, Object arg) {
+        log(LogLevel.WARN, format, arg);
+    }
+
+    /** Logs a WARN message formatted with two arguments. See log(LogLevel, String, Object, Object). */
+    public void warn(String format, Object arg1, Object arg2) {
+        log(LogLevel.WARN, format, arg1, arg2);
+    }
+
+    /** Logs a WARN message supplied when it is logged. See log(LogLevel, Supplier). */
+    public void warn(Supplier<String> message) {
+        log(LogLevel.WARN, message);
+    }
+
+    /** Logs a ERROR message. */
+    public void error(String message) {
+        log(LogLevel.ERROR, message);
+    }
+
+    /** Logs a ERROR message formatted with one argument. See log(LogLevel, String, Object). */
+    public void error(String format, Object arg) {
+        log(LogLevel.ERROR, format, arg);
+    }
+
+    /** Logs a ERROR message formatted with two arguments. See log(LogLevel, String, Object, Object). */
+    public void error(String format, Object arg1, Object arg2) {
+        log(LogLevel.ERROR, format, arg1, arg2);
+    }
+
+    /** Logs a ERROR message supplied when it is logged. See log(LogLevel, Supplier). */
+    public void error(Supplier<String> message) {
+        log(LogLevel.ERROR, message);
+    }
+
+    /**
+     * Writes the messages buffered by the sink.
+     */
+    public void flush() {
+        if (this.sink != null) {
+            this.sink.flush();
+        }
+    }
+
+    /**
+     * Replaces the first two {} of a format with the arguments.
+     *
+     * @param format The format.
+     * @param arg1 The first argument.
+     * @param arg2 The second argument, or null if only one.
+     */
+    private static String format(String format, Object arg1, Object arg2) {
+        StringBuilder message = new StringBuilder(format.length() + 32);
+        int start = 0;
+        int argIx = 0;
+        int ref = format.indexOf("{}");
+        while (ref >= 0 && argIx < 2) {
+            message.append(format, start, ref).append(argIx == 0 ? arg1 : arg2);
+            ++argIx;
+            start = ref + 2;
+            ref = format.indexOf("{}", start);
+        }
+        message.append(format, start, format.length());
+
+        return message.toString();
+    }
+}
@@ -0,0 +1,326 @@
+/*
+ *
+ * PROJECT
+ *     Name
+ *         SimplifiedAnnotationProcessor
+ *
+ *     Code Version
+ *         1.1
+ *
+ *     Description
+ *         An abstract annotation processor base class that simplifies the annotation
+ *         processing, but also limits it slightly. It is however good enough for most
+ *         cases and makes things a bit easier and clearer.
+ *
+ * COPYRIGHTS
+ *     Copyright (C) 2013 by Natusoft AB All rights reserved.
+ *
+ * LICENSE
+ *     Apache 2.0 (Open Source)
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ * AUTHORS
+ *     tommy ()
+ *         Changes:
+ *         2026-10-16: Created!
+ *
+ */
+package se.natusoft.annotation.processor.simplified.model;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Array;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.MirroredTypeException;
+import javax.lang.model.type.MirroredTypesException;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+
+/**
+ * A typed view of the values of an annotation. This is the InvocationHandler of a dynamic proxy implementing
+ * a view interface. All values are decoded from the annotation when the view is created, after which calling a
+ * view method just returns the already decoded value.
+ * <p>
+ * The view interface can be the annotation interface itself, or any interface having no-args methods named as
+ * the annotation methods. The decoded value depends on the return type of the view method:
+ * <ul>
+ * <li>Primitives, String and enums - The value as is.</li>
+ * <li>String for a Class valued annotation method - The qualified name of the type.</li>
+ * <li>TypeMirror for a Class valued annotation method - The type.</li>
+ * <li>SAPType for a Class valued annotation method - The type or null if it is not a declared type.</li>
+ * <li>Class - Since the class is most likely not yet compiled this throws MirroredTypeException just like
+ *     Element.getAnnotation(...) does.</li>
+ * <li>An annotation or SAPAnnotation for an annotation valued annotation method - A view of, or a wrapper
+ *     of the nested annotation.</li>
+ * <li>Arrays of any of the above.</li>
+ * </ul>
+ */
+public class AnnotationView implements InvocationHandler {
+    //
+    // Private Members
+    //
+
+    /** The view interface. */
+    private Class<?> viewInterface = null;
+
+    /** The annotation being viewed. */
+    private SAPAnnotation annotation = null;
+
+    /** The view methods and where to find their decoded values. */
+    private Plan plan = null;
+
+    /** The decoded values in the same order as the view methods of the plan. */
+    private Object[] values = null;
+
+    /**
+     * Flags the Class valued view methods in the same order as the view methods of the plan. The values of these
+     * are the undecoded annotation values, which are only used to create the exception to throw if called.
+     */
+    private boolean[] classValued = null;
+
+    /** The plans of already viewed interfaces. Kept by the interface class, so they don't keep its loader alive. */
+    private static final ClassValue<Plan> plans = new ClassValue<Plan>() {
+        @Override
+        protected Plan computeValue(Class<?> viewInterface) {
+            return new Plan(viewInterface);
+        }
+    };
+
+    //
+    // Constructors
+    //
+
+    /**
+     * Creates a new AnnotationView decoding all values of the annotation.
+     *
+     * @param viewInterface The view interface.
+     * @param annotation The annotation being viewed.
+     *
+     * @throws IllegalArgumentException if the view is not an interface or has a primitive method with no
+     *                                  corresponding value in the annotation.
+     */
+    private AnnotationView(Class<?> viewInterface, SAPAnnotation annotation) {
+        this.viewInterface = viewInterface;
+        this.annotation = annotation;
+        this.plan = getPlan(viewInterface);
+        this.values = new Object[this.plan.methods.length];
+        this.classValued = new boolean[this.plan.methods.length];
+
+        for (int ix = 0; ix < this.plan.methods.length; ix++) {
+            Method method = this.plan.methods[ix];
+            AnnotationValue value = annotation.getAnnotationValueFor(method.getName());
+            if (value == null) {
+                if (method.getReturnType().isPrimitive()) {
+                    throw new IllegalArgumentException("Annotation '" + annotation + "' has no value for view method '" +
+                            method.getName() + "' of '" + viewInterface.getName() + "'!");
+                }
+            }
+            else if (isClassValued(method.getReturnType())) {
+                this.classValued[ix] = true;
+                this.values[ix] = value.getValue();
+            }
+            else {
+                this.values[ix] = decode(value.getValue(), method.getReturnType());
+            }
+        }
+    }
+
+    //
+    // Methods
+    //
+
+    /**
+     * Creates a new view of an annotation.
+     *
+     * @param viewInterface The view interface to implement.
+     * @param annotation The annotation to view.
+     * @param <T> The view type.
+     *
+     * @throws IllegalArgumentException if the view is not an interface or has a primitive method with no
+     *                                  corresponding value in the annotation.
+     */
+    public static <T> T create(Class<T> viewInterface, SAPAnnotation annotation) {
+        return viewInterface.cast(Proxy.newProxyInstance(viewInterface.getClassLoader(), new Class<?>[] {viewInterface},
+                new AnnotationView(viewInterface, annotation)));
+    }
+
+    /**
+     * Returns the plan for a view interface. Plans are only created once per interface.
+     *
+     * @param viewInterface The view interface to get plan for.
+     */
+    private static Plan getPlan(Class<?> viewInterface) {
+        if (!viewInterface.isInterface()) {
+            throw new IllegalArgumentException("'" + viewInterface.getName() + "' is not an interface!");
+        }
+
+        return plans.get(viewInterface);
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        Integer ix = this.plan.indexes.get(method.getName());
+        if (ix != null && method.getParameterTypes().length == 0) {
+            if (this.classValued[ix]) {
+                throw mirroredTypeException(this.values[ix]);
+            }
+            return this.values[ix];
+        }
+
+        if (method.getName().equals("annotationType") && method.getParameterTypes().length == 0) {
+            return this.viewInterface;
+        }
+        if (method.getName().equals("equals") && method.getParameterTypes().length == 1) {
+            return proxy == args[0];
+        }
+        if (method.getName().equals("hashCode") && method.getParameterTypes().length == 0) {
+            return System.identityHashCode(proxy);
+        }
+        if (method.getName().equals("toString") && method.getParameterTypes().length == 0) {
+            return this.annotation.toString();
+        }
+
+        throw new UnsupportedOperationException("'" + method + "' is not an annotation view method!");
+    }
+
+    /**
+     * Returns true if the specified view method return type is Class or an array of Class.
+     *
+     * @param returnType The return type to check.
+     */
+    private static boolean isClassValued(Class<?> returnType) {
+        return returnType == Class.class || (returnType.isArray() && returnType.getComponentType() == Class.class);
+    }
+
+    /**
+     * Returns the exception to throw when a Class valued view method is called.
+     *
+     * @param value The annotation value of the view method.
+     */
+    private static RuntimeException mirroredTypeException(Object value) {
+        if (value instanceof List) {
+            List<TypeMirror> types = new ArrayList<TypeMirror>();
+            for (Object element : (List<?>)value) {
+                types.add((TypeMirror)((AnnotationValue)element).getValue());
+            }
+            return new MirroredTypesException(types);
+        }
+
+        return new MirroredTypeException((TypeMirror)value);
+    }
+
+    /**
+     * Decodes an annotation value into the specified type.
+     *
+     * @param value The annotation value as returned by AnnotationValue.getValue().
+     * @param type The type to decode to.
+     *
+     * @throws IllegalArgumentException if the value can't be decoded into the type.
+     */
+    @SuppressWarnings("unchecked")
+    private static Object decode(Object value, Class<?> type) {
+        if (value instanceof List) {
+            if (!type.isArray()) {
+                throw new IllegalArgumentException("An array value can't be decoded into '" + type.getName() + "'!");
+            }
+            List<?> elements = (List<?>)value;
+            Object array = Array.newInstance(type.getComponentType(), elements.size());
+            for (int ix = 0; ix < elements.size(); ix++) {
+                Array.set(array, ix, decode(((AnnotationValue)elements.get(ix)).getValue(), type.getComponentType()));
+            }
+            return array;
+        }
+
+        if (value instanceof TypeMirror) {
+            TypeMirror typeMirror = (TypeMirror)value;
+            if (type == String.class) {
+                return typeMirror.toString();
+            }
+            if (type == SAPType.class) {
+                return typeMirror.getKind() == TypeKind.DECLARED ?
+                        SAPModelFactory.getType(((DeclaredType)typeMirror).asElement()) : null;
+            }
+            return typeMirror;
+        }
+
+        if (value instanceof VariableElement) {
+            String constant = ((VariableElement)value).getSimpleName().toString();
+            if (type.isEnum()) {
+                return Enum.valueOf((Class<Enum>)type, constant);
+            }
+            return constant;
+        }
+
+        if (value instanceof AnnotationMirror) {
+            SAPAnnotation nested = new SAPAnnotation((AnnotationMirror)value);
+            if (type == SAPAnnotation.class) {
+                return nested;
+            }
+            return nested.getView(type);
+        }
+
+        return value;
+    }
+
+    //
+    // Inner Classes
+    //
+
+    /**
+     * The view methods of a view interface and where to find their decoded values.
+     */
+    private static class Plan {
+        //
+        // Private Members
+        //
+
+        /** The view methods. */
+        private Method[] methods = null;
+
+        /** The index of the decoded value of each view method keyed by method name. */
+        private Map<String, Integer> indexes = new HashMap<String, Integer>();
+
+        //
+        // Constructors
+        //
+
+        /**
+         * Creates a new Plan.
+         *
+         * @param viewInterface The view interface to create plan for.
+         */
+        public Plan(Class<?> viewInterface) {
+            List<Method> methods = new ArrayList<Method>();
+            for (Method method : viewInterface.getMethods()) {
+                if (method.getParameterTypes().length == 0 && method.getReturnType() != Void.TYPE &&
+                        !(method.getName().equals("annotationType") && Annotation.class.isAssignableFrom(viewInterface)) &&
+                        !method.getName().equals("hashCode") && !method.getName().equals("toString") &&
+                        !this.indexes.containsKey(method.getName())) {
+                    this.indexes.put(method.getName(), methods.size());
+                    methods.add(method);
+                }
+            }
+            this.methods = methods.toArray(new Method[methods.size()]);
+        }
+    }
+}
@@ -38,7 +38,16 @@
  */
 package se.natusoft.annotation.processor.simplified.model;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import javax.lang.model.element.*;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
 
 /**
  * Wraps an AnnotationMirror.
@@ -54,6 +63,22 @@ public class SAPAnnotation {
     /** The parent if any. */
     private Element parent;
 
+    /** All values of the annotation including defaults keyed by annotation method name. Resolved on demand. */
+    private Map<String, AnnotationValue> values = null;
+
+    /**
+     * The default values of annotation types keyed by the qualified name of the annotation type. These are
+     * shared by all annotations of the same type and processing thread, and are only valid for the round they
+     * were resolved in.
+     */
+    private static final ThreadLocal<Map<String, Map<String, AnnotationValue>>> defaultValues =
+            new ThreadLocal<Map<String, Map<String, AnnotationValue>>>() {
+                @Override
+                protected Map<String, Map<String, AnnotationValue>> initialValue() {
+                    return new HashMap<String, Map<String, AnnotationValue>>();
+                }
+            };
+
     //
     // Constructors
     //
@@ -82,30 +107,64 @@ public class SAPAnnotation {
     // Methods
     //
 
+    /**
+     * Drops the default values resolved by the current thread. This is called by SAPBaseElement.newRound(...) and
+     * SAPBaseElement.processingOver(...).
+     */
+    public static void clear() {
+        defaultValues.remove();
+    }
+
     /**
      * Returns the value for named annotation method.
      *
      * @param name The annotation method to get the value for.
      */
     public AnnotationValue getAnnotationValueFor(String name) {
-        AnnotationValue value = null;
+        return getValues().get(name);
+    }
 
-        for (ExecutableElement executableElement : this.annotationMirror.getElementValues().keySet()) {
-            if (executableElement.getSimpleName().contentEquals(name)) {
-                value = this.annotationMirror.getElementValues().get(executableElement);
-                break;
+    /**
+     * Returns all values of the annotation including defaults keyed by annotation method name. These are resolved
+     * the first time they are asked for.
+     */
+    private Map<String, AnnotationValue> getValues() {
+        SAPBaseElement.checkProcessingThread();
+        if (this.values == null) {
+            TypeElement annotationTypeElement = (TypeElement)this.annotationMirror.getAnnotationType().asElement();
+            Map<String, AnnotationValue> values = new HashMap<String, AnnotationValue>(getDefaultValues(annotationTypeElement));
+            for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry :
+                    this.annotationMirror.getElementValues().entrySet()) {
+                values.put(entry.getKey().getSimpleName().toString(), entry.getValue());
             }
+            this.values = values;
         }
 
-        // If value still is null we have to resolve the default value.
-        if (value == null) {
-            TypeElement annotationTypeElement = (TypeElement)this.annotationMirror.getAnnotationType().asElement();
-            SAPType annotationType = new SAPType(annotationTypeElement);
-            SAPExecutable annotationMethod = annotationType.getMethodByName(name);
-            value = annotationMethod.getAnnotationDefaultValue();
+        return this.values;
+    }
+
+    /**
+     * Returns the default values of an annotation type keyed by annotation method name. Methods without a default
+     * value are not included. These are resolved once per annotation type and round.
+     *
+     * @param annotationTypeElement The annotation type to get default values for.
+     */
+    private static Map<String, AnnotationValue> getDefaultValues(TypeElement annotationTypeElement) {
+        Map<String, Map<String, AnnotationValue>> defaultValues = SAPAnnotation.defaultValues.get();
+        String annotationTypeName = annotationTypeElement.getQualifiedName().toString();
+        Map<String, AnnotationValue> defaults = defaultValues.get(annotationTypeName);
+        if (defaults == null) {
+            defaults = new HashMap<String, AnnotationValue>();
+            for (ExecutableElement annotationMethod : ElementFilter.methodsIn(annotationTypeElement.getEnclosedElements())) {
+                AnnotationValue defaultValue = annotationMethod.getDefaultValue();
+                if (defaultValue != null) {
+                    defaults.put(annotationMethod.getSimpleName().toString(), defaultValue);
+                }
+            }
+            defaultValues.put(annotationTypeName, defaults);
         }
 
-        return value;
+        return defaults;
     }
 
     /**
@@ -122,6 +181,100 @@ public class SAPAnnotation {
         return null;
     }
 
+    /**
+     * Returns the type of a Class valued annotation method. This is read directly from the annotation value
+     * and does not involve any MirroredTypeException.
+     *
+     * @param name The annotation method to get the value for.
+     */
+    public TypeMirror getTypeMirrorFor(String name) {
+        AObject value = getValueFor(name);
+        return value != null ? value.toTypeMirror() : null;
+    }
+
+    /**
+     * Returns the qualified name of the type of a Class valued annotation method.
+     *
+     * @param name The annotation method to get the value for.
+     */
+    public String getTypeNameFor(String name) {
+        AObject value = getValueFor(name);
+        return value != null ? value.toTypeName() : null;
+    }
+
+    /**
+     * Returns the type of a Class valued annotation method as a SAPType. Null is returned if the type is
+     * not a declared type, like int.class.
+     *
+     * @param name The annotation method to get the value for.
+     */
+    public SAPType getSAPTypeFor(String name) {
+        AObject value = getValueFor(name);
+        return value != null ? value.toSAPType() : null;
+    }
+
+    /**
+     * Returns the types of a Class[] valued annotation method.
+     *
+     * @param name The annotation method to get the value for.
+     */
+    public List<TypeMirror> getTypeMirrorsFor(String name) {
+        AObject value = getValueFor(name);
+        return value != null ? value.toTypeMirrors() : Collections.<TypeMirror>emptyList();
+    }
+
+    /**
+     * Returns the qualified names of the types of a Class[] valued annotation method.
+     *
+     * @param name The annotation method to get the value for.
+     */
+    public List<String> getTypeNamesFor(String name) {
+        AObject value = getValueFor(name);
+        return value != null ? value.toTypeNames() : Collections.<String>emptyList();
+    }
+
+    /**
+     * Returns the types of a Class[] valued annotation method as SAPTypes. Types that are not declared types,
+     * like int.class, are not included.
+     *
+     * @param name The annotation method to get the value for.
+     */
+    public List<SAPType> getSAPTypesFor(String name) {
+        AObject value = getValueFor(name);
+        return value != null ? value.toSAPTypes() : Collections.<SAPType>emptyList();
+    }
+
+    /**
+     * Returns a typed view of the values of this annotation. The view interface can be the annotation interface
+     * itself, or any interface with methods named as the annotation methods. All values are decoded once when
+     * the view is created. The view is cached by SAPModelFactory for the wrapped AnnotationMirror during the
+     * round, so all SAPAnnotations of the same mirror share it. See AnnotationView for how values are decoded for
+     * different view method return types.
+     * <p>
+     * Example:
+     * <pre>
+     *     MyAnnotation myAnnotation = type.getAnnotationByClass(MyAnnotation.class).getView(MyAnnotation.class);
+     *     int num = myAnnotation.num();
+     * </pre>
+     *
+     * @param viewInterface The view interface to implement.
+     * @param <T> The view type.
+     *
+     * @throws IllegalArgumentException if the view is not an interface or has a primitive method with no
+     *                                  corresponding value in this annotation.
+     */
+    public <T> T getView(Class<T> viewInterface) {
+        return SAPModelFactory.getView(this, viewInterface);
+    }
+
+    /**
+     * Returns the wrapped AnnotationMirror.
+     */
+    public AnnotationMirror getAnnotationMirror() {
+        SAPBaseElement.checkProcessingThread();
+        return this.annotationMirror;
+    }
+
     /**
      * Returns the parent element if any.
      */
@@ -136,6 +289,11 @@ public class SAPAnnotation {
         return this.parent != null;
     }
 
+    @Override
+    public String toString() {
+        return this.annotationMirror.toString();
+    }
+
     //
     // Inner Classes
     //
@@ -194,5 +352,81 @@ public class SAPAnnotation {
         public char toChar() {
             return (Character)this.object;
         }
+
+        /**
+         * Returns the value of a Class valued annotation method as a TypeMirror.
+         */
+        public TypeMirror toTypeMirror() {
+            return (TypeMirror)this.object;
+        }
+
+        /**
+         * Returns the value of a Class valued annotation method as a qualified type name.
+         */
+        public String toTypeName() {
+            return toTypeMirror().toString();
+        }
+
+        /**
+         * Returns the value of a Class valued annotation method as a SAPType. Null is returned if the type is
+         * not a declared type, like int.class.
+         */
+        public SAPType toSAPType() {
+            return toSAPType(toTypeMirror());
+        }
+
+        /**
+         * Returns the value of a Class[] valued annotation method as a list of TypeMirrors.
+         */
+        public List<TypeMirror> toTypeMirrors() {
+            List<?> values = (List<?>)this.object;
+            List<TypeMirror> typeMirrors = new ArrayList<TypeMirror>(values.size());
+            for (Object value : values) {
+                typeMirrors.add((TypeMirror)((AnnotationValue)value).getValue());
+            }
+
+            return typeMirrors;
+        }
+
+        /**
+         * Returns the value of a Class[] valued annotation method as a list of qualified type names.
+         */
+        public List<String> toTypeNames() {
+            List<String> typeNames = new ArrayList<String>();
+            for (TypeMirror typeMirror : toTypeMirrors()) {
+                typeNames.add(typeMirror.toString());
+            }
+
+            return typeNames;
+        }
+
+        /**
+         * Returns the value of a Class[] valued annotation method as a list of SAPTypes. Types that are not
+         * declared types, like int.class, are not included.
+         */
+        public List<SAPType> toSAPTypes() {
+            List<SAPType> types = new ArrayList<SAPType>();
+            for (TypeMirror typeMirror : toTypeMirrors()) {
+                SAPType type = toSAPType(typeMirror);
+                if (type != null) {
+                    types.add(type);
+                }
+            }
+
+            return types;
+        }
+
+        /**
+         * Returns a SAPType for a TypeMirror or null if it is not a declared type.
+         *
+         * @param typeMirror The TypeMirror to get a SAPType for.
+         */
+        private static SAPType toSAPType(TypeMirror typeMirror) {
+            if (typeMirror.getKind() != TypeKind.DECLARED) {
+                return null;
+            }
+
+            return SAPModelFactory.getType(((DeclaredType)typeMirror).asElement());
+        }
     }
 }
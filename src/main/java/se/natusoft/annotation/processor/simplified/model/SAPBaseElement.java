@@ -39,7 +39,11 @@
 package se.natusoft.annotation.processor.simplified.model;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 import javax.lang.model.element.AnnotationMirror;
 import javax.lang.model.element.Element;
 import javax.lang.model.element.ElementKind;
@@ -47,18 +51,43 @@ import javax.lang.model.element.TypeElement;
 
 /**
  * Base class wrapping Element.
+ * <p>
+ * The wrapped elements, like all of the javac model, may only be used on the processing thread. The wrappers
+ * check this and throw IllegalStateException when used on another thread. A thread is a processing thread from
+ * the first round of a processor on it until processing is over for all processors on it, so compilations on
+ * different threads of the same JVM each have their own processing thread. Work done on other threads with
+ * SimplifiedAnnotationProcessor.runInParallel(...) can have the model used on its behalf through
+ * ProcessingThreadBridge.call(...).
  */
 public class SAPBaseElement {
     //
     // Private Members
     //
 
+    /**
+     * The current processing round. Information cached by wrappers is only valid for the round it was cached in.
+     * The rounds of all processing threads are counted together, so a round number is never reused.
+     */
+    private static final AtomicInteger round = new AtomicInteger();
+
+    /** The processors the current thread is processing for. This is only set on processing threads. */
+    private static final ThreadLocal<Set<Object>> processors = new ThreadLocal<Set<Object>>();
+
+    /** The number of processing threads. */
+    private static final AtomicInteger processingThreads = new AtomicInteger();
+
     /** The base element. */
     private Element element = null;
 
     /** The parent of the element if any. */
     private Element parent = null;
 
+    /** The hash code, computed on first use. */
+    private int hashCode = 0;
+
+    /** True when hashCode has been computed. */
+    private boolean hashed = false;
+
     //
     // Constructor
     //
@@ -86,10 +115,80 @@ public class SAPBaseElement {
     // Methods
     //
 
+    /**
+     * Tells the model that a new processing round has started on the current thread. This makes the current thread
+     * a processing thread and all wrappers drop information cached during previous rounds. This is called by
+     * SimplifiedAnnotationProcessor.
+     *
+     * @param processor The processor starting the round.
+     */
+    public static void newRound(Object processor) {
+        Set<Object> threadProcessors = processors.get();
+        if (threadProcessors == null) {
+            threadProcessors = Collections.newSetFromMap(new IdentityHashMap<Object, Boolean>());
+            processors.set(threadProcessors);
+            processingThreads.incrementAndGet();
+        }
+        threadProcessors.add(processor);
+        round.incrementAndGet();
+        SAPModelFactory.clear();
+        SAPTypeHierarchy.clear();
+        SAPAnnotation.clear();
+    }
+
+    /**
+     * Tells the model that processing is over for a processor. This drops all wrappers and information cached by
+     * the current thread so that no javac symbols are kept alive after the compilation. When processing is over
+     * for all processors on the current thread it is no longer a processing thread. This is called by
+     * SimplifiedAnnotationProcessor.
+     *
+     * @param processor The processor done processing.
+     */
+    public static void processingOver(Object processor) {
+        SAPModelFactory.clear();
+        SAPTypeHierarchy.clear();
+        SAPAnnotation.clear();
+
+        Set<Object> threadProcessors = processors.get();
+        if (threadProcessors != null && threadProcessors.remove(processor) && threadProcessors.isEmpty()) {
+            processors.remove();
+            processingThreads.decrementAndGet();
+        }
+    }
+
+    /**
+     * Returns the current processing round.
+     */
+    protected static int getRound() {
+        return round.get();
+    }
+
+    /**
+     * Returns true if the current thread is a processing thread, or if no thread is processing.
+     */
+    public static boolean isProcessingThread() {
+        return processors.get() != null || processingThreads.get() == 0;
+    }
+
+    /**
+     * Checks that the current thread may use the model.
+     *
+     * @throws IllegalStateException if the current thread is not a processing thread.
+     */
+    protected static void checkProcessingThread() {
+        if (!isProcessingThread()) {
+            throw new IllegalStateException("The model can only be used on the processing thread, not on '" +
+                    Thread.currentThread().getName() + "'! Use ProcessingThreadBridge.call(...).");
+        }
+    }
+
     /**
      * Returns the element.
+     *
+     * @throws IllegalStateException if not called on the processing thread.
      */
     protected Element getElement() {
+        checkProcessingThread();
         return this.element;
     }
 
@@ -111,28 +210,28 @@ public class SAPBaseElement {
      * Returns the simple name as a String.
      */
     public String getSimpleName() {
-        return this.element.getSimpleName().toString();
+        return getElement().getSimpleName().toString();
     }
 
     /**
      * Returns the kind of element.
      */
     public ElementKind getKind() {
-        return this.element.getKind();
+        return getElement().getKind();
     }
 
     /**
      * Returns true if there are annotations avialable.
      */
     public boolean hasAnnotations() {
-        return !this.element.getAnnotationMirrors().isEmpty();
+        return !getElement().getAnnotationMirrors().isEmpty();
     }
 
     /**
      * Returns any annotations.
      */
     public List<? extends AnnotationMirror> getAnnotationMirrors() {
-        return this.element.getAnnotationMirrors();
+        return getElement().getAnnotationMirrors();
     }
 
     /**
@@ -176,7 +275,7 @@ public class SAPBaseElement {
         List<SAPAnnotation> annotations = new ArrayList<SAPAnnotation>();
 
         for (AnnotationMirror annotationMirror : getAnnotationMirrors()) {
-            SAPAnnotation annotation = new SAPAnnotation(annotationMirror, this.element);
+            SAPAnnotation annotation = new SAPAnnotation(annotationMirror, getElement());
             annotations.add(annotation);
         }
 
@@ -193,7 +292,7 @@ public class SAPBaseElement {
 
         AnnotationMirror annMirror = getAnnotationMirrorByName(annotation);
         if (annMirror != null) {
-            ann = new SAPAnnotation(annMirror, this.element);
+            ann = new SAPAnnotation(annMirror, getElement());
         }
 
         return ann;
@@ -213,11 +312,26 @@ public class SAPBaseElement {
 
     @Override
     public int hashCode() {
-        return this.element.getSimpleName().hashCode() + this.element.getKind().toString().hashCode() + this.element.asType().toString().hashCode();
+        if (!this.hashed) {
+            this.hashCode = computeHashCode();
+            this.hashed = true;
+        }
+
+        return this.hashCode;
+    }
+
+    /**
+     * Computes the hash code. This is only done once per wrapper.
+     */
+    protected int computeHashCode() {
+        return getElement().getSimpleName().hashCode() + getElement().getKind().toString().hashCode() + getElement().asType().toString().hashCode();
     }
 
     @Override
     public boolean equals(Object object) {
+        if (object == this) {
+            return true;
+        }
         if (object == null) {
             return false;
         }
@@ -226,9 +340,15 @@ public class SAPBaseElement {
         }
 
         SAPBaseElement bmObject = (SAPBaseElement)object;
-        return this.element.getSimpleName().equals(bmObject.element.getSimpleName()) &&
-                this.element.getKind() == bmObject.getKind() &&
-                this.element.asType().toString().equals(bmObject.element.asType().toString());
+        if (bmObject.element == this.element) {
+            return true;
+        }
+        if (bmObject.hashCode() != hashCode()) {
+            return false;
+        }
+        return getElement().getSimpleName().equals(bmObject.getElement().getSimpleName()) &&
+                getElement().getKind() == bmObject.getKind() &&
+                getElement().asType().toString().equals(bmObject.getElement().asType().toString());
     }
 
     @Override
@@ -236,11 +356,11 @@ public class SAPBaseElement {
         StringBuilder sb = new StringBuilder();
 
         sb.append("simpleName: ");
-        sb.append(this.element.getSimpleName());
+        sb.append(getElement().getSimpleName());
         sb.append(", kind: ");
-        sb.append(this.element.getKind().toString());
+        sb.append(getElement().getKind().toString());
         sb.append(", type: ");
-        sb.append(this.element.asType().toString());
+        sb.append(getElement().asType().toString());
 
         return sb.toString();
     }
@@ -106,12 +106,50 @@ public class SAPExecutable extends SAPBaseElement {
         List<SAPVariable> parameters = new ArrayList<SAPVariable>();
 
         for (VariableElement elem : getExecutable().getParameters()) {
-            parameters.add(new SAPVariable(elem, getElement()));
+            parameters.add(SAPModelFactory.getVariable(elem, getElement()));
         }
 
         return parameters;
     }
 
+    /**
+     * Returns the name and erased parameter types of the executable in the form "name(type,type)".
+     * For example "put(java.lang.Object,java.lang.Object)" for Map.put(K, V).
+     */
+    public String getErasedSignature() {
+        StringBuilder signature = new StringBuilder(getSimpleName());
+        signature.append('(');
+        String comma = "";
+        for (VariableElement param : getExecutable().getParameters()) {
+            signature.append(comma);
+            signature.append(erasedName(param.asType()));
+            comma = ",";
+        }
+        signature.append(')');
+
+        return signature.toString();
+    }
+
+    /**
+     * Returns the name of the erasure of a type.
+     *
+     * @param type The type to get the erased name of.
+     */
+    private static String erasedName(TypeMirror type) {
+        if (SAPType.typeUtils != null) {
+            return SAPType.typeUtils.erasure(type).toString();
+        }
+
+        // No type utils available, do a best effort of removing type arguments.
+        String name = type.toString();
+        int ix = name.indexOf('<');
+        if (ix > 0) {
+            name = name.substring(0, ix) + name.substring(name.lastIndexOf('>') + 1);
+        }
+
+        return name;
+    }
+
     /**
      * Returns the throws list as a list of names.
      */
@@ -148,6 +186,6 @@ public class SAPExecutable extends SAPBaseElement {
      * Returns the parent as a SAPType.
      */
     public SAPType getParentType() {
-        return new SAPType(getParent());
+        return SAPModelFactory.getType(getParent());
     }
 }
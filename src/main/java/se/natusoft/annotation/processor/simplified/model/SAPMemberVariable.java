@@ -66,6 +66,6 @@ public class SAPMemberVariable extends SAPVariable {
      * Returns the type this member is a member of.
      */
     public SAPType getMemberOf() {
-        return new SAPType(getElement().getEnclosingElement());
+        return SAPModelFactory.getType(getElement().getEnclosingElement());
     }
 }
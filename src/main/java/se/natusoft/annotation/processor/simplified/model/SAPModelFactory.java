@@ -0,0 +1,243 @@
+/*
+ *
+ * PROJECT
+ *     Name
+ *         SimplifiedAnnotationProcessor
+ *
+ *     Code Version
+ *         1.1
+ *
+ *     Description
+ *         An abstract annotation processor base class that simplifies the annotation
+ *         processing, but also limits it slightly. It is however good enough for most
+ *         cases and makes things a bit easier and clearer.
+ *
+ * COPYRIGHTS
+ *     Copyright (C) 2013 by Natusoft AB All rights reserved.
+ *
+ * LICENSE
+ *     Apache 2.0 (Open Source)
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ * AUTHORS
+ *     tommy ()
+ *         Changes:
+ *         2026-10-16: Created!
+ *
+ */
+package se.natusoft.annotation.processor.simplified.model;
+
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.Element;
+
+/**
+ * Provides one wrapper per Element and round. All navigation methods of the model get their wrappers from here,
+ * so asking for the same type, method or field twice returns the same wrapper instance, including everything
+ * it has cached. Typed annotation views are likewise shared per AnnotationMirror. Wrappers are keyed on Element
+ * identity, and all are dropped when a new round starts and when
+ * processing is over, so that no javac symbols are kept alive after the compilation. They are kept per processing
+ * thread, so compilations running in parallel in the same JVM, like in a build daemon, each have their own.
+ * <p>
+ * Wrappers with a parent that is not the enclosing element of the wrapped element, like inherited methods
+ * wrapped with the inheriting type as parent, or without a parent, are not shared since they are not the same
+ * wrapper.
+ * <p>
+ * Like the wrappers, this can only be used on the processing thread.
+ */
+public class SAPModelFactory {
+    //
+    // Private Members
+    //
+
+    /** The wrappers of the round of the current processing thread. */
+    private static final ThreadLocal<Wrappers> wrappers = new ThreadLocal<Wrappers>() {
+        @Override
+        protected Wrappers initialValue() {
+            return new Wrappers();
+        }
+    };
+
+    //
+    // Constructors
+    //
+
+    /**
+     * Only static methods.
+     */
+    private SAPModelFactory() {}
+
+    //
+    // Methods
+    //
+
+    /**
+     * Drops all wrappers of the current thread. This is called by SAPBaseElement.newRound(...) and
+     * SAPBaseElement.processingOver(...).
+     */
+    public static void clear() {
+        wrappers.remove();
+    }
+
+    /**
+     * Returns the SAPType wrapping the specified type element.
+     *
+     * @param typeElement The type element to wrap.
+     */
+    public static SAPType getType(Element typeElement) {
+        SAPBaseElement.checkProcessingThread();
+        Map<Element, SAPType> types = wrappers.get().types;
+        SAPType type = types.get(typeElement);
+        if (type == null) {
+            type = new SAPType(typeElement);
+            types.put(typeElement, type);
+        }
+
+        return type;
+    }
+
+    /**
+     * Returns the SAPExecutable wrapping the specified executable element.
+     *
+     * @param executableElement The executable element to wrap.
+     * @param parent The parent element or null for none.
+     */
+    public static SAPExecutable getExecutable(Element executableElement, Element parent) {
+        SAPBaseElement.checkProcessingThread();
+        if (!isShareable(executableElement, parent)) {
+            return new SAPExecutable(executableElement, parent);
+        }
+
+        Map<Element, SAPExecutable> executables = wrappers.get().executables;
+        SAPExecutable executable = executables.get(executableElement);
+        if (executable == null) {
+            executable = new SAPExecutable(executableElement, executableElement.getEnclosingElement());
+            executables.put(executableElement, executable);
+        }
+
+        return executable;
+    }
+
+    /**
+     * Returns the SAPVariable wrapping the specified variable element.
+     *
+     * @param variableElement The variable element to wrap.
+     * @param parent The parent element or null for none.
+     */
+    public static SAPVariable getVariable(Element variableElement, Element parent) {
+        SAPBaseElement.checkProcessingThread();
+        if (!isShareable(variableElement, parent)) {
+            return new SAPVariable(variableElement, parent);
+        }
+
+        Map<Element, SAPVariable> variables = wrappers.get().variables;
+        SAPVariable variable = variables.get(variableElement);
+        if (variable == null) {
+            variable = new SAPVariable(variableElement, variableElement.getEnclosingElement());
+            variables.put(variableElement, variable);
+        }
+
+        return variable;
+    }
+
+    /**
+     * Returns the SAPMemberVariable wrapping the specified variable element.
+     *
+     * @param variableElement The variable element to wrap.
+     */
+    public static SAPMemberVariable getMemberVariable(Element variableElement) {
+        SAPBaseElement.checkProcessingThread();
+        Map<Element, SAPMemberVariable> memberVariables = wrappers.get().memberVariables;
+        SAPMemberVariable memberVariable = memberVariables.get(variableElement);
+        if (memberVariable == null) {
+            memberVariable = new SAPMemberVariable(variableElement);
+            memberVariables.put(variableElement, memberVariable);
+        }
+
+        return memberVariable;
+    }
+
+    /**
+     * Returns the typed view of an annotation. A view is created once per AnnotationMirror and view interface and
+     * round, no matter how many SAPAnnotation wrappers there are of the mirror.
+     *
+     * @param annotation The annotation to view.
+     * @param viewInterface The view interface to implement.
+     * @param <T> The view type.
+     *
+     * @throws IllegalArgumentException if the view is not an interface or has a primitive method with no
+     *                                  corresponding value in the annotation.
+     * @throws IllegalStateException if not called on a processing thread.
+     */
+    public static <T> T getView(SAPAnnotation annotation, Class<T> viewInterface) {
+        SAPBaseElement.checkProcessingThread();
+        Map<AnnotationMirror, Map<Class<?>, Object>> views = wrappers.get().views;
+        AnnotationMirror annotationMirror = annotation.getAnnotationMirror();
+        Map<Class<?>, Object> mirrorViews = views.get(annotationMirror);
+        if (mirrorViews == null) {
+            mirrorViews = new HashMap<Class<?>, Object>();
+            views.put(annotationMirror, mirrorViews);
+        }
+
+        Object view = mirrorViews.get(viewInterface);
+        if (view == null) {
+            view = AnnotationView.create(viewInterface, annotation);
+            mirrorViews.put(viewInterface, view);
+        }
+
+        return viewInterface.cast(view);
+    }
+
+    /**
+     * Returns true if a wrapper of the element with the specified parent is the same as the shared wrapper,
+     * which always has the enclosing element as parent. A wrapper without parent is not.
+     *
+     * @param element The element to wrap.
+     * @param parent The wanted parent.
+     */
+    private static boolean isShareable(Element element, Element parent) {
+        return parent != null && parent == element.getEnclosingElement();
+    }
+
+    //
+    // Inner Classes
+    //
+
+    /**
+     * The wrappers of one round of one processing thread.
+     */
+    private static class Wrappers {
+        //
+        // Private Members
+        //
+
+        /** The SAPType wrappers. */
+        private Map<Element, SAPType> types = new IdentityHashMap<Element, SAPType>();
+
+        /** The SAPExecutable wrappers. */
+        private Map<Element, SAPExecutable> executables = new IdentityHashMap<Element, SAPExecutable>();
+
+        /** The SAPVariable wrappers. */
+        private Map<Element, SAPVariable> variables = new IdentityHashMap<Element, SAPVariable>();
+
+        /** The SAPMemberVariable wrappers. */
+        private Map<Element, SAPMemberVariable> memberVariables = new IdentityHashMap<Element, SAPMemberVariable>();
+
+        /** The typed annotation views keyed by view interface per AnnotationMirror. */
+        private Map<AnnotationMirror, Map<Class<?>, Object>> views =
+                new IdentityHashMap<AnnotationMirror, Map<Class<?>, Object>>();
+    }
+}
@@ -40,12 +40,16 @@ package se.natusoft.annotation.processor.simplified.model;
 
 import java.io.OutputStreamWriter;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import javax.lang.model.element.*;
 import javax.lang.model.type.DeclaredType;
 import javax.lang.model.type.TypeMirror;
 import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
 
 /**
  * Wraps a TypeElement and represents a type.
@@ -58,6 +62,12 @@ public class SAPType extends SAPBaseElement {
     /** Utils provided with java.lang.model. */
     public static Elements elementUtils = null;
 
+    /** Utils provided with java.lang.model. */
+    public static Types typeUtils = null;
+
+    /** The members of this type, cached for the round they were resolved in. */
+    private Members members = null;
+
     //
     // Constructors
     //
@@ -117,12 +127,39 @@ public class SAPType extends SAPBaseElement {
 
         for (TypeMirror tm : getTypeElement().getInterfaces()) {
             DeclaredType dt = (DeclaredType)tm;
-            ifs.add(new SAPType(dt.asElement()));
+            ifs.add(SAPModelFactory.getType(dt.asElement()));
         }
 
         return ifs;
     }
 
+    /**
+     * Returns all classes this type extends and all interfaces it implements, directly or indirectly.
+     */
+    public List<SAPType> getAllSupertypes() {
+        return SAPTypeHierarchy.getAllSupertypes(this);
+    }
+
+    /**
+     * Returns true if this type is the same as, or extends or implements the specified type, directly or
+     * indirectly. Type arguments are ignored.
+     *
+     * @param type The qualified name of the possible supertype.
+     */
+    public boolean isSubtypeOf(String type) {
+        return SAPTypeHierarchy.isSubtype(this, type);
+    }
+
+    /**
+     * Returns true if this type is the same as, or extends or implements the specified type, directly or
+     * indirectly. Type arguments are ignored.
+     *
+     * @param type The possible supertype.
+     */
+    public boolean isSubtypeOf(SAPType type) {
+        return SAPTypeHierarchy.isSubtype(this, type);
+    }
+
     /**
      * Returns the package.
      */
@@ -150,82 +187,114 @@ public class SAPType extends SAPBaseElement {
     }
 
     /**
-     * Returns the fields.
+     * Returns the members of this type. These are resolved the first time they are asked for in a round.
      */
-    public List<SAPVariable> getFields() {
-        List<SAPVariable> fields = new ArrayList<SAPVariable>();
-
-        for (Element elem : getTypeElement().getEnclosedElements()) {
-            if (elem.getKind().isField()) {
-                fields.add(new SAPVariable(elem, getElement()));
-            }
+    private Members getMembers() {
+        Members members = this.members;
+        if (members == null || members.round != getRound()) {
+            members = new Members(getRound(), getTypeElement());
+            this.members = members;
         }
 
-        return fields;
+        return members;
     }
 
     /**
-     * Returns the constructors.
+     * Returns the fields. The returned list is read only.
      */
-    public List<SAPExecutable> getConstructors() {
-        List<SAPExecutable> constructors = new ArrayList<SAPExecutable>();
-
-        for (Element elem : getTypeElement().getEnclosedElements()) {
-            if (elem.getKind() == ElementKind.CONSTRUCTOR) {
-                constructors.add(new SAPExecutable(elem, getElement()));
-            }
-        }
+    public List<SAPVariable> getFields() {
+        return getMembers().fields;
+    }
 
-        return constructors;
+    /**
+     * Returns the constructors. The returned list is read only.
+     */
+    public List<SAPExecutable> getConstructors() {
+        return getMembers().constructors;
     }
 
     /**
-     * Returns the methods.
+     * Returns the methods. The returned list is read only.
      */
     public List<SAPExecutable> getMethods() {
-        List<SAPExecutable> methods = new ArrayList<SAPExecutable>();
+        return getMembers().methods;
+    }
 
-        for (Element elem : getTypeElement().getEnclosedElements()) {
-            if (elem.getKind() == ElementKind.METHOD) {
-                methods.add(new SAPExecutable(elem, getElement()));
+    /**
+     * Returns all methods including inherited. The returned list is read only.
+     */
+    public List<SAPExecutable> getAllMethods() {
+        Members members = getMembers();
+        if (members.allMethods == null) {
+            List<SAPExecutable> methods = new ArrayList<SAPExecutable>();
+
+            for (Element elem : elementUtils.getAllMembers(getTypeElement())) {
+                if (elem.getKind() == ElementKind.METHOD) {
+                    methods.add(SAPModelFactory.getExecutable(elem, getElement()));
+                }
             }
+
+            members.allMethods = Collections.unmodifiableList(methods);
         }
 
-        return methods;
+        return members.allMethods;
     }
 
     /**
-     * Returns all methods including inherited.
+     * Returns a method by name. If the method is overloaded the first found is returned.
+     *
+     * @param name The name of the  method to get.
      */
-    public List<SAPExecutable> getAllMethods() {
-        List<SAPExecutable> methods = new ArrayList<SAPExecutable>();
+    public SAPExecutable getMethodByName(String name) {
+        List<SAPExecutable> methods = getMethodIndex().byName.get(name);
+        return methods != null ? methods.get(0) : null;
+    }
 
-        for (Element elem : elementUtils.getAllMembers(getTypeElement())) {
-            if (elem.getKind() == ElementKind.METHOD) {
-                methods.add(new SAPExecutable(elem, getElement()));
-            }
+    /**
+     * Returns all overloads of the named method including inherited. An empty list is returned if there
+     * is no such method. The returned list is read only.
+     *
+     * @param name The name of the methods to get.
+     */
+    public List<SAPExecutable> getMethodsByName(String name) {
+        List<SAPExecutable> methods = getMethodIndex().byName.get(name);
+        if (methods == null) {
+            return Collections.emptyList();
         }
 
-        return methods;
+        return Collections.unmodifiableList(methods);
     }
 
     /**
-     * Returns a method by name.
+     * Returns the method having the specified name and erased parameter types, or null if there is no such method.
      *
-     * @param name The name of the  method to get.
+     * @param name The name of the method to get.
+     * @param erasedParameterTypes The erased parameter types of the method. For example "java.util.List" or "int[]".
      */
-    public SAPExecutable getMethodByName(String name) {
-        SAPExecutable method = null;
+    public SAPExecutable getMethodBySignature(String name, String... erasedParameterTypes) {
+        StringBuilder signature = new StringBuilder(name);
+        signature.append('(');
+        String comma = "";
+        for (String parameterType : erasedParameterTypes) {
+            signature.append(comma);
+            signature.append(parameterType);
+            comma = ",";
+        }
+        signature.append(')');
 
-        for (SAPExecutable executable : getAllMethods()) {
-            //System.out.println("#### if (\"" + executable.getSimpleName() + "\".equals(\"" + name + "\") = " + executable.getSimpleName().equals(name));
-            if (executable.getSimpleName().equals(name)) {
-                method = executable;
-                break;
-            }
+        return getMethodIndex().bySignature.get(signature.toString());
+    }
+
+    /**
+     * Returns the index of all methods including inherited. This is built the first time it is asked for in a round.
+     */
+    private MethodIndex getMethodIndex() {
+        Members members = getMembers();
+        if (members.methodIndex == null) {
+            members.methodIndex = new MethodIndex(getAllMethods());
         }
 
-        return method;
+        return members.methodIndex;
     }
 
     /**
@@ -236,18 +305,17 @@ public class SAPType extends SAPBaseElement {
     }
 
     /**
-     * Returns the inner interfaces.
+     * Returns the inner types. The returned list is read only.
      */
-    public List<SAPType> getInnerInterfaces() {
-        List<SAPType> types = new ArrayList<SAPType>();
-
-        for (Element element : super.getElement().getEnclosedElements()) {
-            if (element.getKind() == ElementKind.INTERFACE) {
-                types.add(new SAPType(element));
-            }
-        }
+    public List<SAPType> getInnerTypes() {
+        return getMembers().types;
+    }
 
-        return types;
+    /**
+     * Returns the inner interfaces. The returned list is read only.
+     */
+    public List<SAPType> getInnerInterfaces() {
+        return getMembers().interfaces;
     }
 
     public void printType() {
@@ -255,12 +323,15 @@ public class SAPType extends SAPBaseElement {
     }
 
     @Override
-    public int hashCode() {
+    protected int computeHashCode() {
         return getTypeElement().getQualifiedName().hashCode() + getTypeElement().getKind().toString().hashCode() + getTypeElement().asType().toString().hashCode();
     }
 
     @Override
     public boolean equals(Object object) {
+        if (object == this) {
+            return true;
+        }
         if (object == null) {
             return false;
         }
@@ -270,6 +341,12 @@ public class SAPType extends SAPBaseElement {
 
         TypeElement typeElement = getTypeElement();
         TypeElement bmObject = ((SAPType)object).getTypeElement();
+        if (bmObject == typeElement) {
+            return true;
+        }
+        if (object.hashCode() != hashCode()) {
+            return false;
+        }
         return typeElement.getQualifiedName().equals(bmObject.getQualifiedName()) &&
                 typeElement.getKind() == bmObject.getKind() &&
                 typeElement.asType().toString().equals(bmObject.asType().toString());
@@ -290,4 +367,126 @@ public class SAPType extends SAPBaseElement {
         return sb.toString();
     }
 
+    //
+    // Inner Classes
+    //
+
+    /**
+     * The members of a type split by kind in one pass over the enclosed elements.
+     */
+    private static class Members {
+        //
+        // Private Members
+        //
+
+        /** The round these were resolved in. */
+        private int round;
+
+        /** The fields. */
+        private List<SAPVariable> fields = null;
+
+        /** The constructors. */
+        private List<SAPExecutable> constructors = null;
+
+        /** The methods. */
+        private List<SAPExecutable> methods = null;
+
+        /** The inner types. */
+        private List<SAPType> types = null;
+
+        /** The inner interfaces. */
+        private List<SAPType> interfaces = null;
+
+        /** All methods including inherited. Resolved on demand. */
+        private List<SAPExecutable> allMethods = null;
+
+        /** Index of all methods including inherited. Built on demand. */
+        private MethodIndex methodIndex = null;
+
+        //
+        // Constructors
+        //
+
+        /**
+         * Creates a new Members.
+         *
+         * @param round The current round.
+         * @param typeElement The type to resolve members of.
+         */
+        public Members(int round, TypeElement typeElement) {
+            this.round = round;
+
+            List<SAPVariable> fields = new ArrayList<SAPVariable>();
+            List<SAPExecutable> constructors = new ArrayList<SAPExecutable>();
+            List<SAPExecutable> methods = new ArrayList<SAPExecutable>();
+            List<SAPType> types = new ArrayList<SAPType>();
+            List<SAPType> interfaces = new ArrayList<SAPType>();
+
+            for (Element elem : typeElement.getEnclosedElements()) {
+                ElementKind kind = elem.getKind();
+                if (kind.isField()) {
+                    fields.add(SAPModelFactory.getVariable(elem, typeElement));
+                }
+                else if (kind == ElementKind.CONSTRUCTOR) {
+                    constructors.add(SAPModelFactory.getExecutable(elem, typeElement));
+                }
+                else if (kind == ElementKind.METHOD) {
+                    methods.add(SAPModelFactory.getExecutable(elem, typeElement));
+                }
+                else if (kind.isClass() || kind.isInterface()) {
+                    SAPType type = SAPModelFactory.getType(elem);
+                    types.add(type);
+                    if (kind == ElementKind.INTERFACE) {
+                        interfaces.add(type);
+                    }
+                }
+            }
+
+            this.fields = Collections.unmodifiableList(fields);
+            this.constructors = Collections.unmodifiableList(constructors);
+            this.methods = Collections.unmodifiableList(methods);
+            this.types = Collections.unmodifiableList(types);
+            this.interfaces = Collections.unmodifiableList(interfaces);
+        }
+    }
+
+    /**
+     * Methods indexed by name and by name plus erased parameter types.
+     */
+    private static class MethodIndex {
+        //
+        // Private Members
+        //
+
+        /** The methods keyed by name. */
+        private Map<String, List<SAPExecutable>> byName = new HashMap<String, List<SAPExecutable>>();
+
+        /** The methods keyed by name and erased parameter types, "name(type,type)". */
+        private Map<String, SAPExecutable> bySignature = new HashMap<String, SAPExecutable>();
+
+        //
+        // Constructors
+        //
+
+        /**
+         * Creates a new MethodIndex.
+         *
+         * @param methods The methods to index.
+         */
+        public MethodIndex(List<SAPExecutable> methods) {
+            for (SAPExecutable method : methods) {
+                List<SAPExecutable> overloads = this.byName.get(method.getSimpleName());
+                if (overloads == null) {
+                    overloads = new ArrayList<SAPExecutable>(1);
+                    this.byName.put(method.getSimpleName(), overloads);
+                }
+                overloads.add(method);
+
+                String signature = method.getErasedSignature();
+                if (!this.bySignature.containsKey(signature)) {
+                    this.bySignature.put(signature, method);
+                }
+            }
+        }
+    }
 }
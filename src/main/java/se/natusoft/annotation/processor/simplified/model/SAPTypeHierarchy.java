@@ -0,0 +1,288 @@
+/*
+ *
+ * PROJECT
+ *     Name
+ *         SimplifiedAnnotationProcessor
+ *
+ *     Code Version
+ *         1.1
+ *
+ *     Description
+ *         An abstract annotation processor base class that simplifies the annotation
+ *         processing, but also limits it slightly. It is however good enough for most
+ *         cases and makes things a bit easier and clearer.
+ *
+ * COPYRIGHTS
+ *     Copyright (C) 2013 by Natusoft AB All rights reserved.
+ *
+ * LICENSE
+ *     Apache 2.0 (Open Source)
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ * AUTHORS
+ *     tommy ()
+ *         Changes:
+ *         2026-10-16: Created!
+ *
+ */
+package se.natusoft.annotation.processor.simplified.model;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+
+/**
+ * Answers subtype questions about types. The full set of supertypes of each asked about type is resolved once
+ * per round and kept as a BitSet of type ids, after which "is A a subtype of B?" is a single bit test. All
+ * resolved information is dropped when a new round starts and when processing is over. It is kept per processing
+ * thread, so compilations running in parallel in the same JVM each resolve their own types.
+ * <p>
+ * Subtype checks are made on the declared types, ignoring type arguments. isAssignable(...) only answers from
+ * the resolved supertypes when neither type has type arguments, and otherwise asks Types.isAssignable(...).
+ */
+public class SAPTypeHierarchy {
+    //
+    // Constants
+    //
+
+    /** The root of all types, which is a supertype also of interfaces. */
+    private static final String OBJECT = "java.lang.Object";
+
+    //
+    // Private Members
+    //
+
+    /** The types resolved this round by the current processing thread. */
+    private static final ThreadLocal<Resolved> resolved = new ThreadLocal<Resolved>() {
+        @Override
+        protected Resolved initialValue() {
+            return new Resolved();
+        }
+    };
+
+    //
+    // Constructors
+    //
+
+    /**
+     * Only static methods.
+     */
+    private SAPTypeHierarchy() {}
+
+    //
+    // Methods
+    //
+
+    /**
+     * Drops all types resolved by the current thread. This is called by SAPBaseElement.newRound(...) and
+     * SAPBaseElement.processingOver(...).
+     */
+    public static void clear() {
+        resolved.remove();
+    }
+
+    /**
+     * Returns true if the type is the same as, or a subtype of the supertype.
+     *
+     * @param type The type to check.
+     * @param supertype The possible supertype.
+     */
+    public static boolean isSubtype(SAPType type, SAPType supertype) {
+        return isSubtype(type.getTypeElement(), supertype.getQualifiedName());
+    }
+
+    /**
+     * Returns true if the type is the same as, or a subtype of the supertype.
+     *
+     * @param type The type to check.
+     * @param supertype The qualified name of the possible supertype.
+     */
+    public static boolean isSubtype(SAPType type, String supertype) {
+        return isSubtype(type.getTypeElement(), supertype);
+    }
+
+    /**
+     * Returns true if the type is the same as, or a subtype of the supertype.
+     *
+     * @param type The type to check.
+     * @param supertype The qualified name of the possible supertype.
+     */
+    public static boolean isSubtype(TypeElement type, String supertype) {
+        SAPBaseElement.checkProcessingThread();
+        Resolved resolved = SAPTypeHierarchy.resolved.get();
+        BitSet typeSupertypes = resolved.getSupertypes(type);
+        // All supertypes of the type got an id when resolved, so an unknown name is not a supertype.
+        Integer supertypeId = resolved.ids.get(supertype);
+        return supertypeId != null && typeSupertypes.get(supertypeId);
+    }
+
+    /**
+     * Returns all supertypes of the type, that is all classes it extends and all interfaces it implements,
+     * directly or indirectly. The type itself is not included.
+     *
+     * @param type The type to get supertypes of.
+     */
+    public static List<SAPType> getAllSupertypes(SAPType type) {
+        SAPBaseElement.checkProcessingThread();
+        Resolved resolved = SAPTypeHierarchy.resolved.get();
+        int typeId = resolved.getId(type.getTypeElement());
+        BitSet typeSupertypes = resolved.getSupertypes(type.getTypeElement());
+
+        List<SAPType> result = new ArrayList<SAPType>(typeSupertypes.cardinality());
+        for (int id = typeSupertypes.nextSetBit(0); id >= 0; id = typeSupertypes.nextSetBit(id + 1)) {
+            TypeElement supertype = resolved.types.get(id);
+            if (id != typeId && supertype != null) {
+                result.add(SAPModelFactory.getType(supertype));
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns true if a value of the 'from' type can be assigned to the 'to' type. Declared types without type
+     * arguments are answered from the resolved supertypes. Anything else is passed on to Types.isAssignable(...).
+     *
+     * @param from The type of the value.
+     * @param to The type assigned to.
+     *
+     * @throws IllegalStateException if Types.isAssignable(...) is needed but not available, which it is
+     *                               during processing.
+     */
+    public static boolean isAssignable(TypeMirror from, TypeMirror to) {
+        SAPBaseElement.checkProcessingThread();
+        if (isPlainDeclaredType(from) && isPlainDeclaredType(to)) {
+            TypeElement toElement = (TypeElement)((DeclaredType)to).asElement();
+            return isSubtype((TypeElement)((DeclaredType)from).asElement(), toElement.getQualifiedName().toString());
+        }
+
+        if (SAPType.typeUtils == null) {
+            throw new IllegalStateException("Types are not available outside of processing!");
+        }
+
+        return SAPType.typeUtils.isAssignable(from, to);
+    }
+
+    /**
+     * Returns true if the type is a declared type without type arguments.
+     *
+     * @param type The type to check.
+     */
+    private static boolean isPlainDeclaredType(TypeMirror type) {
+        return type.getKind() == TypeKind.DECLARED && ((DeclaredType)type).getTypeArguments().isEmpty();
+    }
+
+    //
+    // Inner Classes
+    //
+
+    /**
+     * The types resolved during one round by one processing thread.
+     */
+    private static class Resolved {
+        //
+        // Private Members
+        //
+
+        /** The ids of the resolved types keyed by qualified name. */
+        private Map<String, Integer> ids = new HashMap<String, Integer>();
+
+        /** The resolved types indexed by id. */
+        private List<TypeElement> types = new ArrayList<TypeElement>();
+
+        /** The ids of all supertypes, including itself, of the resolved types indexed by id. */
+        private List<BitSet> supertypes = new ArrayList<BitSet>();
+
+        //
+        // Methods
+        //
+
+        /**
+         * Returns the id of a type, giving it a new id if it has none yet.
+         *
+         * @param type The type to get id for.
+         */
+        private int getId(TypeElement type) {
+            return getId(type.getQualifiedName().toString(), type);
+        }
+
+        /**
+         * Returns the id of a type name, giving it a new id if it has none yet.
+         *
+         * @param name The qualified name of the type.
+         * @param type The type or null if it is not known.
+         */
+        private int getId(String name, TypeElement type) {
+            Integer id = this.ids.get(name);
+            if (id == null) {
+                id = this.types.size();
+                this.ids.put(name, id);
+                this.types.add(type);
+                this.supertypes.add(null);
+            }
+            else if (this.types.get(id) == null && type != null) {
+                this.types.set(id, type);
+            }
+
+            return id;
+        }
+
+        /**
+         * Returns the ids of the supertypes of a type including the type itself, resolving them if needed.
+         *
+         * @param type The type to get supertypes of.
+         */
+        private BitSet getSupertypes(TypeElement type) {
+            int id = getId(type);
+            BitSet typeSupertypes = this.supertypes.get(id);
+            if (typeSupertypes == null) {
+                typeSupertypes = new BitSet();
+                typeSupertypes.set(id);
+                // Set before resolving so that erroneous cyclic hierarchies end here.
+                this.supertypes.set(id, typeSupertypes);
+
+                addSupertypes(typeSupertypes, type.getSuperclass());
+                for (TypeMirror anInterface : type.getInterfaces()) {
+                    addSupertypes(typeSupertypes, anInterface);
+                }
+                if (type.getKind() == ElementKind.INTERFACE || type.getKind() == ElementKind.ANNOTATION_TYPE) {
+                    typeSupertypes.set(getId(OBJECT, null));
+                }
+            }
+
+            return typeSupertypes;
+        }
+
+        /**
+         * Adds a direct supertype and all its supertypes to the supertypes of a type.
+         *
+         * @param typeSupertypes The supertypes to add to.
+         * @param supertype The direct supertype to add.
+         */
+        private void addSupertypes(BitSet typeSupertypes, TypeMirror supertype) {
+            if (supertype.getKind() == TypeKind.DECLARED) {
+                Element supertypeElement = ((DeclaredType)supertype).asElement();
+                typeSupertypes.or(getSupertypes((TypeElement)supertypeElement));
+            }
+        }
+    }
+}
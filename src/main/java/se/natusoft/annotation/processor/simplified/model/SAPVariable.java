@@ -121,7 +121,7 @@ public class SAPVariable extends SAPBaseElement {
      * Returns the parent as a SAPType for when this is a field.
      */
     public SAPType getParentType() {
-        return new SAPType(getParent());
+        return SAPModelFactory.getType(getParent());
     }
 
     /**
@@ -129,6 +129,6 @@ public class SAPVariable extends SAPBaseElement {
      * @return
      */
     public SAPExecutable getParentExecutable() {
-        return new SAPExecutable(getParent());
+        return SAPModelFactory.getExecutable(getParent(), null);
     }
 }
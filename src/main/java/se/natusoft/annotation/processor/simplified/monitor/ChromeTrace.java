@@ -0,0 +1,217 @@
+/*
+ *
+ * PROJECT
+ *     Name
+ *         SimplifiedAnnotationProcessor
+ *
+ *     Code Version
+ *         1.1
+ *
+ *     Description
+ *         An abstract annotation processor base class that simplifies the annotation
+ *         processing, but also limits it slightly. It is however good enough for most
+ *         cases and makes things a bit easier and clearer.
+ *
+ * COPYRIGHTS
+ *     Copyright (C) 2013 by Natusoft AB All rights reserved.
+ *
+ * LICENSE
+ *     Apache 2.0 (Open Source)
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ * AUTHORS
+ *     tommy ()
+ *         Changes:
+ *         2026-10-16: Created!
+ *
+ */
+package se.natusoft.annotation.processor.simplified.monitor;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Collects spans in the Chrome Trace Event format, which can be viewed as a timeline in chrome://tracing or
+ * https://ui.perfetto.dev. All processors of a compilation share one trace, each on a thread lane of its own,
+ * so it shows which processor did what in which round.
+ */
+public class ChromeTrace {
+    //
+    // Private Members
+    //
+
+    /** The traces of the running compilations, keyed by their ProcessingEnvironment. */
+    private static Map<Object, ChromeTrace> traces = new WeakHashMap<Object, ChromeTrace>();
+
+    /** The file to write to. */
+    private File file = null;
+
+    /** The time the trace starts at. */
+    private long origin = System.nanoTime();
+
+    /** The events as JSON objects. */
+    private List<String> events = new ArrayList<String>();
+
+    /** The last used lane. */
+    private int lanes = 0;
+
+    //
+    // Constructors
+    //
+
+    /**
+     * Creates a new ChromeTrace.
+     *
+     * @param file The file to write to.
+     */
+    public ChromeTrace(File file) {
+        this.file = file;
+    }
+
+    //
+    // Methods
+    //
+
+    /**
+     * Returns the trace shared by the processors of a compilation, creating it if needed.
+     *
+     * @param compilation An object identifying the compilation, like the ProcessingEnvironment.
+     * @param file The file to write to if the trace is created.
+     */
+    public static synchronized ChromeTrace forCompilation(Object compilation, File file) {
+        ChromeTrace trace = traces.get(compilation);
+        if (trace == null) {
+            trace = new ChromeTrace(file);
+            traces.put(compilation, trace);
+        }
+
+        return trace;
+    }
+
+    /**
+     * Returns the file the trace is written to.
+     */
+    public File getFile() {
+        return this.file;
+    }
+
+    /**
+     * Adds a named lane and returns its id.
+     *
+     * @param name The name of the lane.
+     */
+    public synchronized int addLane(String name) {
+        int lane = ++this.lanes;
+        StringBuilder event = new StringBuilder(128);
+        event.append("{\"ph\": \"M\", \"name\": \"thread_name\", \"pid\": 1, \"tid\": ").append(lane);
+        event.append(", \"args\": {\"name\": ");
+        Json.appendString(event, name);
+        event.append("}}");
+        this.events.add(event.toString());
+
+        return lane;
+    }
+
+    /**
+     * Adds a span.
+     *
+     * @param lane The lane of the span.
+     * @param name The name of the span.
+     * @param category The category of the span.
+     * @param startNanos The start time as given by System.nanoTime().
+     * @param endNanos The end time as given by System.nanoTime().
+     * @param args Names and values of arguments shown with the span, in pairs. Numbers and booleans are written
+     *             as is, other values as strings.
+     */
+    public synchronized void span(int lane, String name, String category, long startNanos, long endNanos, Object... args) {
+        StringBuilder event = new StringBuilder(128);
+        event.append("{\"ph\": \"X\", \"pid\": 1, \"tid\": ").append(lane);
+        event.append(", \"name\": ");
+        Json.appendString(event, name);
+        event.append(", \"cat\": ");
+        Json.appendString(event, category);
+        event.append(", \"ts\": ");
+        appendMicros(event, startNanos - this.origin);
+        event.append(", \"dur\": ");
+        appendMicros(event, Math.max(endNanos - startNanos, 0));
+        if (args.length > 0) {
+            event.append(", \"args\": {");
+            for (int ix = 0; ix + 1 < args.length; ix += 2) {
+                if (ix > 0) {
+                    event.append(", ");
+                }
+                Json.appendString(event, String.valueOf(args[ix]));
+                event.append(": ");
+                Object value = args[ix + 1];
+                if (value instanceof Number || value instanceof Boolean) {
+                    event.append(value);
+                }
+                else {
+                    Json.appendString(event, value != null ? value.toString() : null);
+                }
+            }
+            event.append('}');
+        }
+        event.append('}');
+        this.events.add(event.toString());
+    }
+
+    /**
+     * Appends nanoseconds as microseconds with 3 decimals.
+     *
+     * @param json The JSON to append to.
+     * @param nanos The nanoseconds to append.
+     */
+    private static void appendMicros(StringBuilder json, long nanos) {
+        json.append(nanos / 1000).append('.');
+        long fraction = Math.abs(nanos % 1000);
+        if (fraction < 100) {
+            json.append('0');
+        }
+        if (fraction < 10) {
+            json.append('0');
+        }
+        json.append(fraction);
+    }
+
+    /**
+     * Writes the trace to its file, replacing any earlier write. Missing parent directories are created.
+     *
+     * @throws IOException on failure to write.
+     */
+    public synchronized void write() throws IOException {
+        if (this.file.getParentFile() != null) {
+            this.file.getParentFile().mkdirs();
+        }
+        Writer writer = new OutputStreamWriter(new FileOutputStream(this.file), "UTF-8");
+        try {
+            writer.write("{\"traceEvents\": [\n");
+            for (int ix = 0; ix < this.events.size(); ix++) {
+                writer.write(this.events.get(ix));
+                writer.write(ix < this.events.size() - 1 ? ",\n" : "\n");
+            }
+            writer.write("], \"displayTimeUnit\": \"ms\"}\n");
+        }
+        finally {
+            writer.close();
+        }
+    }
+}
@@ -0,0 +1,174 @@
+/*
+ *
+ * PROJECT
+ *     Name
+ *         SimplifiedAnnotationProcessor
+ *
+ *     Code Version
+ *         1.1
+ *
+ *     Description
+ *         An abstract annotation processor base class that simplifies the annotation
+ *         processing, but also limits it slightly. It is however good enough for most
+ *         cases and makes things a bit easier and clearer.
+ *
+ * COPYRIGHTS
+ *     Copyright (C) 2013 by Natusoft AB All rights reserved.
+ *
+ * LICENSE
+ *     Apache 2.0 (Open Source)
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ * AUTHORS
+ *     tommy ()
+ *         Changes:
+ *         2026-10-16: Created!
+ *
+ */
+package se.natusoft.annotation.processor.simplified.monitor;
+
+import java.lang.reflect.Method;
+import java.util.Collection;
+
+/**
+ * Emits Java Flight Recorder events for annotation processing. The JFR event classes are only loaded when the
+ * runtime provides JFR, so get() returns null on runtimes without it, and nothing of JFR is touched then.
+ * <p>
+ * Loading the implementation registers the events with JFR, which takes hundreds of milliseconds in a JVM where
+ * JFR has not been used. getIfRecording() therefore only loads it if a recording is running, checked through
+ * reflection without initializing JFR. No event objects are created unless the event is enabled in a running
+ * recording.
+ */
+public abstract class FlightRecorderSupport {
+    //
+    // Constants
+    //
+
+    /** The implementation referencing the JFR classes. */
+    private static final String IMPLEMENTATION = "se.natusoft.annotation.processor.simplified.monitor.jfr.JfrSupport";
+
+    //
+    // Private Members
+    //
+
+    /** The loaded implementation or null if JFR is not available. */
+    private static FlightRecorderSupport instance = null;
+
+    /** True when the loading of the implementation has been tried. */
+    private static boolean loaded = false;
+
+    /** FlightRecorder.isInitialized() or null if the runtime does not provide JFR. */
+    private static Method isInitialized = null;
+
+    /** FlightRecorder.getFlightRecorder(). */
+    private static Method getFlightRecorder = null;
+
+    /** FlightRecorder.getRecordings(). */
+    private static Method getRecordings = null;
+
+    /** True when the FlightRecorder methods have been looked up. */
+    private static boolean resolved = false;
+
+    //
+    // Methods
+    //
+
+    /**
+     * Returns the JFR support if a flight recording is running in this JVM, for example one started with
+     * -XX:StartFlightRecording, or null if not. When no recording is running JFR is not initialized and the
+     * implementation is not loaded, so this is cheap enough to call on every round.
+     */
+    public static FlightRecorderSupport getIfRecording() {
+        return isRecording() ? get() : null;
+    }
+
+    /**
+     * Returns true if a flight recording is running in this JVM. This does not initialize JFR, and returns false
+     * if JFR has not been initialized, since there can't be a recording then.
+     */
+    public static boolean isRecording() {
+        synchronized (FlightRecorderSupport.class) {
+            if (!resolved) {
+                resolved = true;
+                try {
+                    Class<?> flightRecorderClass = Class.forName("jdk.jfr.FlightRecorder");
+                    getFlightRecorder = flightRecorderClass.getMethod("getFlightRecorder");
+                    getRecordings = flightRecorderClass.getMethod("getRecordings");
+                    isInitialized = flightRecorderClass.getMethod("isInitialized");
+                }
+                catch (Throwable t) {
+                    // JFR is not available.
+                    isInitialized = null;
+                }
+            }
+        }
+        if (isInitialized == null) {
+            return false;
+        }
+
+        try {
+            return (Boolean)isInitialized.invoke(null) &&
+                    !((Collection<?>)getRecordings.invoke(getFlightRecorder.invoke(null))).isEmpty();
+        }
+        catch (Throwable t) {
+            return false;
+        }
+    }
+
+    /**
+     * Returns the JFR support or null if the runtime does not provide JFR. This loads the implementation even if
+     * no recording is running. Use getIfRecording() unless events should be emitted to recordings started later.
+     */
+    public static synchronized FlightRecorderSupport get() {
+        if (!loaded) {
+            loaded = true;
+            try {
+                Class<?> flightRecorderClass = Class.forName("jdk.jfr.FlightRecorder");
+                if ((Boolean)flightRecorderClass.getMethod("isAvailable").invoke(null)) {
+                    instance = (FlightRecorderSupport)Class.forName(IMPLEMENTATION).getDeclaredConstructor().newInstance();
+                }
+            }
+            catch (Throwable t) {
+                // JFR is not available.
+                instance = null;
+            }
+        }
+
+        return instance;
+    }
+
+    /**
+     * Returns a ProcessingObserver emitting round, processing method and file events.
+     *
+     * @param processorName The name of the processor, included in the events.
+     */
+    public abstract ProcessingObserver createProcessingObserver(String processorName);
+
+    /**
+     * Starts timing a resource validation. Returns null if resource validation events are not enabled.
+     */
+    public abstract Object beginResourceValidation();
+
+    /**
+     * Emits a resource validation event.
+     *
+     * @param validation The value returned by beginResourceValidation(). Nothing is emitted if null.
+     * @param processorName The name of the validating processor.
+     * @param annotation The annotation specifying the resource.
+     * @param path The path of the resource.
+     * @param valid True if the resource was found.
+     */
+    public abstract void endResourceValidation(Object validation, String processorName, String annotation, String path,
+                                               boolean valid);
+}
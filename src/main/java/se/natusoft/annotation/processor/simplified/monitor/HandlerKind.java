@@ -0,0 +1,97 @@
+/*
+ *
+ * PROJECT
+ *     Name
+ *         SimplifiedAnnotationProcessor
+ *
+ *     Code Version
+ *         1.1
+ *
+ *     Description
+ *         An abstract annotation processor base class that simplifies the annotation
+ *         processing, but also limits it slightly. It is however good enough for most
+ *         cases and makes things a bit easier and clearer.
+ *
+ * COPYRIGHTS
+ *     Copyright (C) 2013 by Natusoft AB All rights reserved.
+ *
+ * LICENSE
+ *     Apache 2.0 (Open Source)
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ * AUTHORS
+ *     tommy ()
+ *         Changes:
+ *         2026-10-16: Created!
+ *
+ */
+package se.natusoft.annotation.processor.simplified.monitor;
+
+/**
+ * The kinds of processing methods of a SimplifiedAnnotationProcessor.
+ */
+public enum HandlerKind {
+    NEW_ROUND("@NewRound"),
+    PROCESS("@Process"),
+    GENERATE_SOURCE("@GenerateSource"),
+    ALL_PROCESSED("@AllProcessed");
+
+    //
+    // Private Members
+    //
+
+    /** The annotation marking processing methods of this kind. */
+    private String annotation = null;
+
+    //
+    // Constructors
+    //
+
+    /**
+     * Creates a new HandlerKind.
+     *
+     * @param annotation The annotation marking processing methods of this kind.
+     */
+    private HandlerKind(String annotation) {
+        this.annotation = annotation;
+    }
+
+    //
+    // Methods
+    //
+
+    /**
+     * Returns the annotation marking processing methods of this kind, like "@Process".
+     */
+    public String getAnnotation() {
+        return this.annotation;
+    }
+
+    /**
+     * Returns a name for a processing method of this kind, like "@Process(my.Annotation)" or "@GenerateSource[1]".
+     *
+     * @param processedAnnotation The processed annotation of a PROCESS method, otherwise null.
+     * @param index The index of the method among the methods of this kind, or -1 if there can only be one.
+     */
+    public String getHandlerName(CharSequence processedAnnotation, int index) {
+        if (processedAnnotation != null) {
+            return this.annotation + "(" + processedAnnotation + ")";
+        }
+        if (index >= 0) {
+            return this.annotation + "[" + index + "]";
+        }
+
+        return this.annotation;
+    }
+}
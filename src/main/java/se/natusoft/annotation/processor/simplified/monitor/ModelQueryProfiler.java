@@ -0,0 +1,406 @@
+/*
+ *
+ * PROJECT
+ *     Name
+ *         SimplifiedAnnotationProcessor
+ *
+ *     Code Version
+ *         1.1
+ *
+ *     Description
+ *         An abstract annotation processor base class that simplifies the annotation
+ *         processing, but also limits it slightly. It is however good enough for most
+ *         cases and makes things a bit easier and clearer.
+ *
+ * COPYRIGHTS
+ *     Copyright (C) 2013 by Natusoft AB All rights reserved.
+ *
+ * LICENSE
+ *     Apache 2.0 (Open Source)
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ * AUTHORS
+ *     tommy ()
+ *         Changes:
+ *         2026-10-16: Created!
+ *
+ */
+package se.natusoft.annotation.processor.simplified.monitor;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+
+/**
+ * Counts and times the calls made to the javac Elements and Types, attributing them to the processing method
+ * running when they are made. SimplifiedAnnotationProcessor hands out wrapped Elements and Types, from
+ * getElementUtils(), getTypeUtils() and to the SAP model, when this is enabled. Calls made to Elements and Types
+ * gotten directly from the ProcessingEnvironment are not seen.
+ * <p>
+ * If enabled, the calling method of each call is also recorded, which costs a stack walk per call.
+ * <p>
+ * The hottest call sites are written as a text report with writeReport(...).
+ */
+public class ModelQueryProfiler extends ProcessingObserverAdapter {
+    //
+    // Constants
+    //
+
+    /** What calls made outside of processing methods are attributed to. */
+    public static final String FRAMEWORK = "(framework)";
+
+    /** The max number of call sites in the report. */
+    private static final int MAX_REPORTED_CALL_SITES = 50;
+
+    //
+    // Private Members
+    //
+
+    /** The name of the processor. */
+    private String processorName = null;
+
+    /** True if the calling methods are recorded. */
+    private boolean recordCallers = false;
+
+    /** The name of the running processing method. */
+    private String handler = FRAMEWORK;
+
+    /** The statistics keyed by call site. */
+    private Map<CallSite, CallStats> stats = new HashMap<CallSite, CallStats>();
+
+    /** "Elements.method" or "Types.method" for each called method. */
+    private Map<Method, String> methodNames = new HashMap<Method, String>();
+
+    //
+    // Constructors
+    //
+
+    /**
+     * Creates a new ModelQueryProfiler.
+     *
+     * @param processorName The name of the processor, included in the report.
+     * @param recordCallers True to also record the calling method of each call.
+     */
+    public ModelQueryProfiler(String processorName, boolean recordCallers) {
+        this.processorName = processorName;
+        this.recordCallers = recordCallers;
+    }
+
+    //
+    // Methods
+    //
+
+    /**
+     * Returns an Elements counting and timing the calls made to the specified Elements.
+     *
+     * @param elements The Elements to wrap.
+     */
+    public Elements wrap(Elements elements) {
+        return (Elements)Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] {Elements.class},
+                new ProfilingHandler(elements, "Elements"));
+    }
+
+    /**
+     * Returns a Types counting and timing the calls made to the specified Types.
+     *
+     * @param types The Types to wrap.
+     */
+    public Types wrap(Types types) {
+        return (Types)Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] {Types.class},
+                new ProfilingHandler(types, "Types"));
+    }
+
+    @Override
+    public synchronized void handlerStarted(HandlerKind kind, String name, int elementCount) {
+        this.handler = name;
+    }
+
+    @Override
+    public synchronized void handlerEnded(HandlerKind kind, String name, int elementCount, boolean failed) {
+        this.handler = FRAMEWORK;
+    }
+
+    /**
+     * Records a call.
+     *
+     * @param method The called method.
+     * @param interfaceName "Elements" or "Types".
+     * @param caller The calling method or null if not recorded.
+     * @param nanos The duration of the call.
+     */
+    private synchronized void record(Method method, String interfaceName, String caller, long nanos) {
+        String methodName = this.methodNames.get(method);
+        if (methodName == null) {
+            methodName = interfaceName + "." + method.getName();
+            this.methodNames.put(method, methodName);
+        }
+
+        CallSite callSite = new CallSite(this.handler, methodName, caller);
+        CallStats callStats = this.stats.get(callSite);
+        if (callStats == null) {
+            callStats = new CallStats();
+            this.stats.put(callSite, callStats);
+        }
+        ++callStats.calls;
+        callStats.nanos += nanos;
+    }
+
+    /**
+     * Returns the first method on the stack outside of this class, the proxy and reflection.
+     */
+    private static String findCaller() {
+        StackTraceElement[] stack = new Throwable().getStackTrace();
+        for (StackTraceElement frame : stack) {
+            String className = frame.getClassName();
+            if (!className.startsWith(ModelQueryProfiler.class.getName()) && !className.startsWith("java.lang.reflect.") &&
+                    !className.startsWith("com.sun.proxy.") && !className.startsWith("jdk.proxy") &&
+                    !className.startsWith("$Proxy")) {
+                return className + "." + frame.getMethodName() +
+                        (frame.getLineNumber() >= 0 ? ":" + frame.getLineNumber() : "");
+            }
+        }
+
+        return "?";
+    }
+
+    /**
+     * Writes the report to a file.
+     *
+     * @param file The file to write to. Missing parent directories are created.
+     *
+     * @throws IOException on failure to write.
+     */
+    public void writeReport(File file) throws IOException {
+        if (file.getParentFile() != null) {
+            file.getParentFile().mkdirs();
+        }
+        Writer writer = new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+        try {
+            writeReport(writer);
+        }
+        finally {
+            writer.close();
+        }
+    }
+
+    /**
+     * Writes the report, which has the time and calls of each processing method, followed by the hottest call
+     * sites, a call site being a called method in a processing method, and the calling method if recorded.
+     *
+     * @param writer The writer to write to.
+     *
+     * @throws IOException on failure to write.
+     */
+    public synchronized void writeReport(Writer writer) throws IOException {
+        List<Map.Entry<CallSite, CallStats>> callSites = new ArrayList<Map.Entry<CallSite, CallStats>>(this.stats.entrySet());
+        Collections.sort(callSites, new Comparator<Map.Entry<CallSite, CallStats>>() {
+            @Override
+            public int compare(Map.Entry<CallSite, CallStats> e1, Map.Entry<CallSite, CallStats> e2) {
+                return e1.getValue().nanos < e2.getValue().nanos ? 1 : e1.getValue().nanos > e2.getValue().nanos ? -1 : 0;
+            }
+        });
+
+        Map<String, CallStats> handlerTotals = new LinkedHashMap<String, CallStats>();
+        CallStats total = new CallStats();
+        for (Map.Entry<CallSite, CallStats> entry : callSites) {
+            CallStats handlerTotal = handlerTotals.get(entry.getKey().handler);
+            if (handlerTotal == null) {
+                handlerTotal = new CallStats();
+                handlerTotals.put(entry.getKey().handler, handlerTotal);
+            }
+            handlerTotal.add(entry.getValue());
+            total.add(entry.getValue());
+        }
+
+        StringBuilder report = new StringBuilder(4096);
+        report.append("Elements/Types calls of ").append(this.processorName).append('\n');
+        report.append(String.format("Total: %d calls, %.3f ms%n%n", total.calls, total.nanos / 1000000.0));
+
+        report.append("Per processing method:\n");
+        report.append(String.format("%12s %10s  %s%n", "ms", "calls", "processing method"));
+        for (Map.Entry<String, CallStats> entry : handlerTotals.entrySet()) {
+            report.append(String.format("%12.3f %10d  %s%n", entry.getValue().nanos / 1000000.0, entry.getValue().calls,
+                    entry.getKey()));
+        }
+
+        report.append("\nHottest call sites:\n");
+        report.append(String.format("%12s %10s %10s  %s%n", "ms", "calls", "avg us", "call site"));
+        for (int ix = 0; ix < callSites.size() && ix < MAX_REPORTED_CALL_SITES; ix++) {
+            CallSite callSite = callSites.get(ix).getKey();
+            CallStats callStats = callSites.get(ix).getValue();
+            report.append(String.format("%12.3f %10d %10.2f  %s %s", callStats.nanos / 1000000.0, callStats.calls,
+                    callStats.nanos / 1000.0 / callStats.calls, callSite.handler, callSite.methodName));
+            if (callSite.caller != null) {
+                report.append(" <- ").append(callSite.caller);
+            }
+            report.append('\n');
+        }
+        if (callSites.size() > MAX_REPORTED_CALL_SITES) {
+            report.append("... ").append(callSites.size() - MAX_REPORTED_CALL_SITES).append(" more\n");
+        }
+
+        writer.write(report.toString());
+    }
+
+    //
+    // Inner Classes
+    //
+
+    /**
+     * Times the calls to a wrapped Elements or Types.
+     */
+    private class ProfilingHandler implements InvocationHandler {
+        //
+        // Private Members
+        //
+
+        /** The wrapped Elements or Types. */
+        private Object target = null;
+
+        /** "Elements" or "Types". */
+        private String interfaceName = null;
+
+        //
+        // Constructors
+        //
+
+        /**
+         * Creates a new ProfilingHandler.
+         *
+         * @param target The wrapped Elements or Types.
+         * @param interfaceName "Elements" or "Types".
+         */
+        public ProfilingHandler(Object target, String interfaceName) {
+            this.target = target;
+            this.interfaceName = interfaceName;
+        }
+
+        //
+        // Methods
+        //
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            if (method.getDeclaringClass() == Object.class) {
+                if (method.getName().equals("equals")) {
+                    return proxy == args[0];
+                }
+                return method.invoke(this.target, args);
+            }
+
+            String caller = recordCallers ? findCaller() : null;
+            long start = System.nanoTime();
+            try {
+                return method.invoke(this.target, args);
+            }
+            catch (InvocationTargetException ite) {
+                throw ite.getCause();
+            }
+            finally {
+                record(method, this.interfaceName, caller, System.nanoTime() - start);
+            }
+        }
+    }
+
+    /**
+     * A called method in a processing method, and the calling method if recorded.
+     */
+    private static class CallSite {
+        //
+        // Private Members
+        //
+
+        private String handler = null;
+        private String methodName = null;
+        private String caller = null;
+
+        //
+        // Constructors
+        //
+
+        /**
+         * Creates a new CallSite.
+         *
+         * @param handler The processing method.
+         * @param methodName The called method.
+         * @param caller The calling method or null.
+         */
+        public CallSite(String handler, String methodName, String caller) {
+            this.handler = handler;
+            this.methodName = methodName;
+            this.caller = caller;
+        }
+
+        //
+        // Methods
+        //
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof CallSite)) {
+                return false;
+            }
+            CallSite other = (CallSite)obj;
+            return this.handler.equals(other.handler) && this.methodName.equals(other.methodName) &&
+                    (this.caller == null ? other.caller == null : this.caller.equals(other.caller));
+        }
+
+        @Override
+        public int hashCode() {
+            return (this.handler.hashCode() * 31 + this.methodName.hashCode()) * 31 +
+                    (this.caller != null ? this.caller.hashCode() : 0);
+        }
+    }
+
+    /**
+     * The number of calls and their total time.
+     */
+    private static class CallStats {
+        //
+        // Private Members
+        //
+
+        private long calls = 0;
+        private long nanos = 0;
+
+        //
+        // Methods
+        //
+
+        /**
+         * Adds other statistics to these.
+         *
+         * @param callStats The statistics to add.
+         */
+        public void add(CallStats callStats) {
+            this.calls += callStats.calls;
+            this.nanos += callStats.nanos;
+        }
+    }
+}
@@ -0,0 +1,159 @@
+/*
+ *
+ * PROJECT
+ *     Name
+ *         SimplifiedAnnotationProcessor
+ *
+ *     Code Version
+ *         1.1
+ *
+ *     Description
+ *         An abstract annotation processor base class that simplifies the annotation
+ *         processing, but also limits it slightly. It is however good enough for most
+ *         cases and makes things a bit easier and clearer.
+ *
+ * COPYRIGHTS
+ *     Copyright (C) 2013 by Natusoft AB All rights reserved.
+ *
+ * LICENSE
+ *     Apache 2.0 (Open Source)
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ * AUTHORS
+ *     tommy ()
+ *         Changes:
+ *         2026-10-16: Created!
+ *
+ */
+package se.natusoft.annotation.processor.simplified.monitor;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Wraps the OutputStream of a written file and reports the bytes and lines written to it, and the time spent
+ * in writing and closing it, to a ProcessingObserver when closed.
+ */
+public class ObservedOutputStream extends FilterOutputStream {
+    //
+    // Private Members
+    //
+
+    /** The name of the written file. */
+    private String name = null;
+
+    /** The observer to report to. */
+    private ProcessingObserver observer = null;
+
+    /** The number of bytes written. */
+    private long bytes = 0;
+
+    /** The number of lines written. */
+    private long lines = 0;
+
+    /** The time spent in writing. */
+    private long nanos = 0;
+
+    /** True when closed. */
+    private boolean closed = false;
+
+    //
+    // Constructors
+    //
+
+    /**
+     * Creates a new ObservedOutputStream.
+     *
+     * @param out The stream to wrap.
+     * @param name The name of the written file.
+     * @param observer The observer to report to when closed.
+     */
+    public ObservedOutputStream(OutputStream out, String name, ProcessingObserver observer) {
+        super(out);
+        this.name = name;
+        this.observer = observer;
+    }
+
+    //
+    // Methods
+    //
+
+    @Override
+    public void write(int b) throws IOException {
+        long start = System.nanoTime();
+        this.out.write(b);
+        this.nanos += System.nanoTime() - start;
+        ++this.bytes;
+        if (b == '\n') {
+            ++this.lines;
+        }
+    }
+
+    @Override
+    public void write(byte[] bytes, int offset, int length) throws IOException {
+        long start = System.nanoTime();
+        this.out.write(bytes, offset, length);
+        this.nanos += System.nanoTime() - start;
+        this.bytes += length;
+        this.lines += countLines(bytes, offset, length);
+    }
+
+    @Override
+    public void flush() throws IOException {
+        long start = System.nanoTime();
+        this.out.flush();
+        this.nanos += System.nanoTime() - start;
+    }
+
+    /**
+     * Closes the wrapped stream and reports the written file. Closing an already closed stream does nothing.
+     *
+     * @throws IOException on failure to close.
+     */
+    @Override
+    public void close() throws IOException {
+        if (this.closed) {
+            return;
+        }
+        this.closed = true;
+
+        long start = System.nanoTime();
+        try {
+            this.out.close();
+        }
+        finally {
+            this.nanos += System.nanoTime() - start;
+            this.observer.fileWritten(this.name, this.bytes, this.lines, this.nanos);
+        }
+    }
+
+    /**
+     * Returns the number of newlines in a range of bytes.
+     *
+     * @param bytes The bytes to count in.
+     * @param offset The offset of the first byte to count in.
+     * @param length The number of bytes to count in.
+     */
+    public static long countLines(byte[] bytes, int offset, int length) {
+        long lines = 0;
+        for (int ix = offset; ix < offset + length; ix++) {
+            if (bytes[ix] == '\n') {
+                ++lines;
+            }
+        }
+
+        return lines;
+    }
+}
@@ -0,0 +1,469 @@
+/*
+ *
+ * PROJECT
+ *     Name
+ *         SimplifiedAnnotationProcessor
+ *
+ *     Code Version
+ *         1.1
+ *
+ *     Description
+ *         An abstract annotation processor base class that simplifies the annotation
+ *         processing, but also limits it slightly. It is however good enough for most
+ *         cases and makes things a bit easier and clearer.
+ *
+ * COPYRIGHTS
+ *     Copyright (C) 2013 by Natusoft AB All rights reserved.
+ *
+ * LICENSE
+ *     Apache 2.0 (Open Source)
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ * AUTHORS
+ *     tommy ()
+ *         Changes:
+ *         2026-10-16: Created!
+ *
+ */
+package se.natusoft.annotation.processor.simplified.monitor;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Records where the processing time of a processor goes. For each round and each processing method call it records
+ * the wall time, the CPU time and the allocated bytes of the processing thread, and the number of processed elements.
+ * For each file written by GenerationSupport it records the bytes and lines written and the time spent writing.
+ * The recorded metrics are written as a JSON report with writeReport(...).
+ * <p>
+ * CPU time and allocated bytes are read from the ThreadMXBean, and are -1 when the JVM does not support them.
+ * Work done on other threads, like parallel renders, is only included in the wall time.
+ */
+public class ProcessingMetrics extends ProcessingObserverAdapter {
+    //
+    // Private Members
+    //
+
+    /** The name of the processor. */
+    private String processorName = null;
+
+    /** The recorded rounds. */
+    private List<Round> rounds = new ArrayList<Round>();
+
+    /** The round in progress or null. */
+    private Round round = null;
+
+    /** The processing method call in progress or null. */
+    private Measure handler = null;
+
+    /** The totals of each processing method keyed by name. */
+    private Map<String, Measure> handlerTotals = new LinkedHashMap<String, Measure>();
+
+    /** The files written outside of a round. */
+    private List<FileMetrics> otherFiles = new ArrayList<FileMetrics>();
+
+    /** Reads CPU time. */
+    private static ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+
+    /** com.sun.management.ThreadMXBean.getThreadAllocatedBytes(long) or null if not available. */
+    private static Method getThreadAllocatedBytes = null;
+
+    static {
+        try {
+            Method method = Class.forName("com.sun.management.ThreadMXBean").getMethod("getThreadAllocatedBytes", long.class);
+            if (method.getDeclaringClass().isInstance(threadMXBean)) {
+                getThreadAllocatedBytes = method;
+            }
+        }
+        catch (Exception e) {
+            // Allocated bytes are not available.
+        }
+    }
+
+    //
+    // Constructors
+    //
+
+    /**
+     * Creates a new ProcessingMetrics.
+     *
+     * @param processorName The name of the processor, included in the report.
+     */
+    public ProcessingMetrics(String processorName) {
+        this.processorName = processorName;
+    }
+
+    //
+    // Methods
+    //
+
+    /**
+     * Returns the CPU time of the current thread or -1 if not available.
+     */
+    private static long cpuTime() {
+        try {
+            return threadMXBean.isCurrentThreadCpuTimeSupported() ? threadMXBean.getCurrentThreadCpuTime() : -1;
+        }
+        catch (UnsupportedOperationException uoe) {
+            return -1;
+        }
+    }
+
+    /**
+     * Returns the bytes allocated by the current thread or -1 if not available.
+     */
+    private static long allocatedBytes() {
+        if (getThreadAllocatedBytes == null) {
+            return -1;
+        }
+        try {
+            return (Long)getThreadAllocatedBytes.invoke(threadMXBean, Thread.currentThread().getId());
+        }
+        catch (Exception e) {
+            return -1;
+        }
+    }
+
+    @Override
+    public synchronized void roundStarted(int round) {
+        this.round = new Round(round);
+        this.round.measure.start();
+    }
+
+    @Override
+    public synchronized void roundEnded(int round) {
+        if (this.round != null) {
+            this.round.measure.stop();
+            this.rounds.add(this.round);
+            this.round = null;
+        }
+    }
+
+    @Override
+    public synchronized void handlerStarted(HandlerKind kind, String name, int elementCount) {
+        this.handler = new Measure(kind, name);
+        this.handler.elements = elementCount;
+        this.handler.start();
+    }
+
+    @Override
+    public synchronized void handlerEnded(HandlerKind kind, String name, int elementCount, boolean failed) {
+        if (this.handler == null) {
+            return;
+        }
+        this.handler.stop();
+        this.handler.failed = failed;
+        if (this.round != null) {
+            this.round.handlers.add(this.handler);
+        }
+
+        Measure total = this.handlerTotals.get(name);
+        if (total == null) {
+            total = new Measure(kind, name);
+            total.invocations = 0;
+            this.handlerTotals.put(name, total);
+        }
+        total.add(this.handler);
+        this.handler = null;
+    }
+
+    @Override
+    public synchronized void fileWritten(String name, long bytes, long lines, long nanos) {
+        FileMetrics file = new FileMetrics(name, bytes, lines, nanos);
+        if (this.round != null) {
+            this.round.files.add(file);
+        }
+        else {
+            this.otherFiles.add(file);
+        }
+    }
+
+    /**
+     * Writes the recorded metrics as JSON to a file.
+     *
+     * @param file The file to write to. Missing parent directories are created.
+     *
+     * @throws IOException on failure to write.
+     */
+    public void writeReport(File file) throws IOException {
+        if (file.getParentFile() != null) {
+            file.getParentFile().mkdirs();
+        }
+        Writer writer = new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+        try {
+            writeReport(writer);
+        }
+        finally {
+            writer.close();
+        }
+    }
+
+    /**
+     * Writes the recorded metrics as JSON.
+     *
+     * @param writer The writer to write to.
+     *
+     * @throws IOException on failure to write.
+     */
+    public synchronized void writeReport(Writer writer) throws IOException {
+        StringBuilder json = new StringBuilder(4096);
+        Measure total = new Measure(null, null);
+        total.invocations = 0;
+        List<FileMetrics> allFiles = new ArrayList<FileMetrics>(this.otherFiles);
+
+        json.append("{\n  \"processor\": ");
+        Json.appendString(json, this.processorName);
+        json.append(",\n  \"rounds\": [");
+        for (int ix = 0; ix < this.rounds.size(); ix++) {
+            Round round = this.rounds.get(ix);
+            total.add(round.measure);
+            allFiles.addAll(round.files);
+
+            json.append(ix == 0 ? "\n" : ",\n").append("    {\"round\": ").append(round.number);
+            round.measure.appendTimes(json);
+            json.append(",\n      \"handlers\": [");
+            for (int hx = 0; hx < round.handlers.size(); hx++) {
+                json.append(hx == 0 ? "\n        " : ",\n        ");
+                round.handlers.get(hx).appendTo(json);
+            }
+            json.append(round.handlers.isEmpty() ? "]" : "\n      ]");
+            json.append(",\n      \"files\": [");
+            for (int fx = 0; fx < round.files.size(); fx++) {
+                json.append(fx == 0 ? "\n        " : ",\n        ");
+                round.files.get(fx).appendTo(json);
+            }
+            json.append(round.files.isEmpty() ? "]}" : "\n      ]}");
+        }
+        json.append(this.rounds.isEmpty() ? "]" : "\n  ]");
+
+        json.append(",\n  \"handlers\": [");
+        int hx = 0;
+        for (Measure handlerTotal : this.handlerTotals.values()) {
+            json.append(hx++ == 0 ? "\n    " : ",\n    ");
+            handlerTotal.appendTo(json);
+        }
+        json.append(this.handlerTotals.isEmpty() ? "]" : "\n  ]");
+
+        long bytes = 0;
+        long lines = 0;
+        long writeNanos = 0;
+        for (FileMetrics file : allFiles) {
+            bytes += file.bytes;
+            lines += file.lines;
+            writeNanos += file.nanos;
+        }
+        json.append(",\n  \"totals\": {\"rounds\": ").append(this.rounds.size());
+        total.appendTimes(json);
+        json.append(", \"files\": ").append(allFiles.size());
+        json.append(", \"bytes\": ").append(bytes);
+        json.append(", \"lines\": ").append(lines);
+        json.append(", \"writeNanos\": ").append(writeNanos);
+        json.append("}\n}\n");
+
+        writer.write(json.toString());
+    }
+
+    //
+    // Inner Classes
+    //
+
+    /**
+     * The wall time, CPU time and allocated bytes of something, like a round or a processing method call.
+     */
+    private static class Measure {
+        //
+        // Private Members
+        //
+
+        private HandlerKind kind = null;
+        private String name = null;
+        private int invocations = 1;
+        private long elements = 0;
+        private boolean failed = false;
+        private long wallNanos = 0;
+        private long cpuNanos = 0;
+        private long allocatedBytes = 0;
+
+        //
+        // Constructors
+        //
+
+        /**
+         * Creates a new Measure.
+         *
+         * @param kind The kind of processing method or null if not a processing method.
+         * @param name The name of the processing method or null if not a processing method.
+         */
+        public Measure(HandlerKind kind, String name) {
+            this.kind = kind;
+            this.name = name;
+        }
+
+        //
+        // Methods
+        //
+
+        /**
+         * Starts measuring on the current thread.
+         */
+        public void start() {
+            this.wallNanos = -System.nanoTime();
+            long cpu = cpuTime();
+            this.cpuNanos = cpu >= 0 ? -cpu : Long.MIN_VALUE;
+            long allocated = allocatedBytes();
+            this.allocatedBytes = allocated >= 0 ? -allocated : Long.MIN_VALUE;
+        }
+
+        /**
+         * Stops measuring on the current thread.
+         */
+        public void stop() {
+            this.wallNanos += System.nanoTime();
+            this.cpuNanos = this.cpuNanos != Long.MIN_VALUE ? this.cpuNanos + cpuTime() : -1;
+            this.allocatedBytes = this.allocatedBytes != Long.MIN_VALUE ? this.allocatedBytes + allocatedBytes() : -1;
+        }
+
+        /**
+         * Adds another measure to this one.
+         *
+         * @param measure The measure to add.
+         */
+        public void add(Measure measure) {
+            this.invocations += measure.invocations;
+            this.elements += measure.elements;
+            this.wallNanos += measure.wallNanos;
+            this.cpuNanos = this.cpuNanos >= 0 && measure.cpuNanos >= 0 ? this.cpuNanos + measure.cpuNanos : -1;
+            this.allocatedBytes = this.allocatedBytes >= 0 && measure.allocatedBytes >= 0 ?
+                    this.allocatedBytes + measure.allocatedBytes : -1;
+        }
+
+        /**
+         * Appends the times as JSON members.
+         *
+         * @param json The JSON to append to.
+         */
+        public void appendTimes(StringBuilder json) {
+            json.append(", \"wallNanos\": ").append(this.wallNanos);
+            json.append(", \"cpuNanos\": ").append(this.cpuNanos);
+            json.append(", \"allocatedBytes\": ").append(this.allocatedBytes);
+        }
+
+        /**
+         * Appends this processing method measure as a JSON object.
+         *
+         * @param json The JSON to append to.
+         */
+        public void appendTo(StringBuilder json) {
+            json.append("{\"kind\": ");
+            Json.appendString(json, this.kind.name());
+            json.append(", \"name\": ");
+            Json.appendString(json, this.name);
+            json.append(", \"invocations\": ").append(this.invocations);
+            json.append(", \"elements\": ").append(this.elements);
+            appendTimes(json);
+            if (this.failed) {
+                json.append(", \"failed\": true");
+            }
+            json.append('}');
+        }
+    }
+
+    /**
+     * The metrics of a round.
+     */
+    private static class Round {
+        //
+        // Private Members
+        //
+
+        private int number = 0;
+        private Measure measure = new Measure(null, null);
+        private List<Measure> handlers = new ArrayList<Measure>();
+        private List<FileMetrics> files = new ArrayList<FileMetrics>();
+
+        //
+        // Constructors
+        //
+
+        /**
+         * Creates a new Round.
+         *
+         * @param number The round number.
+         */
+        public Round(int number) {
+            this.number = number;
+        }
+    }
+
+    /**
+     * The metrics of a written file.
+     */
+    private static class FileMetrics {
+        //
+        // Private Members
+        //
+
+        private String name = null;
+        private long bytes = 0;
+        private long lines = 0;
+        private long nanos = 0;
+
+        //
+        // Constructors
+        //
+
+        /**
+         * Creates a new FileMetrics.
+         *
+         * @param name The name of the file.
+         * @param bytes The number of bytes written.
+         * @param lines The number of lines written.
+         * @param nanos The time spent writing.
+         */
+        public FileMetrics(String name, long bytes, long lines, long nanos) {
+            this.name = name;
+            this.bytes = bytes;
+            this.lines = lines;
+            this.nanos = nanos;
+        }
+
+        //
+        // Methods
+        //
+
+        /**
+         * Appends this as a JSON object.
+         *
+         * @param json The JSON to append to.
+         */
+        public void appendTo(StringBuilder json) {
+            json.append("{\"name\": ");
+            Json.appendString(json, this.name);
+            json.append(", \"bytes\": ").append(this.bytes);
+            json.append(", \"lines\": ").append(this.lines);
+            json.append(", \"writeNanos\": ").append(this.nanos);
+            json.append('}');
+        }
+    }
+}
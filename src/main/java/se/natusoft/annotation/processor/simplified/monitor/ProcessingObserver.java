@@ -0,0 +1,116 @@
+/*
+ *
+ * PROJECT
+ *     Name
+ *         SimplifiedAnnotationProcessor
+ *
+ *     Code Version
+ *         1.1
+ *
+ *     Description
+ *         An abstract annotation processor base class that simplifies the annotation
+ *         processing, but also limits it slightly. It is however good enough for most
+ *         cases and makes things a bit easier and clearer.
+ *
+ * COPYRIGHTS
+ *     Copyright (C) 2013 by Natusoft AB All rights reserved.
+ *
+ * LICENSE
+ *     Apache 2.0 (Open Source)
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ * AUTHORS
+ *     tommy ()
+ *         Changes:
+ *         2026-10-16: Created!
+ *
+ */
+package se.natusoft.annotation.processor.simplified.monitor;
+
+import javax.lang.model.element.Element;
+
+/**
+ * Observes the processing of a SimplifiedAnnotationProcessor. Observers are added with
+ * SimplifiedAnnotationProcessor.addProcessingObserver(...) and are called on the processing thread, except for
+ * fileWritten(...) of streams closed on another thread. When no observer is added, observing costs one null check
+ * per event.
+ * <p>
+ * Extend ProcessingObserverAdapter to only implement the wanted methods.
+ */
+public interface ProcessingObserver {
+
+    /**
+     * Called when a processing round starts, before @NewRound.
+     *
+     * @param round The round number of the processor, starting at 1.
+     */
+    void roundStarted(int round);
+
+    /**
+     * Called when a processing round has ended, after the generated sources have been written.
+     *
+     * @param round The round number of the processor, starting at 1.
+     */
+    void roundEnded(int round);
+
+    /**
+     * Called before a processing method is called.
+     *
+     * @param kind The kind of processing method.
+     * @param name The name of the processing method, see HandlerKind.getHandlerName(...).
+     * @param elementCount The number of elements passed to a @Process method, otherwise 0.
+     */
+    void handlerStarted(HandlerKind kind, String name, int elementCount);
+
+    /**
+     * Called after a processing method has returned or failed.
+     *
+     * @param kind The kind of processing method.
+     * @param name The name of the processing method, see HandlerKind.getHandlerName(...).
+     * @param elementCount The number of elements passed to a @Process method, otherwise 0.
+     * @param failed True if the processing method threw an exception.
+     */
+    void handlerEnded(HandlerKind kind, String name, int elementCount, boolean failed);
+
+    /**
+     * Called when a processing method starts processing an element, if it tells so with
+     * SimplifiedAnnotationProcessor.beginElement(...).
+     *
+     * @param element The element.
+     */
+    void elementStarted(Element element);
+
+    /**
+     * Called when a processing method is done processing an element, if it tells so with
+     * SimplifiedAnnotationProcessor.endElement(...).
+     *
+     * @param element The element.
+     */
+    void elementEnded(Element element);
+
+    /**
+     * Called when GenerationSupport has written a file.
+     *
+     * @param name The name of the file, as given by its FileObject, or its path.
+     * @param bytes The number of bytes written.
+     * @param lines The number of lines written.
+     * @param nanos The time spent writing to the file.
+     */
+    void fileWritten(String name, long bytes, long lines, long nanos);
+
+    /**
+     * Called once when all processing is done, after the @AllProcessed methods.
+     */
+    void processingOver();
+}
@@ -0,0 +1,71 @@
+/*
+ *
+ * PROJECT
+ *     Name
+ *         SimplifiedAnnotationProcessor
+ *
+ *     Code Version
+ *         1.1
+ *
+ *     Description
+ *         An abstract annotation processor base class that simplifies the annotation
+ *         processing, but also limits it slightly. It is however good enough for most
+ *         cases and makes things a bit easier and clearer.
+ *
+ * COPYRIGHTS
+ *     Copyright (C) 2013 by Natusoft AB All rights reserved.
+ *
+ * LICENSE
+ *     Apache 2.0 (Open Source)
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ * AUTHORS
+ *     tommy ()
+ *         Changes:
+ *         2026-10-16: Created!
+ *
+ */
+package se.natusoft.annotation.processor.simplified.monitor;
+
+import javax.lang.model.element.Element;
+
+/**
+ * A ProcessingObserver doing nothing, to extend by observers only interested in some events.
+ */
+public abstract class ProcessingObserverAdapter implements ProcessingObserver {
+
+    @Override
+    public void roundStarted(int round) {}
+
+    @Override
+    public void roundEnded(int round) {}
+
+    @Override
+    public void handlerStarted(HandlerKind kind, String name, int elementCount) {}
+
+    @Override
+    public void handlerEnded(HandlerKind kind, String name, int elementCount, boolean failed) {}
+
+    @Override
+    public void elementStarted(Element element) {}
+
+    @Override
+    public void elementEnded(Element element) {}
+
+    @Override
+    public void fileWritten(String name, long bytes, long lines, long nanos) {}
+
+    @Override
+    public void processingOver() {}
+}
@@ -0,0 +1,151 @@
+/*
+ *
+ * PROJECT
+ *     Name
+ *         SimplifiedAnnotationProcessor
+ *
+ *     Code Version
+ *         1.1
+ *
+ *     Description
+ *         An abstract annotation processor base class that simplifies the annotation
+ *         processing, but also limits it slightly. It is however good enough for most
+ *         cases and makes things a bit easier and clearer.
+ *
+ * COPYRIGHTS
+ *     Copyright (C) 2013 by Natusoft AB All rights reserved.
+ *
+ * LICENSE
+ *     Apache 2.0 (Open Source)
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ * AUTHORS
+ *     tommy ()
+ *         Changes:
+ *         2026-10-16: Created!
+ *
+ */
+package se.natusoft.annotation.processor.simplified.monitor;
+
+import java.util.ArrayList;
+import java.util.List;
+import javax.lang.model.element.Element;
+
+/**
+ * Passes the events on to several observers, in the order they were added.
+ */
+public class ProcessingObservers implements ProcessingObserver {
+    //
+    // Private Members
+    //
+
+    /** The observers. */
+    private List<ProcessingObserver> observers = new ArrayList<ProcessingObserver>();
+
+    //
+    // Constructors
+    //
+
+    /**
+     * Creates a new ProcessingObservers.
+     *
+     * @param observers The initial observers.
+     */
+    public ProcessingObservers(ProcessingObserver... observers) {
+        for (ProcessingObserver observer : observers) {
+            this.observers.add(observer);
+        }
+    }
+
+    //
+    // Methods
+    //
+
+    /**
+     * Returns an observer passing events to both observers. If one of them is null the other is returned.
+     *
+     * @param observer The first observer or null.
+     * @param added The observer to add or null.
+     */
+    public static ProcessingObserver add(ProcessingObserver observer, ProcessingObserver added) {
+        if (observer == null) {
+            return added;
+        }
+        if (added == null) {
+            return observer;
+        }
+        if (observer instanceof ProcessingObservers) {
+            ((ProcessingObservers)observer).observers.add(added);
+            return observer;
+        }
+
+        return new ProcessingObservers(observer, added);
+    }
+
+    @Override
+    public void roundStarted(int round) {
+        for (ProcessingObserver observer : this.observers) {
+            observer.roundStarted(round);
+        }
+    }
+
+    @Override
+    public void roundEnded(int round) {
+        for (ProcessingObserver observer : this.observers) {
+            observer.roundEnded(round);
+        }
+    }
+
+    @Override
+    public void handlerStarted(HandlerKind kind, String name, int elementCount) {
+        for (ProcessingObserver observer : this.observers) {
+            observer.handlerStarted(kind, name, elementCount);
+        }
+    }
+
+    @Override
+    public void handlerEnded(HandlerKind kind, String name, int elementCount, boolean failed) {
+        for (ProcessingObserver observer : this.observers) {
+            observer.handlerEnded(kind, name, elementCount, failed);
+        }
+    }
+
+    @Override
+    public void elementStarted(Element element) {
+        for (ProcessingObserver observer : this.observers) {
+            observer.elementStarted(element);
+        }
+    }
+
+    @Override
+    public void elementEnded(Element element) {
+        for (ProcessingObserver observer : this.observers) {
+            observer.elementEnded(element);
+        }
+    }
+
+    @Override
+    public void fileWritten(String name, long bytes, long lines, long nanos) {
+        for (ProcessingObserver observer : this.observers) {
+            observer.fileWritten(name, bytes, lines, nanos);
+        }
+    }
+
+    @Override
+    public void processingOver() {
+        for (ProcessingObserver observer : this.observers) {
+            observer.processingOver();
+        }
+    }
+}
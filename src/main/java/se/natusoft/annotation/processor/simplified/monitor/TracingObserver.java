@@ -0,0 +1,145 @@
+/*
+ *
+ * PROJECT
+ *     Name
+ *         SimplifiedAnnotationProcessor
+ *
+ *     Code Version
+ *         1.1
+ *
+ *     Description
+ *         An abstract annotation processor base class that simplifies the annotation
+ *         processing, but also limits it slightly. It is however good enough for most
+ *         cases and makes things a bit easier and clearer.
+ *
+ * COPYRIGHTS
+ *     Copyright (C) 2013 by Natusoft AB All rights reserved.
+ *
+ * LICENSE
+ *     Apache 2.0 (Open Source)
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ * AUTHORS
+ *     tommy ()
+ *         Changes:
+ *         2026-10-16: Created!
+ *
+ */
+package se.natusoft.annotation.processor.simplified.monitor;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.TypeElement;
+
+/**
+ * Records the rounds, processing method calls and written files of a processor as spans of a ChromeTrace, on a
+ * lane of its own. The processing of individual elements is also recorded if enabled, for processing methods
+ * telling so with SimplifiedAnnotationProcessor.beginElement(...) and endElement(...).
+ */
+public class TracingObserver extends ProcessingObserverAdapter {
+    //
+    // Private Members
+    //
+
+    /** The trace to record to. */
+    private ChromeTrace trace = null;
+
+    /** The lane of the processor. */
+    private int lane = 0;
+
+    /** True if element spans are recorded. */
+    private boolean traceElements = false;
+
+    /** The start times of the open spans. */
+    private Deque<Long> starts = new ArrayDeque<Long>();
+
+    //
+    // Constructors
+    //
+
+    /**
+     * Creates a new TracingObserver.
+     *
+     * @param trace The trace to record to.
+     * @param processorName The name of the processor, used as lane name.
+     * @param traceElements True to record element spans.
+     */
+    public TracingObserver(ChromeTrace trace, String processorName, boolean traceElements) {
+        this.trace = trace;
+        this.lane = trace.addLane(processorName);
+        this.traceElements = traceElements;
+    }
+
+    //
+    // Methods
+    //
+
+    /**
+     * Returns the start time of the innermost open span and closes it.
+     */
+    private long end() {
+        Long start = this.starts.poll();
+        return start != null ? start : System.nanoTime();
+    }
+
+    @Override
+    public void roundStarted(int round) {
+        this.starts.push(System.nanoTime());
+    }
+
+    @Override
+    public void roundEnded(int round) {
+        this.trace.span(this.lane, "Round " + round, "round", end(), System.nanoTime(), "round", round);
+    }
+
+    @Override
+    public void handlerStarted(HandlerKind kind, String name, int elementCount) {
+        this.starts.push(System.nanoTime());
+    }
+
+    @Override
+    public void handlerEnded(HandlerKind kind, String name, int elementCount, boolean failed) {
+        if (failed) {
+            this.trace.span(this.lane, name, "handler", end(), System.nanoTime(), "elements", elementCount, "failed", true);
+        }
+        else {
+            this.trace.span(this.lane, name, "handler", end(), System.nanoTime(), "elements", elementCount);
+        }
+    }
+
+    @Override
+    public void elementStarted(Element element) {
+        if (this.traceElements) {
+            this.starts.push(System.nanoTime());
+        }
+    }
+
+    @Override
+    public void elementEnded(Element element) {
+        if (this.traceElements) {
+            String name = element instanceof TypeElement ? ((TypeElement)element).getQualifiedName().toString() :
+                    element.getEnclosingElement() != null ?
+                            element.getEnclosingElement().getSimpleName() + "." + element.getSimpleName() :
+                            element.getSimpleName().toString();
+            this.trace.span(this.lane, name, "element", end(), System.nanoTime(), "kind", element.getKind());
+        }
+    }
+
+    @Override
+    public void fileWritten(String name, long bytes, long lines, long nanos) {
+        long now = System.nanoTime();
+        this.trace.span(this.lane, name, "file", now - nanos, now, "bytes", bytes, "lines", lines);
+    }
+}
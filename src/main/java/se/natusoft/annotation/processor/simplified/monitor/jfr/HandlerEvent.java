@@ -0,0 +1,74 @@
+/*
+ *
+ * PROJECT
+ *     Name
+ *         SimplifiedAnnotationProcessor
+ *
+ *     Code Version
+ *         1.1
+ *
+ *     Description
+ *         An abstract annotation processor base class that simplifies the annotation
+ *         processing, but also limits it slightly. It is however good enough for most
+ *         cases and makes things a bit easier and clearer.
+ *
+ * COPYRIGHTS
+ *     Copyright (C) 2013 by Natusoft AB All rights reserved.
+ *
+ * LICENSE
+ *     Apache 2.0 (Open Source)
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ * AUTHORS
+ *     tommy ()
+ *         Changes:
+ *         2026-10-16: Created!
+ *
+ */
+package se.natusoft.annotation.processor.simplified.monitor.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A call of a processing method, like a @Process method, of a SimplifiedAnnotationProcessor.
+ */
+@Name("se.natusoft.sap.Handler")
+@Label("Processing Method")
+@Category({"Annotation Processing", "SimplifiedAnnotationProcessor"})
+@Description("A call of a processing method of an annotation processor.")
+class HandlerEvent extends Event {
+
+    @Label("Processor")
+    String processor;
+
+    @Label("Round")
+    int round;
+
+    @Label("Kind")
+    String kind;
+
+    @Label("Handler")
+    @Description("The processing method, like @Process(my.Annotation).")
+    String handler;
+
+    @Label("Element Count")
+    int elementCount;
+
+    @Label("Failed")
+    boolean failed;
+}
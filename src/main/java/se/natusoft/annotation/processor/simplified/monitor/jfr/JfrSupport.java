@@ -0,0 +1,209 @@
+/*
+ *
+ * PROJECT
+ *     Name
+ *         SimplifiedAnnotationProcessor
+ *
+ *     Code Version
+ *         1.1
+ *
+ *     Description
+ *         An abstract annotation processor base class that simplifies the annotation
+ *         processing, but also limits it slightly. It is however good enough for most
+ *         cases and makes things a bit easier and clearer.
+ *
+ * COPYRIGHTS
+ *     Copyright (C) 2013 by Natusoft AB All rights reserved.
+ *
+ * LICENSE
+ *     Apache 2.0 (Open Source)
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ * AUTHORS
+ *     tommy ()
+ *         Changes:
+ *         2026-10-16: Created!
+ *
+ */
+package se.natusoft.annotation.processor.simplified.monitor.jfr;
+
+import jdk.jfr.EventType;
+import se.natusoft.annotation.processor.simplified.monitor.FlightRecorderSupport;
+import se.natusoft.annotation.processor.simplified.monitor.HandlerKind;
+import se.natusoft.annotation.processor.simplified.monitor.ProcessingObserver;
+import se.natusoft.annotation.processor.simplified.monitor.ProcessingObserverAdapter;
+
+/**
+ * The FlightRecorderSupport implementation. This is only loaded by FlightRecorderSupport.get() when the runtime
+ * provides JFR. The event types are looked up, which registers the events, when an event is first about to be
+ * emitted, and not when this is loaded.
+ */
+public class JfrSupport extends FlightRecorderSupport {
+    //
+    // Methods
+    //
+
+    @Override
+    public ProcessingObserver createProcessingObserver(String processorName) {
+        return new JfrProcessingObserver(processorName);
+    }
+
+    @Override
+    public Object beginResourceValidation() {
+        if (!EventTypes.RESOURCE_VALIDATION.isEnabled()) {
+            return null;
+        }
+        ResourceValidationEvent event = new ResourceValidationEvent();
+        event.begin();
+
+        return event;
+    }
+
+    @Override
+    public void endResourceValidation(Object validation, String processorName, String annotation, String path,
+                                      boolean valid) {
+        if (validation == null) {
+            return;
+        }
+        ResourceValidationEvent event = (ResourceValidationEvent)validation;
+        event.end();
+        if (event.shouldCommit()) {
+            event.processor = processorName;
+            event.annotation = annotation;
+            event.path = path;
+            event.valid = valid;
+            event.commit();
+        }
+    }
+
+    //
+    // Inner Classes
+    //
+
+    /**
+     * The event types, looked up when this class is first used.
+     */
+    private static class EventTypes {
+        //
+        // Constants
+        //
+
+        private static final EventType ROUND = EventType.getEventType(RoundEvent.class);
+        private static final EventType HANDLER = EventType.getEventType(HandlerEvent.class);
+        private static final EventType FILE_WRITTEN = EventType.getEventType(FileWrittenEvent.class);
+        private static final EventType RESOURCE_VALIDATION = EventType.getEventType(ResourceValidationEvent.class);
+    }
+
+    /**
+     * Emits the events of a processor. Events that are not enabled are not created.
+     */
+    private static class JfrProcessingObserver extends ProcessingObserverAdapter {
+        //
+        // Private Members
+        //
+
+        /** The name of the processor. */
+        private String processorName = null;
+
+        /** The current round number. */
+        private int round = 0;
+
+        /** The event of the round in progress or null. */
+        private RoundEvent roundEvent = null;
+
+        /** The event of the processing method call in progress or null. */
+        private HandlerEvent handlerEvent = null;
+
+        //
+        // Constructors
+        //
+
+        /**
+         * Creates a new JfrProcessingObserver.
+         *
+         * @param processorName The name of the processor.
+         */
+        public JfrProcessingObserver(String processorName) {
+            this.processorName = processorName;
+        }
+
+        //
+        // Methods
+        //
+
+        @Override
+        public void roundStarted(int round) {
+            this.round = round;
+            if (EventTypes.ROUND.isEnabled()) {
+                this.roundEvent = new RoundEvent();
+                this.roundEvent.begin();
+            }
+        }
+
+        @Override
+        public void roundEnded(int round) {
+            RoundEvent event = this.roundEvent;
+            this.roundEvent = null;
+            if (event != null) {
+                event.end();
+                if (event.shouldCommit()) {
+                    event.processor = this.processorName;
+                    event.round = round;
+                    event.commit();
+                }
+            }
+        }
+
+        @Override
+        public void handlerStarted(HandlerKind kind, String name, int elementCount) {
+            if (EventTypes.HANDLER.isEnabled()) {
+                this.handlerEvent = new HandlerEvent();
+                this.handlerEvent.begin();
+            }
+        }
+
+        @Override
+        public void handlerEnded(HandlerKind kind, String name, int elementCount, boolean failed) {
+            HandlerEvent event = this.handlerEvent;
+            this.handlerEvent = null;
+            if (event != null) {
+                event.end();
+                if (event.shouldCommit()) {
+                    event.processor = this.processorName;
+                    event.round = this.round;
+                    event.kind = kind.getAnnotation();
+                    event.handler = name;
+                    event.elementCount = elementCount;
+                    event.failed = failed;
+                    event.commit();
+                }
+            }
+        }
+
+        @Override
+        public void fileWritten(String name, long bytes, long lines, long nanos) {
+            if (EventTypes.FILE_WRITTEN.isEnabled()) {
+                FileWrittenEvent event = new FileWrittenEvent();
+                if (event.shouldCommit()) {
+                    event.processor = this.processorName;
+                    event.name = name;
+                    event.bytes = bytes;
+                    event.lines = lines;
+                    event.writeDuration = nanos;
+                    event.commit();
+                }
+            }
+        }
+    }
+}
@@ -52,6 +52,7 @@ import javax.lang.model.element.ExecutableElement;
 import javax.lang.model.element.TypeElement;
 import javax.tools.Diagnostic.Kind;
 import se.natusoft.annotation.processor.simplified.annotations.AutoDiscovery;
+import se.natusoft.annotation.processor.simplified.monitor.FlightRecorderSupport;
 
 /**
  * This processor validates that the specified classpath resource is available on the classpath.
@@ -63,6 +64,8 @@ public class MavenResourceProcessor extends AbstractProcessor {
 
     @Override
     public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        // Emits a JFR event for each validation when a recording is running.
+        FlightRecorderSupport jfr = FlightRecorderSupport.getIfRecording();
 
         if (!roundEnv.processingOver()) {
             // We only have one annotation, but this is still easier.
@@ -83,9 +86,15 @@ public class MavenResourceProcessor extends AbstractProcessor {
                             }
 
                             // Lets validate the the pointed to path is available.
+                            Object validation = jfr != null ? jfr.beginResourceValidation() : null;
                             File resourceDir = new File("src/main/resources");
                             File resourceFile = new File(resourceDir, value.getValue().toString());
-                            if (!resourceFile.exists()) {
+                            boolean found = resourceFile.exists();
+                            if (validation != null) {
+                                jfr.endResourceValidation(validation, getClass().getName(), "@MavenResource",
+                                        value.getValue().toString(), found);
+                            }
+                            if (!found) {
                                 // Kind.ERROR will cause a compilation failure!
                                 super.processingEnv.getMessager().printMessage(Kind.ERROR, "The specified resource (" + value.getValue() + ") is not available!", annotatedElement, annotation, value);
                             }
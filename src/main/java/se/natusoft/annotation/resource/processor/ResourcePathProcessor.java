@@ -52,6 +52,7 @@ import javax.lang.model.element.TypeElement;
 import javax.lang.model.element.VariableElement;
 import javax.tools.Diagnostic.Kind;
 import se.natusoft.annotation.processor.simplified.annotations.AutoDiscovery;
+import se.natusoft.annotation.processor.simplified.monitor.FlightRecorderSupport;
 
 /**
  * This processor validates that the specified classpath resource is available on the classpath.
@@ -63,6 +64,8 @@ public class ResourcePathProcessor extends AbstractProcessor {
 
     @Override
     public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        // Emits a JFR event for each validation when a recording is running.
+        FlightRecorderSupport jfr = FlightRecorderSupport.getIfRecording();
 
         if (!roundEnv.processingOver()) {
             // We only have one annotation, but this is still easier.
@@ -76,10 +79,14 @@ public class ResourcePathProcessor extends AbstractProcessor {
                         if (checkModifier(field.getModifiers(), Modifier.STATIC) && checkModifier(field.getModifiers(), Modifier.FINAL)) {
                             // Now we know it is a constant.
                             String path = field.getConstantValue().toString();
+                            Object validation = jfr != null ? jfr.beginResourceValidation() : null;
                             boolean found = checkInClasspath(path);
                             if (!found) {
                                 found = checkInMavenResourcePath(path);
                             }
+                            if (validation != null) {
+                                jfr.endResourceValidation(validation, getClass().getName(), "@ResourcePath", path, found);
+                            }
                             if (!found) {
                                 // Since we use Kind.ERROR here this will cause a compilation failure with our message.
                                 super.processingEnv.getMessager().printMessage(Kind.ERROR, "The '" + path + "' path is not available!", field);
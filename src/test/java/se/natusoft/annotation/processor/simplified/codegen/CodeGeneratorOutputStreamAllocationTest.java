@@ -0,0 +1,170 @@
+/*
+ *
+ * PROJECT
+ *     Name
+ *         SimplifiedAnnotationProcessor
+ *
+ *     Code Version
+ *         1.1
+ *
+ *     Description
+ *         An abstract annotation processor base class that simplifies the annotation
+ *         processing, but also limits it slightly. It is however good enough for most
+ *         cases and makes things a bit easier and clearer.
+ *
+ * COPYRIGHTS
+ *     Copyright (C) 2013 by Natusoft AB All rights reserved.
+ *
+ * LICENSE
+ *     Apache 2.0 (Open Source)
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ * AUTHORS
+ *     tommy ()
+ *         Changes:
+ *         2026-10-16: Created!
+ *
+ */
+package se.natusoft.annotation.processor.simplified.codegen;
+
+import java.io.ByteArrayOutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import junit.framework.TestCase;
+
+/**
+ * Counts the bytes allocated by the generating thread while JavaSourceOutputStream generates a class into an
+ * already sized ByteArrayOutputStream. Once the indent table, delayed print queue and text buffer have grown to
+ * what the class needs, generating it again should allocate nothing. This needs com.sun.management.ThreadMXBean
+ * and passes without checking anything on JVMs that do not provide it. The pom runs the tests without escape
+ * analysis, which would otherwise hide allocations the JIT happens to remove once the code is compiled.
+ */
+public class CodeGeneratorOutputStreamAllocationTest extends TestCase {
+    //
+    // Constants
+    //
+
+    /** The number of methods of the generated class. */
+    private static final int METHODS = 1000;
+
+    /** The number of times the class is generated before allocations are counted. */
+    private static final int WARMUP_ROUNDS = 20;
+
+    //
+    // Private Members
+    //
+
+    /** The method names, created up front so that they are not counted. */
+    private String[] methodNames;
+
+    /** The field names, created up front so that they are not counted. */
+    private String[] fieldNames;
+
+    /** The annotation parameters, created up front since a varargs call would allocate the array each time. */
+    private String[] annotationParams;
+
+    /** The generated class. */
+    private ByteArrayOutputStream out;
+
+    /** The stream generating the class. */
+    private JavaSourceOutputStream jos;
+
+    //
+    // Methods
+    //
+
+    @Override
+    protected void setUp() throws Exception {
+        this.methodNames = new String[METHODS];
+        this.fieldNames = new String[METHODS];
+        for (int ix = 0; ix < METHODS; ix++) {
+            this.methodNames[ix] = "method" + ix;
+            this.fieldNames[ix] = "method" + ix + "Count";
+        }
+        this.annotationParams = new String[] {"a=1"};
+        this.out = new ByteArrayOutputStream(1 << 20);
+        this.jos = new JavaSourceOutputStream(this.out, false, "UTF-8");
+    }
+
+    /**
+     * Generates the class with a field and an annotated method per method name.
+     */
+    private void generate() {
+        this.out.reset();
+        this.jos.begClass("public", "", "Generated");
+        this.jos.implementsInterface("java.io.Serializable");
+        this.jos.implementsInterface("java.lang.Cloneable");
+        for (int ix = 0; ix < METHODS; ix++) {
+            this.jos.field("private", "int", this.fieldNames[ix], "0");
+            this.jos.annotation("X", this.annotationParams);
+            this.jos.begMethod("public", "", "void", this.methodNames[ix]);
+            this.jos.methodArg("int", "first");
+            this.jos.methodArg("java.lang.String", "second");
+            this.jos.methodException("java.io.IOException");
+            this.jos.methodException("java.lang.InterruptedException");
+            this.jos.delayedPrintln("        // Generated");
+            this.jos.incrementIndent();
+            this.jos.incrementIndent();
+            this.jos.contentln("return;");
+            this.jos.decrementIndent();
+            this.jos.decrementIndent();
+            this.jos.endMethod();
+        }
+        this.jos.endClass();
+        this.jos.flush();
+    }
+
+    public void testGeneratedMethod() throws Exception {
+        generate();
+
+        assertFalse("Generation failed!", this.jos.checkError());
+        String nl = System.getProperty("line.separator");
+        String method =
+                "    private int method1Count = 0;" + nl +
+                "@X(a=1)" + nl +
+                "    public void method1(int first, java.lang.String second) " +
+                        "throws java.io.IOException, java.lang.InterruptedException {" + nl +
+                "        // Generated" + nl +
+                "                return;" + nl +
+                "    }" + nl +
+                "    private int method2Count = 0;" + nl;
+        String generated = this.out.toString("UTF-8");
+        assertTrue("Expected:" + nl + method + "in:" + nl + generated.substring(0, 1000), generated.contains(method));
+    }
+
+    public void testSteadyStateGenerationAllocatesNothing() {
+        ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+        if (!(threadMXBean instanceof com.sun.management.ThreadMXBean)) {
+            return;
+        }
+        com.sun.management.ThreadMXBean allocationCounter = (com.sun.management.ThreadMXBean)threadMXBean;
+        if (!allocationCounter.isThreadAllocatedMemorySupported()) {
+            return;
+        }
+        allocationCounter.setThreadAllocatedMemoryEnabled(true);
+        long threadId = Thread.currentThread().getId();
+
+        for (int round = 0; round < WARMUP_ROUNDS; round++) {
+            generate();
+        }
+        assertFalse("Generation failed!", this.jos.checkError());
+
+        long before = allocationCounter.getThreadAllocatedBytes(threadId);
+        generate();
+        long allocated = allocationCounter.getThreadAllocatedBytes(threadId) - before;
+
+        assertFalse("Generation failed!", this.jos.checkError());
+        assertTrue("Generating " + METHODS + " methods allocated " + allocated + " bytes!", allocated < METHODS);
+    }
+}
@@ -0,0 +1,247 @@
+/*
+ *
+ * PROJECT
+ *     Name
+ *         SimplifiedAnnotationProcessor
+ *
+ *     Code Version
+ *         1.1
+ *
+ *     Description
+ *         An abstract annotation processor base class that simplifies the annotation
+ *         processing, but also limits it slightly. It is however good enough for most
+ *         cases and makes things a bit easier and clearer.
+ *
+ * COPYRIGHTS
+ *     Copyright (C) 2013 by Natusoft AB All rights reserved.
+ *
+ * LICENSE
+ *     Apache 2.0 (Open Source)
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ * AUTHORS
+ *     tommy ()
+ *         Changes:
+ *         2026-10-16: Created!
+ *
+ */
+package se.natusoft.annotation.processor.simplified.codegen;
+
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Generates a class with many methods, each with a throws list, with the different ways of tracking the first item
+ * of a list in CodeGeneratorOutputStream:
+ * <ul>
+ * <li>explicitClauses - JavaSourceOutputStream as is, using onFirst(clause, Runnable).</li>
+ * <li>callerKeyed - onFirst(Runnable), identifying the calling method with StackWalker (Java 9+).</li>
+ * <li>stackTrace - The caller taken from a new Exception() stack trace on each onFirst() and initializeOnFirst()
+ *     call, as CodeGeneratorOutputStream did before the explicit clauses.</li>
+ * </ul>
+ * Run with:
+ * <pre>
+ *     mvn -B clean test-compile exec:exec -Dexec.executable=java -Dexec.classpathScope=test \
+ *         -Dexec.args="-cp %classpath org.openjdk.jmh.Main OnFirstBenchmark"
+ * </pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OnFirstBenchmark {
+    //
+    // Constants
+    //
+
+    /** Discards all output. */
+    private static final OutputStream DISCARD = new OutputStream() {
+        @Override
+        public void write(int b) {}
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) {}
+    };
+
+    //
+    // Private Members
+    //
+
+    /** The number of methods to generate. */
+    @Param({"10000"})
+    private int methods;
+
+    /** The names of the generated methods. */
+    private String[] methodNames = null;
+
+    //
+    // Methods
+    //
+
+    @Setup
+    public void setup() {
+        this.methodNames = new String[this.methods];
+        for (int ix = 0; ix < this.methods; ix++) {
+            this.methodNames[ix] = "method" + ix;
+        }
+    }
+
+    @Benchmark
+    public void explicitClauses() {
+        generate(new JavaSourceOutputStream(DISCARD));
+    }
+
+    @Benchmark
+    public void callerKeyed() {
+        generate(new CallerKeyedStream());
+    }
+
+    @Benchmark
+    public void stackTrace() {
+        generate(new StackTraceStream());
+    }
+
+    /**
+     * Generates a class with the benchmarked number of methods.
+     *
+     * @param jos The stream to generate with.
+     */
+    private void generate(JavaSourceOutputStream jos) {
+        jos.packageLine("bench");
+        jos.begClass("public", "", "Generated");
+        jos.implementsInterface("java.io.Serializable");
+        jos.implementsInterface("java.lang.Cloneable");
+        for (String methodName : this.methodNames) {
+            jos.begMethod("public", "", "void", methodName);
+            jos.methodArg("int", "first");
+            jos.methodArg("java.lang.String", "second");
+            jos.methodException("java.io.IOException");
+            jos.methodException("java.lang.InterruptedException");
+            jos.println("        return;");
+            jos.endMethod();
+        }
+        jos.endClass();
+        jos.flush();
+    }
+
+    //
+    // Inner Classes
+    //
+
+    /**
+     * Writes the implements and throws lists with the caller keyed onFirst(Runnable).
+     */
+    private static class CallerKeyedStream extends JavaSourceOutputStream {
+
+        /** Begins the implements list. */
+        private Runnable beginImplements = new Runnable() {
+            @Override
+            public void run() {
+                rawPrint(" implements ");
+                newComma();
+            }
+        };
+
+        /** Ends the argument list and begins the throws list. */
+        private Runnable beginThrows = new Runnable() {
+            @Override
+            public void run() {
+                flushAndRemoveFirstDelayedPrint();
+                rawPrint(" throws ");
+                newComma();
+            }
+        };
+
+        public CallerKeyedStream() {
+            super(DISCARD);
+        }
+
+        @Override
+        public void implementsInterface(String implementsInterface) {
+            onFirst(this.beginImplements);
+            printComma();
+            rawPrint(implementsInterface);
+        }
+
+        @Override
+        public void methodException(String exception) {
+            onFirst(this.beginThrows);
+            printComma();
+            rawPrint(exception);
+        }
+    }
+
+    /**
+     * Writes the implements and throws lists keyed by the caller taken from a stack trace, and takes a stack trace
+     * in initializeOnFirst(), like CodeGeneratorOutputStream did before.
+     */
+    private static class StackTraceStream extends CallerKeyedStream {
+
+        /**
+         * Returns the class and method name of a method on the stack, like CodeGeneratorOutputStream did before.
+         *
+         * @param ix The index of the method on the stack. 1 is the method calling this.
+         */
+        private static String getCaller(int ix) {
+            StackTraceElement[] stackTrace = new Exception().getStackTrace();
+            return stackTrace[ix].getClassName() + "." + stackTrace[ix].getMethodName();
+        }
+
+        @Override
+        public void initializeOnFirst() {
+            getCaller(2);
+            super.initializeOnFirst();
+        }
+
+        @Override
+        public void implementsInterface(String implementsInterface) {
+            onFirst(getCaller(1), new Runnable() {
+                @Override
+                public void run() {
+                    rawPrint(" implements ");
+                    newComma();
+                }
+            });
+            printComma();
+            rawPrint(implementsInterface);
+        }
+
+        @Override
+        public void methodException(String exception) {
+            onFirst(getCaller(1), new Runnable() {
+                @Override
+                public void run() {
+                    flushAndRemoveFirstDelayedPrint();
+                    rawPrint(" throws ");
+                    newComma();
+                }
+            });
+            printComma();
+            rawPrint(exception);
+        }
+    }
+}
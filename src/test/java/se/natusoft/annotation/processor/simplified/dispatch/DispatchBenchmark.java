@@ -0,0 +1,160 @@
+/*
+ *
+ * PROJECT
+ *     Name
+ *         SimplifiedAnnotationProcessor
+ *
+ *     Code Version
+ *         1.1
+ *
+ *     Description
+ *         An abstract annotation processor base class that simplifies the annotation
+ *         processing, but also limits it slightly. It is however good enough for most
+ *         cases and makes things a bit easier and clearer.
+ *
+ * COPYRIGHTS
+ *     Copyright (C) 2013 by Natusoft AB All rights reserved.
+ *
+ * LICENSE
+ *     Apache 2.0 (Open Source)
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ * AUTHORS
+ *     tommy ()
+ *         Changes:
+ *         2026-10-16: Created!
+ *
+ */
+package se.natusoft.annotation.processor.simplified.dispatch;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.TypeElement;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import se.natusoft.annotation.processor.simplified.SimplifiedAnnotationProcessor;
+import se.natusoft.annotation.processor.simplified.annotations.NewRound;
+import se.natusoft.annotation.processor.simplified.annotations.Process;
+
+/**
+ * Compares calling processing methods through handlers bound by HandlerBinder with REFLECTION and DIRECT invocation.
+ * <p>
+ * Run with:
+ * <pre>
+ *     mvn -B clean test-compile exec:exec -Dexec.executable=java -Dexec.classpathScope=test \
+ *         -Dexec.args="-cp %classpath org.openjdk.jmh.Main DispatchBenchmark"
+ * </pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DispatchBenchmark {
+    //
+    // Private Members
+    //
+
+    /** How the handlers are invoked. */
+    @Param({"REFLECTION", "DIRECT"})
+    private HandlerBinder.Invocation invocation;
+
+    /** The processor the handlers call. */
+    private BenchmarkProcessor processor = null;
+
+    /** The @Process handler. */
+    private ProcessHandler processHandler = null;
+
+    /** The @NewRound handler. */
+    private CallbackHandler newRoundHandler = null;
+
+    /** The elements passed to the @Process handler. */
+    private Set<? extends Element> elements = Collections.emptySet();
+
+    //
+    // Methods
+    //
+
+    @Setup
+    public void setup() {
+        this.processor = new BenchmarkProcessor();
+        Dispatcher dispatcher = new HandlerBinder(this.processor, this.invocation).bind(
+                new DispatchTable(BenchmarkProcessor.class));
+        this.processHandler = dispatcher.getProcessHandler(Benchmarked.class.getCanonicalName());
+        this.newRoundHandler = dispatcher.getNewRoundHandler();
+    }
+
+    @Benchmark
+    public void process(Blackhole blackhole) throws Exception {
+        this.processHandler.process(null, this.elements);
+        blackhole.consume(this.processor.processed);
+    }
+
+    @Benchmark
+    public void newRound(Blackhole blackhole) throws Exception {
+        this.newRoundHandler.call();
+        blackhole.consume(this.processor.rounds);
+    }
+
+    //
+    // Inner Classes
+    //
+
+    /**
+     * The annotation processed by BenchmarkProcessor.
+     */
+    @Retention(RetentionPolicy.RUNTIME)
+    public static @interface Benchmarked {}
+
+    /**
+     * A processor with processing methods that only count the calls.
+     */
+    public static class BenchmarkProcessor extends SimplifiedAnnotationProcessor {
+
+        /** The number of @NewRound calls. */
+        private int rounds = 0;
+
+        /** The number of elements processed. */
+        private int processed = 0;
+
+        public BenchmarkProcessor() {
+            super(false);
+        }
+
+        @NewRound
+        public void newRound() {
+            ++this.rounds;
+        }
+
+        @Process(Benchmarked.class)
+        public void process(TypeElement annotation, Set<? extends Element> annotatedElements) {
+            this.processed += annotatedElements.size() + 1;
+        }
+    }
+}
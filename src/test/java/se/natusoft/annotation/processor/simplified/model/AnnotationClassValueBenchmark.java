@@ -0,0 +1,173 @@
+/*
+ *
+ * PROJECT
+ *     Name
+ *         SimplifiedAnnotationProcessor
+ *
+ *     Code Version
+ *         1.1
+ *
+ *     Description
+ *         An abstract annotation processor base class that simplifies the annotation
+ *         processing, but also limits it slightly. It is however good enough for most
+ *         cases and makes things a bit easier and clearer.
+ *
+ * COPYRIGHTS
+ *     Copyright (C) 2013 by Natusoft AB All rights reserved.
+ *
+ * LICENSE
+ *     Apache 2.0 (Open Source)
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ * AUTHORS
+ *     tommy ()
+ *         Changes:
+ *         2026-10-16: Created!
+ *
+ */
+package se.natusoft.annotation.processor.simplified.model;
+
+import com.sun.source.util.JavacTask;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.net.URI;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.MirroredTypeException;
+import javax.lang.model.type.MirroredTypesException;
+import javax.lang.model.type.TypeMirror;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.ToolProvider;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares reading Class valued annotation members by catching MirroredTypeException, with reading them from the
+ * AnnotationValue through SAPAnnotation. The exception route gets the annotation proxy once, while the SAPAnnotation
+ * route wraps the mirror on every call.
+ * <p>
+ * Run with:
+ * <pre>
+ *     mvn -B clean test-compile exec:exec -Dexec.executable=java -Dexec.classpathScope=test \
+ *         -Dexec.args="-cp %classpath org.openjdk.jmh.Main AnnotationClassValueBenchmark"
+ * </pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AnnotationClassValueBenchmark {
+    //
+    // Constants
+    //
+
+    /** The source of the annotated class. */
+    private static final String SOURCE =
+            "package bench;\n" +
+            "@" + Handles.class.getCanonicalName() + "(value = java.util.List.class,\n" +
+            "        also = {java.lang.String.class, java.lang.Integer.class, java.util.Map.class})\n" +
+            "public class Annotated {}\n";
+
+    //
+    // Private Members
+    //
+
+    /** The annotation as returned by Element.getAnnotation(...). */
+    private Handles handles = null;
+
+    /** The mirror of the annotation. */
+    private AnnotationMirror handlesMirror = null;
+
+    //
+    // Methods
+    //
+
+    @Setup
+    public void setup() throws Exception {
+        JavaFileObject source = new SimpleJavaFileObject(URI.create("string:///bench/Annotated.java"),
+                JavaFileObject.Kind.SOURCE) {
+            @Override
+            public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+                return SOURCE;
+            }
+        };
+        JavacTask javacTask = (JavacTask)ToolProvider.getSystemJavaCompiler().getTask(null, null, null,
+                Arrays.asList("-proc:none", "-classpath", System.getProperty("java.class.path")), null,
+                Arrays.asList(source));
+        javacTask.analyze();
+
+        TypeElement annotated = javacTask.getElements().getTypeElement("bench.Annotated");
+        this.handles = annotated.getAnnotation(Handles.class);
+        this.handlesMirror = annotated.getAnnotationMirrors().get(0);
+    }
+
+    @Benchmark
+    public TypeMirror classByException() {
+        try {
+            this.handles.value();
+            throw new IllegalStateException("Expected MirroredTypeException!");
+        }
+        catch (MirroredTypeException mte) {
+            return mte.getTypeMirror();
+        }
+    }
+
+    @Benchmark
+    public TypeMirror classBySAPAnnotation() {
+        return new SAPAnnotation(this.handlesMirror).getTypeMirrorFor("value");
+    }
+
+    @Benchmark
+    public List<? extends TypeMirror> classesByException() {
+        try {
+            this.handles.also();
+            throw new IllegalStateException("Expected MirroredTypesException!");
+        }
+        catch (MirroredTypesException mte) {
+            return mte.getTypeMirrors();
+        }
+    }
+
+    @Benchmark
+    public List<TypeMirror> classesBySAPAnnotation() {
+        return new SAPAnnotation(this.handlesMirror).getTypeMirrorsFor("also");
+    }
+
+    //
+    // Inner Classes
+    //
+
+    /**
+     * An annotation with Class valued members.
+     */
+    @Retention(RetentionPolicy.RUNTIME)
+    public static @interface Handles {
+        Class<?> value();
+        Class<?>[] also() default {};
+    }
+}